@@ -0,0 +1,71 @@
+package os.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import os.core.FileSystem;
+
+/**
+ * Costo de FileSystem.releaseAccess + requestAccess según el número de
+ * archivos y la contención (procesos compitiendo por cada archivo). Cada
+ * operación libera el archivo, concede el lock al siguiente de la cola y
+ * vuelve a encolar al proceso que lo liberó. releaseAndRequestByHandle
+ * hace lo mismo con descriptores obtenidos de open().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class FileSystemBenchmark {
+    @Param({"3", "100", "10000"})
+    private int fileCount;
+
+    @Param({"1", "4", "16"})
+    private int contenders;
+
+    private FileSystem fileSystem;
+    private String[] names;
+    private int[] handles;
+    private int[] holder;    // Índice del proceso que tiene el lock de cada archivo
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        fileSystem = new FileSystem();
+        names = new String[fileCount];
+        handles = new int[fileCount];
+        holder = new int[fileCount];
+        for (int f = 0; f < fileCount; f++) {
+            names[f] = "file" + f + ".txt";
+            fileSystem.createFile(names[f], "Contenido " + f);
+            handles[f] = fileSystem.open(names[f]);
+            for (int c = 0; c < contenders; c++) {
+                fileSystem.requestAccess(c + 1, names[f], FileSystem.SimulatedFile.FileAccessType.READ);
+            }
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    public boolean releaseAndRequest() {
+        int f = cursor;
+        cursor = f + 1 == fileCount ? 0 : f + 1;
+        int pid = holder[f] + 1;
+        fileSystem.releaseAccess(pid, names[f]);
+        holder[f] = (holder[f] + 1) % contenders;
+        return fileSystem.requestAccess(pid, names[f], FileSystem.SimulatedFile.FileAccessType.READ);
+    }
+
+    @Benchmark
+    public boolean releaseAndRequestByHandle() {
+        int f = cursor;
+        cursor = f + 1 == fileCount ? 0 : f + 1;
+        int pid = holder[f] + 1;
+        fileSystem.releaseAccess(pid, handles[f]);
+        holder[f] = (holder[f] + 1) % contenders;
+        return fileSystem.requestAccess(pid, handles[f], FileSystem.SimulatedFile.FileAccessType.READ);
+    }
+}
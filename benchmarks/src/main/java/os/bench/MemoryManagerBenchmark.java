@@ -0,0 +1,56 @@
+package os.bench;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import os.core.MemoryManager;
+
+/**
+ * Costo de MemoryManager.accessPage para distintos números de marcos.
+ * La secuencia de referencias tiene localidad: el 80% de los accesos cae en
+ * un conjunto caliente de frames/2 páginas y el resto en 4·frames páginas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryManagerBenchmark {
+    private static final int REFERENCES = 1 << 16;
+    private static final int PROCESSES = 4;
+
+    @Param({"16", "64", "256", "1024"})
+    private int frames;
+
+    @Param({"FIFO", "LRU"})
+    private MemoryManager.PageReplacementAlgorithm algorithm;
+
+    private MemoryManager memory;
+    private int[] pids;
+    private int[] pages;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        memory = new MemoryManager(frames, algorithm);
+        Random rand = new Random(42);
+        pids = new int[REFERENCES];
+        pages = new int[REFERENCES];
+        int hot = Math.max(1, frames / 2 / PROCESSES);
+        int cold = 4 * frames / PROCESSES;
+        for (int i = 0; i < REFERENCES; i++) {
+            pids[i] = rand.nextInt(PROCESSES) + 1;
+            pages[i] = rand.nextDouble() < 0.8 ? rand.nextInt(hot) : rand.nextInt(cold);
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    public boolean accessPage() {
+        int i = cursor++ & (REFERENCES - 1);
+        return memory.accessPage(pids[i], pages[i]);
+    }
+}
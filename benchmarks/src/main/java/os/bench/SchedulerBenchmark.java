@@ -0,0 +1,58 @@
+package os.bench;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import os.core.Process;
+import os.core.Scheduler;
+
+/**
+ * Costo de Scheduler.executeStep y de reinsertar procesos en la cola de
+ * listos (addToReadyQueue, ejercitado mediante bloqueo y desbloqueo) según
+ * el tamaño de la cola y el algoritmo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+    @Param({"10", "100", "1000"})
+    private int readyQueueSize;
+
+    @Param({"ROUND_ROBIN", "SJF", "PRIORITY"})
+    private Scheduler.SchedulingAlgorithm algorithm;
+
+    private Scheduler scheduler;
+    private int nextPid;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        scheduler = new Scheduler(algorithm, 4);
+        Random rand = new Random(42);
+        for (int i = 1; i <= readyQueueSize; i++) {
+            // Ráfagas largas: ningún proceso termina durante la medición
+            scheduler.addProcess(new Process(i, "P" + i, rand.nextInt(10) + 1,
+                    Integer.MAX_VALUE / 2 + rand.nextInt(1000), 0, null, null));
+        }
+        scheduler.executeStep();
+        nextPid = 1;
+    }
+
+    @Benchmark
+    public boolean executeStep() {
+        return scheduler.executeStep();
+    }
+
+    @Benchmark
+    public int blockUnblock() {
+        int pid = nextPid;
+        nextPid = pid == readyQueueSize ? 1 : pid + 1;
+        scheduler.processBlocked(pid, null);
+        scheduler.processUnblocked(pid, null);
+        return pid;
+    }
+}
@@ -0,0 +1,170 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Disco simulado que transfiere bloques de tamaño fijo. Atiende las
+ * operaciones en orden de llegada: cada una espera a que el disco quede
+ * libre, mueve el cabezal hasta el primer bloque (búsqueda proporcional a
+ * la distancia) y transfiere los bloques (en ticks del simulador).
+ */
+public class BlockDevice {
+    private int blockSize;        // Bytes por bloque
+    private int blockCount;       // Bloques del disco
+    private int seekLatency;      // Ticks de una búsqueda de extremo a extremo
+    private int blocksPerTick;    // Ancho de banda
+    private int headBlock;        // Bloque siguiente al último transferido
+    private long busyUntil;       // Tick en que termina la última operación encolada
+    private int reads;
+    private int writes;
+    private long blocksRead;
+    private long blocksWritten;
+    private long seekDistance;    // Bloques recorridos por el cabezal
+    private long busyTime;
+
+    /**
+     * Constructor del disco
+     * @param blockSize bytes por bloque
+     * @param blockCount bloques del disco
+     * @param seekLatency ticks de una búsqueda que recorre todo el disco
+     * @param blocksPerTick bloques transferidos por tick
+     */
+    public BlockDevice(int blockSize, int blockCount, int seekLatency, int blocksPerTick) {
+        if (blockSize <= 0 || blockCount <= 0 || seekLatency < 0 || blocksPerTick <= 0) {
+            throw new IllegalArgumentException("Parámetros de disco inválidos");
+        }
+        this.blockSize = blockSize;
+        this.blockCount = blockCount;
+        this.seekLatency = seekLatency;
+        this.blocksPerTick = blocksPerTick;
+    }
+
+    /**
+     * Lee bloques consecutivos
+     * @return tick de finalización
+     */
+    public long read(long now, int firstBlock, int blocks) {
+        reads++;
+        blocksRead += blocks;
+        return submit(now, firstBlock, blocks);
+    }
+
+    /**
+     * Escribe bloques consecutivos
+     * @return tick de finalización
+     */
+    public long write(long now, int firstBlock, int blocks) {
+        writes++;
+        blocksWritten += blocks;
+        return submit(now, firstBlock, blocks);
+    }
+
+    /**
+     * Mueve el cabezal sin transferir nada (p. ej. hasta el extremo del disco)
+     * @param block posición destino, entre 0 y blockCount
+     * @return tick de finalización
+     */
+    public long seek(long now, int block) {
+        if (block < 0 || block > blockCount) {
+            throw new IllegalArgumentException("Posición fuera del disco: " + block);
+        }
+        long start = Math.max(now, busyUntil);
+        long duration = seekTime(block);
+        seekDistance += Math.abs((long) block - headBlock);
+        headBlock = block;
+        busyUntil = start + duration;
+        busyTime += duration;
+        return busyUntil;
+    }
+
+    /**
+     * Ticks de búsqueda desde la posición actual del cabezal
+     */
+    public int seekTime(int block) {
+        long distance = Math.abs((long) block - headBlock);
+        return (int) ((distance * seekLatency + blockCount - 1) / blockCount);
+    }
+
+    private long submit(long now, int firstBlock, int blocks) {
+        if (firstBlock < 0 || blocks <= 0 || firstBlock + blocks > blockCount) {
+            throw new IllegalArgumentException("Bloques fuera del disco: " + firstBlock + "+" + blocks);
+        }
+        long start = Math.max(now, busyUntil);
+        long duration = seekTime(firstBlock) + (blocks + blocksPerTick - 1) / blocksPerTick;
+        seekDistance += Math.abs((long) firstBlock - headBlock);
+        headBlock = firstBlock + blocks;
+        busyUntil = start + duration;
+        busyTime += duration;
+        return busyUntil;
+    }
+
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(blockSize);
+        out.writeInt(blockCount);
+        out.writeInt(seekLatency);
+        out.writeInt(blocksPerTick);
+        out.writeInt(headBlock);
+        out.writeLong(busyUntil);
+        out.writeInt(reads);
+        out.writeInt(writes);
+        out.writeLong(blocksRead);
+        out.writeLong(blocksWritten);
+        out.writeLong(seekDistance);
+        out.writeLong(busyTime);
+    }
+
+    /**
+     * Crea un disco con el estado guardado
+     */
+    static BlockDevice readState(Checkpoint.Input in) {
+        BlockDevice device = new BlockDevice(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        device.headBlock = in.readInt();
+        device.busyUntil = in.readLong();
+        device.reads = in.readInt();
+        device.writes = in.readInt();
+        device.blocksRead = in.readLong();
+        device.blocksWritten = in.readLong();
+        device.seekDistance = in.readLong();
+        device.busyTime = in.readLong();
+        return device;
+    }
+
+    /**
+     * Obtiene métricas del disco
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("diskReads", reads);
+        metrics.put("diskWrites", writes);
+        metrics.put("diskBlocksRead", blocksRead);
+        metrics.put("diskBlocksWritten", blocksWritten);
+        metrics.put("diskSeekDistance", seekDistance);
+        metrics.put("diskBusyTime", busyTime);
+        return metrics;
+    }
+
+    // Getters
+    public int getBlockSize() { return blockSize; }
+    public int getBlockCount() { return blockCount; }
+    public int getSeekLatency() { return seekLatency; }
+    public int getBlocksPerTick() { return blocksPerTick; }
+    public int getHeadBlock() { return headBlock; }
+    public long getBusyUntil() { return busyUntil; }
+    public int getReads() { return reads; }
+    public int getWrites() { return writes; }
+    public long getSeekDistance() { return seekDistance; }
+
+    /**
+     * Reinicia el disco
+     */
+    public void reset() {
+        headBlock = 0;
+        busyUntil = 0;
+        reads = 0;
+        writes = 0;
+        blocksRead = 0;
+        blocksWritten = 0;
+        seekDistance = 0;
+        busyTime = 0;
+    }
+}
@@ -0,0 +1,260 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Caché de bloques del disco (buffer cache) delante de un BlockDevice.
+ * Guarda bloques por su número en el disco y mantiene las escrituras en
+ * memoria (write-back) hasta que el bloque sucio se desaloja.
+ *
+ * Políticas de reemplazo:
+ * - LRU: desaloja el bloque usado hace más tiempo.
+ * - TWO_Q: los bloques nuevos entran en una cola FIFO (A1in, 1/4 de la
+ *   capacidad); al salir de ella se recuerda sólo su número (A1out) y, si
+ *   se vuelven a pedir, pasan a la zona LRU principal (Am). Así un recorrido
+ *   secuencial no expulsa a los bloques que se usan con frecuencia.
+ */
+public class BufferCache {
+    public enum ReplacementPolicy { LRU, TWO_Q }
+
+    private int capacity;                     // Bloques en caché
+    private ReplacementPolicy policy;
+    private int readAhead;                    // Bloques a leer por adelantado tras un fallo
+    private int inCapacity;                   // Tamaño objetivo de A1in (TWO_Q)
+    private int ghostCapacity;                // Números recordados en A1out (TWO_Q)
+
+    private LinkedHashMap<Integer, Boolean> recent;    // A1in: bloque -> sucio (FIFO)
+    private LinkedHashMap<Integer, Boolean> frequent;  // Am (o la única LRU): bloque -> sucio
+    private LinkedHashSet<Integer> ghosts;             // A1out: bloques desalojados de A1in
+    private Set<Integer> prefetched;                   // Leídos por adelantado y aún no usados
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeBacks;
+    private long readAheadIssued;
+    private long readAheadUsed;
+
+    /**
+     * Constructor de la caché
+     * @param capacity bloques que caben en la caché
+     * @param readAhead bloques siguientes que se leen junto con un fallo
+     */
+    public BufferCache(int capacity, ReplacementPolicy policy, int readAhead) {
+        if (capacity <= 0 || readAhead < 0) {
+            throw new IllegalArgumentException("Parámetros de caché inválidos");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.readAhead = readAhead;
+        this.inCapacity = Math.max(1, capacity / 4);
+        this.ghostCapacity = Math.max(1, capacity / 2);
+        this.recent = new LinkedHashMap<>();
+        this.frequent = new LinkedHashMap<>(16, 0.75f, true);
+        this.ghosts = new LinkedHashSet<>();
+        this.prefetched = new HashSet<>();
+    }
+
+    /**
+     * Busca un bloque y, si está, lo marca como usado (y sucio si es escritura)
+     * @return true si el bloque estaba en caché
+     */
+    public boolean lookup(int block, boolean write) {
+        Boolean dirty = frequent.get(block);      // get actualiza el orden LRU
+        LinkedHashMap<Integer, Boolean> queue = frequent;
+        if (dirty == null) {
+            dirty = recent.get(block);            // A1in es FIFO: no se reordena
+            queue = recent;
+        }
+        if (dirty == null) {
+            misses++;
+            return false;
+        }
+        hits++;
+        if (write && !dirty) {
+            queue.put(block, true);
+        }
+        if (prefetched.remove(block)) {
+            readAheadUsed++;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si el bloque está en caché, sin contarlo como acceso
+     */
+    public boolean contains(int block) {
+        return frequent.containsKey(block) || recent.containsKey(block);
+    }
+
+    /**
+     * Inserta un bloque que no estaba en caché
+     * @param prefetch true si se lee por adelantado (no lo pidió nadie aún)
+     * @return bloque sucio desalojado que hay que escribir en disco, o -1
+     */
+    public int insert(int block, boolean dirty, boolean prefetch) {
+        int victim = -1;
+        if (recent.size() + frequent.size() >= capacity) {
+            victim = evict();
+        }
+        if (policy == ReplacementPolicy.TWO_Q && !ghosts.remove(block)) {
+            recent.put(block, dirty);
+        } else {
+            frequent.put(block, dirty);
+        }
+        if (prefetch) {
+            prefetched.add(block);
+            readAheadIssued++;
+        }
+        return victim;
+    }
+
+    /**
+     * Desaloja un bloque según la política
+     * @return el bloque si estaba sucio, o -1
+     */
+    private int evict() {
+        Map.Entry<Integer, Boolean> victim;
+        if (!recent.isEmpty() && (recent.size() > inCapacity || frequent.isEmpty())) {
+            victim = recent.entrySet().iterator().next();
+            recent.remove(victim.getKey());
+            ghosts.add(victim.getKey());
+            if (ghosts.size() > ghostCapacity) {
+                Iterator<Integer> oldest = ghosts.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        } else {
+            victim = frequent.entrySet().iterator().next();
+            frequent.remove(victim.getKey());
+        }
+        evictions++;
+        prefetched.remove(victim.getKey());
+        if (victim.getValue()) {
+            writeBacks++;
+            return victim.getKey();
+        }
+        return -1;
+    }
+
+    /**
+     * Marca todos los bloques como limpios
+     * @return bloques que estaban sucios (a escribir en disco), en orden
+     */
+    public int[] flush() {
+        List<Integer> dirty = new ArrayList<>();
+        for (Map<Integer, Boolean> queue : Arrays.asList(recent, frequent)) {
+            for (Map.Entry<Integer, Boolean> entry : queue.entrySet()) {
+                if (entry.getValue()) {
+                    dirty.add(entry.getKey());
+                    entry.setValue(false);
+                }
+            }
+        }
+        writeBacks += dirty.size();
+        int[] blocks = new int[dirty.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = dirty.get(i);
+        }
+        Arrays.sort(blocks);
+        return blocks;
+    }
+
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(capacity);
+        out.writeInt(policy.ordinal());
+        out.writeInt(readAhead);
+        for (Map<Integer, Boolean> queue : Arrays.asList(recent, frequent)) {
+            out.writeInt(queue.size());
+            for (Map.Entry<Integer, Boolean> entry : queue.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeBoolean(entry.getValue());
+            }
+        }
+        out.writeInt(ghosts.size());
+        for (int block : ghosts) {
+            out.writeInt(block);
+        }
+        out.writeInt(prefetched.size());
+        for (int block : prefetched) {
+            out.writeInt(block);
+        }
+        out.writeLong(hits);
+        out.writeLong(misses);
+        out.writeLong(evictions);
+        out.writeLong(writeBacks);
+        out.writeLong(readAheadIssued);
+        out.writeLong(readAheadUsed);
+    }
+
+    /**
+     * Crea una caché con el estado guardado
+     */
+    static BufferCache readState(Checkpoint.Input in) {
+        BufferCache cache = new BufferCache(in.readInt(),
+                ReplacementPolicy.values()[in.readInt()], in.readInt());
+        for (Map<Integer, Boolean> queue : Arrays.asList(cache.recent, cache.frequent)) {
+            for (int i = in.readInt(); i > 0; i--) {
+                int block = in.readInt();
+                queue.put(block, in.readBoolean());
+            }
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            cache.ghosts.add(in.readInt());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            cache.prefetched.add(in.readInt());
+        }
+        cache.hits = in.readLong();
+        cache.misses = in.readLong();
+        cache.evictions = in.readLong();
+        cache.writeBacks = in.readLong();
+        cache.readAheadIssued = in.readLong();
+        cache.readAheadUsed = in.readLong();
+        return cache;
+    }
+
+    /**
+     * Obtiene métricas de la caché
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("cacheHits", hits);
+        metrics.put("cacheMisses", misses);
+        metrics.put("cacheHitRatio", getHitRatio());
+        metrics.put("cacheEvictions", evictions);
+        metrics.put("cacheWriteBacks", writeBacks);
+        metrics.put("readAheadIssued", readAheadIssued);
+        metrics.put("readAheadUsed", readAheadUsed);
+        return metrics;
+    }
+
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+
+    // Getters
+    public int getCapacity() { return capacity; }
+    public ReplacementPolicy getPolicy() { return policy; }
+    public int getReadAhead() { return readAhead; }
+    public int getSize() { return recent.size() + frequent.size(); }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+
+    /**
+     * Vacía la caché (los bloques sucios se descartan) y reinicia las métricas
+     */
+    public void reset() {
+        recent.clear();
+        frequent.clear();
+        ghosts.clear();
+        prefetched.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        writeBacks = 0;
+        readAheadIssued = 0;
+        readAheadUsed = 0;
+    }
+}
@@ -0,0 +1,445 @@
+package os.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint del estado completo de Scheduler, MemoryManager y FileSystem
+ * en un formato binario compacto y versionado.
+ *
+ * Formato (big-endian):
+ *   cabecera: MAGIC (int), VERSION (short), reservado (short),
+ *             longitud del contenido (int), CRC32 del contenido (int)
+ *   contenido: secciones [etiqueta (int), longitud (int), datos]
+ *              para el planificador, la memoria y el sistema de archivos
+ *
+ * Sólo se guarda estado, no conexiones: listeners, tracer, TLB, prefetcher
+ * y la fuente de llegadas del Scheduler quedan como estén en el destino
+ * (el TLB se vacía al restaurar).
+ */
+public class Checkpoint {
+    public static final int MAGIC = 0x4F53434B;      // "OSCK"
+    public static final short VERSION = 12;
+    private static final int HEADER_BYTES = 16;
+
+    private static final int SCHEDULER_TAG = 0x53434844;   // "SCHD"
+    private static final int MEMORY_TAG = 0x4D454D4D;      // "MEMM"
+    private static final int FILESYSTEM_TAG = 0x46535953;  // "FSYS"
+
+    private byte[] payload;
+
+    private Checkpoint(byte[] payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * Checkpoint a partir de un contenido ya serializado (p. ej. dentro de una grabación)
+     */
+    static Checkpoint fromPayload(byte[] payload) {
+        return new Checkpoint(payload);
+    }
+
+    byte[] getPayload() {
+        return payload;
+    }
+
+    /**
+     * Buffer de escritura que crece según se necesite
+     */
+    static class Output {
+        private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+                ByteBuffer grown = ByteBuffer.allocate(capacity);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+
+        void writeInt(int value) { ensure(4); buffer.putInt(value); }
+        void writeLong(long value) { ensure(8); buffer.putLong(value); }
+        void writeBoolean(boolean value) { ensure(1); buffer.put((byte) (value ? 1 : 0)); }
+
+        /**
+         * Cadena UTF-8 precedida de su longitud (-1 = null)
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        /**
+         * Bytes precedidos de su longitud (-1 = null); para texto coincide
+         * con writeString
+         */
+        void writeBytes(byte[] value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            writeInt(value.length);
+            ensure(value.length);
+            buffer.put(value);
+        }
+
+        void writeProcess(Process process) {
+            writeInt(process.getPid());
+            writeInt(process.getProcessId());
+            writeString(process.getName());
+            writeInt(process.getPriority());
+            writeInt(process.getBurstTime());
+            writeInt(process.getRemainingTime());
+            writeInt(process.getArrivalTime());
+            writeInt(process.getWaitingTime());
+            writeInt(process.getTurnaroundTime());
+            writeInt(process.getCompletionTime());
+            writeInt(process.getStartTime());
+            writeInt(process.getQuantum());
+            writeInt(process.getContextSwitches());
+            writeInt(process.getPeriod());
+            if (process.isRealTime()) {
+                writeInt(process.getRelativeDeadline());
+                writeInt(process.getJobCount());
+                writeBoolean(process.isSporadic());
+                if (process.isSporadic()) {
+                    for (int job = 0; job < process.getJobCount(); job++) {
+                        writeInt(process.getReleaseTime(job) - process.getArrivalTime());
+                    }
+                }
+                writeInt(process.getCompletedJobs());
+                writeInt(process.getAbsoluteDeadline());
+            }
+            writeInt(process.getBurstCount());
+            if (process.hasBursts()) {
+                for (int i = 0; i < process.getBurstCount(); i++) {
+                    writeInt(process.getBurst(i));
+                }
+                writeInt(process.getBurstIndex());
+            }
+            writeInt(process.getState().ordinal());
+            List<Integer> pages = process.getRequiredPages();
+            writeInt(pages.size());
+            for (int page : pages) {
+                writeInt(page);
+            }
+            List<String> files = process.getRequiredFiles();
+            writeInt(files.size());
+            for (String file : files) {
+                writeString(file);
+            }
+        }
+
+        void writeProcesses(Collection<Process> processes) {
+            writeInt(processes.size());
+            for (Process process : processes) {
+                writeProcess(process);
+            }
+        }
+
+        /**
+         * Sección con etiqueta y longitud, para poder saltarla al leer
+         */
+        void writeSection(int tag, Output section) {
+            ByteBuffer data = section.buffer.duplicate();
+            data.flip();
+            writeInt(tag);
+            writeInt(data.remaining());
+            ensure(data.remaining());
+            buffer.put(data);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    /**
+     * Lectura secuencial del contenido de un checkpoint
+     */
+    static class Input {
+        private final ByteBuffer buffer;
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readInt() { return buffer.getInt(); }
+        long readLong() { return buffer.getLong(); }
+        boolean readBoolean() { return buffer.get() != 0; }
+
+        String readString() {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        byte[] readBytes() {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        Process readProcess() {
+            int pid = readInt();
+            int processId = readInt();
+            String name = readString();
+            int priority = readInt();
+            int burstTime = readInt();
+            int remainingTime = readInt();
+            int arrivalTime = readInt();
+            int waitingTime = readInt();
+            int turnaroundTime = readInt();
+            int completionTime = readInt();
+            int startTime = readInt();
+            int quantum = readInt();
+            int contextSwitches = readInt();
+            int period = readInt();
+            int relativeDeadline = 0;
+            int jobCount = 0;
+            int[] releaseOffsets = null;
+            int completedJobs = 0;
+            int absoluteDeadline = 0;
+            if (period > 0) {
+                relativeDeadline = readInt();
+                jobCount = readInt();
+                if (readBoolean()) {
+                    releaseOffsets = new int[jobCount];
+                    for (int job = 0; job < jobCount; job++) {
+                        releaseOffsets[job] = readInt();
+                    }
+                }
+                completedJobs = readInt();
+                absoluteDeadline = readInt();
+            }
+            int[] bursts = new int[readInt()];
+            int burstIndex = 0;
+            if (bursts.length > 0) {
+                for (int i = 0; i < bursts.length; i++) {
+                    bursts[i] = readInt();
+                }
+                burstIndex = readInt();
+            }
+            Process.ProcessState state = Process.ProcessState.values()[readInt()];
+            List<Integer> pages = new ArrayList<>();
+            for (int i = readInt(); i > 0; i--) {
+                pages.add(readInt());
+            }
+            List<String> files = new ArrayList<>();
+            for (int i = readInt(); i > 0; i--) {
+                files.add(readString());
+            }
+            Process process = processId == pid
+                    ? new Process(pid, name, priority, burstTime, arrivalTime, pages, files)
+                    : new SimulatedThread(pid, processId, name, priority, burstTime, arrivalTime, pages, files);
+            process.restoreProgress(remainingTime, turnaroundTime, quantum);
+            process.restoreContextSwitches(contextSwitches);
+            process.restoreRealTime(period, relativeDeadline, jobCount, releaseOffsets,
+                    completedJobs, absoluteDeadline);
+            if (bursts.length > 0) {
+                process.restoreBursts(bursts, burstIndex);
+            }
+            process.setWaitingTime(waitingTime);
+            process.setCompletionTime(completionTime);
+            process.setStartTime(startTime);
+            process.setState(state);
+            return process;
+        }
+
+        List<Process> readProcesses() {
+            int count = readInt();
+            List<Process> processes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                processes.add(readProcess());
+            }
+            return processes;
+        }
+    }
+
+    /**
+     * Componentes creados a partir de un checkpoint, ya conectados entre sí
+     */
+    public static class Fork {
+        private final Scheduler scheduler;
+        private final MemoryManager memoryManager;
+        private final FileSystem fileSystem;
+
+        Fork(Scheduler scheduler, MemoryManager memoryManager, FileSystem fileSystem) {
+            this.scheduler = scheduler;
+            this.memoryManager = memoryManager;
+            this.fileSystem = fileSystem;
+        }
+
+        public Scheduler getScheduler() { return scheduler; }
+        public MemoryManager getMemoryManager() { return memoryManager; }
+        public FileSystem getFileSystem() { return fileSystem; }
+    }
+
+    /**
+     * Captura el estado actual de los tres componentes
+     */
+    public static Checkpoint capture(Scheduler scheduler, MemoryManager memoryManager,
+                                     FileSystem fileSystem) {
+        Output schedulerState = new Output();
+        scheduler.writeState(schedulerState);
+        Output memoryState = new Output();
+        memoryManager.writeState(memoryState);
+        Output fileSystemState = new Output();
+        fileSystem.writeState(fileSystemState);
+
+        Output out = new Output();
+        out.writeSection(SCHEDULER_TAG, schedulerState);
+        out.writeSection(MEMORY_TAG, memoryState);
+        out.writeSection(FILESYSTEM_TAG, fileSystemState);
+        return new Checkpoint(out.toByteArray());
+    }
+
+    /**
+     * Restaura el estado guardado sobre componentes existentes, conservando
+     * sus conexiones (listeners, tracer, reloj compartido...)
+     */
+    public void restore(Scheduler scheduler, MemoryManager memoryManager, FileSystem fileSystem) {
+        scheduler.readState(section(SCHEDULER_TAG));
+        memoryManager.readState(section(MEMORY_TAG));
+        fileSystem.readState(section(FILESYSTEM_TAG));
+        // El área de intercambio usa la cola del disco del FileSystem
+        memoryManager.linkSwapArea(fileSystem.getIoScheduler());
+    }
+
+    /**
+     * Crea componentes nuevos con el estado guardado, para ramificar un
+     * experimento sin tocar la simulación original. El FileSystem y el
+     * MemoryManager notifican al Scheduler nuevo y comparten su reloj.
+     */
+    public Fork fork() {
+        Input memory = section(MEMORY_TAG);
+        int frameCount = memory.readInt();
+        MemoryManager.PageReplacementAlgorithm algorithm =
+                MemoryManager.PageReplacementAlgorithm.values()[memory.readInt()];
+
+        Scheduler scheduler = new Scheduler(Scheduler.SchedulingAlgorithm.ROUND_ROBIN, 1);
+        MemoryManager memoryManager = new MemoryManager(frameCount, algorithm);
+        FileSystem fileSystem = new FileSystem();
+        restore(scheduler, memoryManager, fileSystem);
+
+        fileSystem.setListener(scheduler);
+        fileSystem.setStallListener(scheduler);
+        fileSystem.setClock(scheduler.getClock());
+        memoryManager.setStallListener(scheduler);
+        memoryManager.setClock(scheduler.getClock());
+        if (fileSystem.getIoScheduler() != null) {
+            fileSystem.getIoScheduler().setListener(scheduler);
+        }
+        return new Fork(scheduler, memoryManager, fileSystem);
+    }
+
+    /**
+     * Busca una sección por su etiqueta
+     */
+    private Input section(int tag) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        while (buffer.remaining() >= 8) {
+            int sectionTag = buffer.getInt();
+            int length = buffer.getInt();
+            if (sectionTag == tag) {
+                ByteBuffer data = buffer.slice();
+                data.limit(length);
+                return new Input(data);
+            }
+            buffer.position(buffer.position() + length);
+        }
+        throw new IllegalStateException("El checkpoint no contiene la sección " + Integer.toHexString(tag));
+    }
+
+    /**
+     * Escribe el checkpoint en un archivo
+     */
+    public void write(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putShort((short) 0);
+        header.putInt(payload.length);
+        header.putInt((int) crc.getValue());
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, ByteBuffer.wrap(payload)};
+            while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    /**
+     * Lee un checkpoint escrito con write
+     */
+    public static Checkpoint read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("No es un archivo de checkpoint: " + path);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Versión de checkpoint no soportada: " + version);
+            }
+            header.getShort();
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || length > channel.size() - HEADER_BYTES) {
+                throw new IOException("Checkpoint truncado: " + path);
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Checkpoint corrupto (CRC inválido): " + path);
+            }
+            return new Checkpoint(payload.array());
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Fin de archivo inesperado");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Tamaño del contenido en bytes (sin cabecera)
+     */
+    public int getSizeBytes() {
+        return payload.length;
+    }
+}
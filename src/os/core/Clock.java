@@ -0,0 +1,26 @@
+package os.core;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Fuente de tiempo compartida por los componentes del núcleo. Con un
+ * SimulatedClock todos miden en ticks del Scheduler (resultados
+ * deterministas y comparables con las métricas de CPU); con NanoTimeClock
+ * miden tiempo real en nanosegundos.
+ */
+public interface Clock extends LongSupplier {
+    /**
+     * Instante actual en las unidades del reloj
+     */
+    long now();
+
+    /**
+     * Nombre de la unidad de tiempo (para mensajes y reportes)
+     */
+    String getUnit();
+
+    @Override
+    default long getAsLong() {
+        return now();
+    }
+}
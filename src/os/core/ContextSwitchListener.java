@@ -0,0 +1,12 @@
+package os.core;
+
+/**
+ * Interfaz ligera para notificar a otros componentes (TLB, caché, trazas)
+ * que el Scheduler cambió el proceso que ocupa la CPU.
+ */
+public interface ContextSwitchListener {
+    /**
+     * Notifica que la CPU pasó de previousPid a nextPid (-1 si estaba libre)
+     */
+    void contextSwitched(int previousPid, int nextPid);
+}
@@ -0,0 +1,506 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Árbol de directorios del FileSystem. Cada directorio es un inodo con sus
+ * entradas (nombre -> código); el código de un archivo es su descriptor
+ * (>= 0) y el de un directorio es ~id (negativo).
+ *
+ * La resolución de rutas recorre un componente por vez. Cada componente se
+ * busca primero en la caché de dentries, indexada por (directorio, nombre),
+ * que también guarda entradas negativas (nombres que no existen) y desaloja
+ * por LRU. Un fallo de caché cuenta como una lectura del directorio, que es
+ * el costo de la búsqueda. Como la clave es el directorio padre y no la ruta
+ * completa, renombrar un directorio sólo invalida su propia entrada.
+ *
+ * Cada directorio tiene un lock que un proceso puede tomar para que nadie
+ * más cree, borre o renombre entradas en él.
+ */
+public class DirectoryTree {
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    public static final int ROOT = ~0;
+    private static final int DEFAULT_CACHE_CAPACITY = 4096;
+
+    private Directory[] directories;      // id -> directorio (null = borrado)
+    private int directoryCount;           // Ids asignados
+    private BitSet freeIds;               // Ids de directorios borrados, reutilizables
+    private int firstFreeId;              // Cota inferior del menor id libre
+    private int liveDirectories;
+    private int cacheCapacity;
+    private LinkedHashMap<DentryKey, Integer> dentryCache;
+
+    private MetricsRegistry metricsRegistry;
+    private MetricsRegistry.Counter lookups;
+    private MetricsRegistry.Counter hits;
+    private MetricsRegistry.Counter misses;
+    private MetricsRegistry.Counter negativeHits;
+    private MetricsRegistry.Counter evictions;
+    private MetricsRegistry.Counter lockConflicts;
+    private Histogram lookupCosts;
+
+    /**
+     * Inodo de directorio
+     */
+    private static class Directory {
+        private int parent;                   // Id del padre (-1 en la raíz)
+        private String name;
+        private Map<String, Integer> entries = new HashMap<>();
+        private int lockedBy = -1;
+    }
+
+    /**
+     * Clave de la caché: componente dentro de un directorio
+     */
+    private static class DentryKey {
+        private final int directory;
+        private final String name;
+
+        DentryKey(int directory, String name) {
+            this.directory = directory;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof DentryKey)) {
+                return false;
+            }
+            DentryKey key = (DentryKey) other;
+            return directory == key.directory && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return directory * 31 + name.hashCode();
+        }
+    }
+
+    /**
+     * Constructor del árbol (sólo con la raíz)
+     */
+    public DirectoryTree() {
+        this.directories = new Directory[16];
+        this.freeIds = new BitSet();
+        this.cacheCapacity = DEFAULT_CACHE_CAPACITY;
+        this.dentryCache = new LinkedHashMap<DentryKey, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DentryKey, Integer> eldest) {
+                if (size() > cacheCapacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.metricsRegistry = new MetricsRegistry();
+        this.lookups = metricsRegistry.counter("pathLookups");
+        this.hits = metricsRegistry.counter("dentryHits");
+        this.misses = metricsRegistry.counter("dentryMisses");
+        this.negativeHits = metricsRegistry.counter("negativeDentryHits");
+        this.evictions = metricsRegistry.counter("dentryEvictions");
+        this.lockConflicts = metricsRegistry.counter("dirLockConflicts");
+        this.lookupCosts = metricsRegistry.histogram("lookupCost");
+        addDirectory(-1, "");
+    }
+
+    /**
+     * Define cuántas entradas guarda la caché de dentries
+     */
+    public void setCacheCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacity);
+        }
+        this.cacheCapacity = capacity;
+        while (dentryCache.size() > capacity) {
+            Iterator<DentryKey> eldest = dentryCache.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Normaliza una ruta: sin barras al principio ni al final, sin barras
+     * repetidas ni componentes "." (la raíz es "")
+     */
+    public static String normalize(String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("La ruta no puede ser null");
+        }
+        if (isNormalized(path)) {
+            return path;
+        }
+        StringBuilder normalized = new StringBuilder(path.length());
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            String component = path.substring(start, end);
+            if (component.equals("..")) {
+                throw new IllegalArgumentException("Ruta inválida (no se admite ..): " + path);
+            }
+            if (!component.isEmpty() && !component.equals(".")) {
+                if (normalized.length() > 0) {
+                    normalized.append('/');
+                }
+                normalized.append(component);
+            }
+            start = end + 1;
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Indica si la ruta ya está normalizada (sin componentes vacíos, "." ni ".."),
+     * para no copiarla en el caso habitual
+     */
+    private static boolean isNormalized(String path) {
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            int size = end - start;
+            if (size == 0 || (path.charAt(start) == '.' && (size == 1
+                    || (size == 2 && path.charAt(start + 1) == '.')))) {
+                return false;
+            }
+            if (end == length - 1) {
+                return false;                  // Barra final
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Ruta del directorio que contiene a una ruta normalizada
+     */
+    public static String parentPath(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash >= 0 ? path.substring(0, slash) : "";
+    }
+
+    /**
+     * Último componente de una ruta normalizada
+     */
+    public static String baseName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    public static boolean isDirectory(int code) {
+        return code < 0 && code != NOT_FOUND;
+    }
+
+    /**
+     * Resuelve una ruta
+     * @return descriptor del archivo, ~id del directorio o NOT_FOUND
+     */
+    public int lookup(String path) {
+        path = normalize(path);
+        lookups.increment();
+        int code = ROOT;
+        int cost = 0;
+        int start = 0;
+        while (start < path.length()) {
+            if (!isDirectory(code)) {
+                code = NOT_FOUND;              // Un archivo en medio de la ruta
+                break;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            DentryKey key = new DentryKey(~code, path.substring(start, end));
+            Integer cached = dentryCache.get(key);
+            if (cached != null) {
+                hits.increment();
+                code = cached;
+                if (code == NOT_FOUND) {
+                    negativeHits.increment();
+                }
+            } else {
+                misses.increment();
+                cost++;
+                Integer entry = directories[~code].entries.get(key.name);
+                code = entry != null ? entry : NOT_FOUND;
+                dentryCache.put(key, code);
+            }
+            if (code == NOT_FOUND) {
+                break;
+            }
+            start = end + 1;
+        }
+        lookupCosts.record(cost);
+        return code;
+    }
+
+    /**
+     * Agrega una entrada a un directorio
+     */
+    void link(int directory, String name, int code) {
+        directories[~directory].entries.put(name, code);
+        dentryCache.remove(new DentryKey(~directory, name));
+    }
+
+    /**
+     * Quita una entrada de un directorio
+     */
+    void unlink(int directory, String name) {
+        directories[~directory].entries.remove(name);
+        dentryCache.remove(new DentryKey(~directory, name));
+    }
+
+    /**
+     * Crea un subdirectorio (el nombre debe estar libre)
+     * @return código del directorio nuevo
+     */
+    int mkdir(int parent, String name) {
+        int code = ~addDirectory(~parent, name);
+        link(parent, name, code);
+        return code;
+    }
+
+    /**
+     * Registra un directorio con el menor id libre (o uno nuevo)
+     */
+    private int addDirectory(int parent, String name) {
+        int id = freeIds.nextSetBit(firstFreeId);
+        if (id >= 0) {
+            freeIds.clear(id);
+            firstFreeId = id + 1;
+        } else {
+            if (directoryCount == directories.length) {
+                directories = Arrays.copyOf(directories, directories.length * 2);
+            }
+            id = directoryCount++;
+        }
+        Directory directory = new Directory();
+        directory.parent = parent;
+        directory.name = name;
+        directories[id] = directory;
+        liveDirectories++;
+        return id;
+    }
+
+    /**
+     * Borra un directorio vacío (no la raíz)
+     */
+    void rmdir(int code) {
+        Directory directory = directories[~code];
+        unlink(~directory.parent, directory.name);
+        directories[~code] = null;
+        freeIds.set(~code);
+        firstFreeId = Math.min(firstFreeId, ~code);
+        liveDirectories--;
+    }
+
+    /**
+     * Mueve una entrada a otro directorio y/o nombre
+     */
+    void move(int code, int fromDirectory, String fromName, int toDirectory, String toName) {
+        unlink(fromDirectory, fromName);
+        link(toDirectory, toName, code);
+        if (isDirectory(code)) {
+            directories[~code].parent = ~toDirectory;
+            directories[~code].name = toName;
+        }
+    }
+
+    /**
+     * Indica si el directorio ancestor contiene (a cualquier profundidad) a directory
+     */
+    boolean contains(int ancestor, int directory) {
+        for (int id = ~directory; id >= 0; id = directories[id].parent) {
+            if (id == ~ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Descriptores de todos los archivos bajo un directorio
+     */
+    List<Integer> filesUnder(int directory) {
+        List<Integer> files = new ArrayList<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(directory);
+        while (!pending.isEmpty()) {
+            for (int code : directories[~pending.pop()].entries.values()) {
+                if (isDirectory(code)) {
+                    pending.push(code);
+                } else {
+                    files.add(code);
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Nombres de las entradas de un directorio, ordenados; los
+     * subdirectorios terminan en "/"
+     */
+    public List<String> list(int directory) {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : directories[~directory].entries.entrySet()) {
+            names.add(isDirectory(entry.getValue()) ? entry.getKey() + "/" : entry.getKey());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    public int getEntryCount(int directory) {
+        return directories[~directory].entries.size();
+    }
+
+    /**
+     * Ruta normalizada de un directorio
+     */
+    public String pathOf(int directory) {
+        Deque<String> components = new ArrayDeque<>();
+        for (int id = ~directory; id > 0; id = directories[id].parent) {
+            components.push(directories[id].name);
+        }
+        return String.join("/", components);
+    }
+
+    /**
+     * Toma el lock de un directorio
+     * @return false si lo tiene otro proceso
+     */
+    public boolean lock(int directory, int processId) {
+        if (!canModify(directory, processId)) {
+            return false;
+        }
+        directories[~directory].lockedBy = processId;
+        return true;
+    }
+
+    /**
+     * Libera el lock de un directorio
+     * @return false si el proceso no lo tenía
+     */
+    public boolean unlock(int directory, int processId) {
+        Directory dir = directories[~directory];
+        if (dir.lockedBy != processId) {
+            return false;
+        }
+        dir.lockedBy = -1;
+        return true;
+    }
+
+    /**
+     * Indica si el proceso puede modificar las entradas del directorio (nadie
+     * más tiene su lock); si no puede, cuenta un conflicto
+     */
+    boolean canModify(int directory, int processId) {
+        int owner = directories[~directory].lockedBy;
+        if (owner != -1 && owner != processId) {
+            lockConflicts.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public int getLockOwner(int directory) {
+        return directories[~directory].lockedBy;
+    }
+
+    /**
+     * Guarda los directorios (las entradas de archivos las reconstruye el
+     * FileSystem a partir de los nombres)
+     */
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(directoryCount);
+        for (int id = 0; id < directoryCount; id++) {
+            Directory directory = directories[id];
+            out.writeBoolean(directory != null);
+            if (directory != null) {
+                out.writeInt(directory.parent);
+                out.writeString(directory.name);
+                out.writeInt(directory.lockedBy);
+            }
+        }
+        metricsRegistry.writeState(out);
+    }
+
+    /**
+     * Reemplaza los directorios por los guardados, sin archivos; la caché
+     * de dentries empieza vacía
+     */
+    void readState(Checkpoint.Input in) {
+        directoryCount = in.readInt();
+        directories = new Directory[Math.max(16, directoryCount)];
+        liveDirectories = 0;
+        freeIds.clear();
+        firstFreeId = 0;
+        for (int id = 0; id < directoryCount; id++) {
+            if (in.readBoolean()) {
+                Directory directory = new Directory();
+                directory.parent = in.readInt();
+                directory.name = in.readString();
+                directory.lockedBy = in.readInt();
+                directories[id] = directory;
+                liveDirectories++;
+            } else {
+                freeIds.set(id);
+            }
+        }
+        for (int id = 1; id < directoryCount; id++) {
+            if (directories[id] != null) {
+                directories[directories[id].parent].entries.put(directories[id].name, ~id);
+            }
+        }
+        metricsRegistry.readState(in);
+        dentryCache.clear();
+    }
+
+    /**
+     * Obtiene métricas de la resolución de rutas
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("directories", liveDirectories);
+        metrics.put("pathLookups", lookups.get());
+        metrics.put("dentryHits", hits.get());
+        metrics.put("dentryMisses", misses.get());
+        metrics.put("negativeDentryHits", negativeHits.get());
+        metrics.put("dentryHitRatio", getHitRatio());
+        metrics.put("dentryEvictions", evictions.get());
+        metrics.put("dentryCacheSize", dentryCache.size());
+        metrics.put("avgLookupCost", lookupCosts.getMean());
+        metrics.put("lookupCostP99", lookupCosts.getValueAtPercentile(99.0));
+        metrics.put("dirLockConflicts", lockConflicts.get());
+        return metrics;
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total > 0 ? (double) hits.get() / total : 0.0;
+    }
+
+    // Getters
+    public int getDirectoryCount() { return liveDirectories; }
+    public int getCacheCapacity() { return cacheCapacity; }
+    public int getCacheSize() { return dentryCache.size(); }
+
+    /**
+     * Libera los locks, vacía la caché y reinicia las métricas
+     */
+    public void reset() {
+        for (int id = 0; id < directoryCount; id++) {
+            if (directories[id] != null) {
+                directories[id].lockedBy = -1;
+            }
+        }
+        dentryCache.clear();
+        metricsRegistry.reset();
+    }
+}
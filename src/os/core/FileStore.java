@@ -0,0 +1,253 @@
+package os.core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Almacén persistente para el contenido de los archivos simulados. Cada
+ * archivo se guarda en un archivo real del directorio indicado, mapeado en
+ * memoria con FileChannel.map: las lecturas devuelven vistas del mapeo (sin
+ * copiar) y las escrituras por rango sólo tocan los bytes afectados.
+ *
+ * Formato de cada archivo: longitud lógica (long) seguida del contenido.
+ * El mapeo crece al doble cuando una escritura pasa del final, de modo que
+ * el archivo real puede ser mayor que su longitud lógica.
+ */
+public class FileStore implements Closeable {
+    private static final int HEADER_BYTES = 8;
+    private static final int MIN_CAPACITY = 4096;
+    private static final String SUFFIX = ".dat";
+
+    private Path directory;
+    private Map<String, Region> regions;      // Archivos abiertos por nombre
+    private long mappedBytes;
+
+    /**
+     * Archivo abierto: canal, mapeo y longitud lógica
+     */
+    private static class Region {
+        private FileChannel channel;
+        private MappedByteBuffer buffer;      // Cabecera + contenido
+        private long length;
+    }
+
+    /**
+     * Abre (o crea) un almacén en el directorio indicado
+     */
+    public FileStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.regions = new HashMap<>();
+    }
+
+    /**
+     * Indica si el almacén tiene contenido guardado para ese nombre
+     */
+    public boolean contains(String name) {
+        return regions.containsKey(name) || Files.exists(pathOf(name));
+    }
+
+    /**
+     * Longitud lógica del contenido (0 si no existe)
+     */
+    public long size(String name) {
+        return contains(name) ? region(name).length : 0;
+    }
+
+    /**
+     * Lee un rango de bytes. Devuelve una vista de sólo lectura del mapeo,
+     * válida hasta la siguiente escritura que haga crecer el archivo.
+     * Si el rango pasa del final se devuelven sólo los bytes disponibles.
+     */
+    public ByteBuffer read(String name, long offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Rango inválido: " + offset + "+" + length);
+        }
+        if (!contains(name)) {
+            return ByteBuffer.allocate(0).asReadOnlyBuffer();
+        }
+        Region region = region(name);
+        int start = (int) Math.min(offset, region.length);
+        int end = (int) Math.min(region.length, offset + length);
+        ByteBuffer view = region.buffer.duplicate();
+        view.limit(HEADER_BYTES + end);
+        view.position(HEADER_BYTES + start);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Escribe los bytes restantes de data a partir de offset; si se escribe
+     * más allá del final, el hueco intermedio queda con ceros
+     */
+    public void write(String name, long offset, ByteBuffer data) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Desplazamiento inválido: " + offset);
+        }
+        Region region = region(name);
+        long end = offset + data.remaining();
+        ensureCapacity(region, end);
+        ByteBuffer view = region.buffer.duplicate();
+        if (offset > region.length) {
+            view.position(HEADER_BYTES + (int) region.length);
+            while (view.position() < HEADER_BYTES + offset) {
+                view.put((byte) 0);
+            }
+        }
+        view.position(HEADER_BYTES + (int) offset);
+        view.put(data);
+        if (end > region.length) {
+            setLength(region, end);
+        }
+    }
+
+    /**
+     * Reemplaza todo el contenido (null se guarda como vacío)
+     */
+    public void replace(String name, byte[] content) {
+        truncate(name, 0);
+        if (content != null) {
+            write(name, 0, ByteBuffer.wrap(content));
+        }
+    }
+
+    /**
+     * Cambia la longitud lógica; los bytes nuevos quedan con ceros
+     */
+    public void truncate(String name, long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Longitud inválida: " + length);
+        }
+        Region region = region(name);
+        if (length > region.length) {
+            write(name, length, ByteBuffer.allocate(0));
+        } else {
+            setLength(region, length);
+        }
+    }
+
+    /**
+     * Borra el contenido guardado para ese nombre (si lo hay)
+     */
+    public void delete(String name) {
+        Region region = regions.remove(name);
+        try {
+            if (region != null) {
+                mappedBytes -= region.buffer.capacity();
+                region.channel.close();
+            }
+            Files.deleteIfExists(pathOf(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Contenido completo como texto UTF-8
+     */
+    public String readString(String name) {
+        ByteBuffer data = read(name, 0, (int) size(name));
+        return StandardCharsets.UTF_8.decode(data).toString();
+    }
+
+    /**
+     * Fuerza a disco los cambios de todos los archivos abiertos
+     */
+    public void force() {
+        for (Region region : regions.values()) {
+            region.buffer.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        for (Region region : regions.values()) {
+            region.channel.close();
+        }
+        regions.clear();
+        mappedBytes = 0;
+    }
+
+    private Region region(String name) {
+        Region region = regions.get(name);
+        if (region != null) {
+            return region;
+        }
+        try {
+            region = new Region();
+            region.channel = FileChannel.open(pathOf(name), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long fileSize = region.channel.size();
+            map(region, Math.max(MIN_CAPACITY, fileSize));
+            region.length = fileSize >= HEADER_BYTES ? region.buffer.getLong(0) : 0;
+            if (region.length < 0 || region.length > region.buffer.capacity() - HEADER_BYTES) {
+                region.channel.close();
+                throw new IOException("Archivo del almacén corrupto: " + pathOf(name));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        regions.put(name, region);
+        return region;
+    }
+
+    /**
+     * Amplía el mapeo (al doble como mínimo) si end no cabe
+     */
+    private void ensureCapacity(Region region, long end) {
+        long needed = HEADER_BYTES + end;
+        if (needed <= region.buffer.capacity()) {
+            return;
+        }
+        if (needed > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Archivo demasiado grande para el almacén: " + end + " bytes");
+        }
+        long capacity = Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * region.buffer.capacity()));
+        try {
+            map(region, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void map(Region region, long capacity) throws IOException {
+        if (region.buffer != null) {
+            mappedBytes -= region.buffer.capacity();
+        }
+        // Mapear más allá del final amplía el archivo real
+        region.buffer = region.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        mappedBytes += capacity;
+    }
+
+    private static void setLength(Region region, long length) {
+        region.length = length;
+        region.buffer.putLong(0, length);
+    }
+
+    /**
+     * Ruta del archivo real; los caracteres que no son seguros en un nombre
+     * de archivo se codifican como _xx
+     */
+    private Path pathOf(String name) {
+        StringBuilder safe = new StringBuilder();
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-') {
+                safe.append(c);
+            } else {
+                safe.append(String.format("_%02x", b & 0xFF));
+            }
+        }
+        return directory.resolve(safe + SUFFIX);
+    }
+
+    // Getters
+    public Path getDirectory() { return directory; }
+    public int getOpenFileCount() { return regions.size(); }
+    public long getMappedBytes() { return mappedBytes; }
+}
@@ -1,30 +1,83 @@
 package os.core;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Sistema de archivos simulado con control de concurrencia.
  * Ahora notifica a un FileSystemListener cuando un proceso es bloqueado
  * o tiene acceso concedido desde la cola.
+ *
+ * Además de la solicitud bloqueante (requestAccess + FileSystemListener)
+ * hay una API asíncrona: requestAccessAsync y submitAccess devuelven un
+ * CompletableFuture que se completa al conceder el lock, sin bloquear al
+ * proceso. submitAccess encola la solicitud y el siguiente tick procesa
+ * todas las encoladas como un lote. Los futures se completan en el hilo que
+ * llama a tick o releaseAccess.
+ *
+ * Los nombres de archivo son rutas ("dir/sub/archivo.txt", sin barra
+ * inicial) dentro de un DirectoryTree; un nombre sin barras está en la raíz.
  */
-public class FileSystem {
-    private Map<String, SimulatedFile> files;
-    private Map<String, Queue<FileRequest>> waitingQueues;
+public class FileSystem implements IoRequestListener {
+    private DirectoryTree directories;         // ruta -> descriptor
+    private SimulatedFile[] fileTable;         // descriptor -> archivo (null = borrado)
+    private int fileCount;                     // Descriptores asignados
+    private BitSet freeHandles;                // Descriptores de archivos borrados, reutilizables
+    private int firstFreeHandle;               // Cota inferior del menor descriptor libre
+    private int liveFiles;
     private List<FileAccessLog> accessLog;
     private int conflictCount;
-    private FileSystemListener listener; // listener para notificar bloqueos/desbloqueos
+    private List<FileSystemListener> listeners;  // Notificados de bloqueos/desbloqueos
+    private Queue<FileRequest> submissionQueue;  // Solicitudes asíncronas a procesar en el próximo tick
+    private int outstandingRequests;             // Solicitudes asíncronas sin conceder
+    private ArrayDeque<FileRequest> grantedFutures; // Concedidas cuyo future falta completar
+    private boolean completingFutures;           // Ya hay un bucle completando futures
+    private Tracer tracer;               // Registro opcional de locks
+    private Clock clock;                 // Fuente de tiempo de solicitudes y esperas
+    private FileStore backingStore;      // Almacén persistente opcional del contenido
+    private BlockDevice blockDevice;     // Disco bajo los archivos (null = E/S sin costo)
+    private BufferCache bufferCache;     // Caché de bloques (null = todo va al disco)
+    private IoScheduler ioScheduler;     // Cola del disco (null = cada operación se atiende al llegar)
+    private Map<Long, PendingIo> pendingIo;  // Petición encolada -> operación a la que pertenece
+    private int nextFreeBlock;           // Asignación de bloques del disco
+    private BitSet freeBlocks;           // Bloques de archivos borrados (bajo nextFreeBlock), reutilizables
+    private int firstFreeBlock;          // Cota inferior del menor bloque libre
+    private int fileBlockLimit;          // Bloques del disco disponibles para archivos
+    private IoStallListener stallListener;   // Scheduler a notificar del tiempo de E/S
+    private Journal journal;             // Log de escritura anticipada (null = sin journaling)
+
+    // Métricas incrementales: se actualizan con cada acceso registrado
+    private MetricsRegistry metricsRegistry;
+    private MetricsRegistry.Counter totalAccesses;
+    private MetricsRegistry.Counter successfulAccesses;
+    private Histogram lockWaitTimes;
+    private Histogram ioTimes;
+    private MetricsRegistry.Counter asyncRequests;
+    private MetricsRegistry.Counter asyncCompleted;
+    private MetricsRegistry.Counter asyncCancelled;
+    private Histogram submitBatches;
 
     /**
      * Clase interna que representa un archivo simulado
      */
     public static class SimulatedFile {
+        private static final int[] NO_BLOCKS = new int[0];
+
         private String name;
-        private String content;
+        private byte[] data;                          // Contenido en memoria (null = sin contenido)
+        private int size;                             // Bytes usados de data
+        private FileStore store;                      // Si no es null, el contenido está en el almacén
         private boolean locked;
         private int lockedByProcess;
         private FileAccessType currentAccessType;
         private int readCount;
         private int writeCount;
+        private int handle;                           // Descriptor asignado (-1 = sin registrar)
+        private int[] blocks = NO_BLOCKS;             // Bloque lógico -> bloque del disco
+        private int blockCount;                       // Bloques asignados
+        private Queue<FileRequest> waitingQueue;      // Solicitudes en espera
 
         public enum FileAccessType {
             READ, WRITE, NONE
@@ -32,18 +85,144 @@ public class FileSystem {
 
         public SimulatedFile(String name, String content) {
             this.name = name;
-            this.content = content;
+            setContent(content);
             this.locked = false;
             this.lockedByProcess = -1;
             this.currentAccessType = FileAccessType.NONE;
             this.readCount = 0;
             this.writeCount = 0;
+            this.handle = -1;
+            this.waitingQueue = new ArrayDeque<>(1);     // Casi siempre vacía: crece si hace falta
+        }
+
+        /**
+         * Contenido completo como texto UTF-8
+         */
+        public String getContent() {
+            if (store != null) {
+                return store.readString(name);
+            }
+            return data != null ? new String(data, 0, size, StandardCharsets.UTF_8) : null;
+        }
+
+        /**
+         * Reemplaza todo el contenido
+         */
+        public void setContent(String content) {
+            setBytes(content != null ? content.getBytes(StandardCharsets.UTF_8) : null);
+        }
+
+        /**
+         * Tamaño del contenido en bytes
+         */
+        public long getSize() {
+            return store != null ? store.size(name) : size;
+        }
+
+        /**
+         * Lee un rango de bytes sin copiarlo: la vista es de sólo lectura y
+         * refleja el contenido hasta la siguiente escritura que lo amplíe
+         */
+        public ByteBuffer read(long offset, int length) {
+            if (store != null) {
+                return store.read(name, offset, length);
+            }
+            if (offset < 0 || length < 0) {
+                throw new IllegalArgumentException("Rango inválido: " + offset + "+" + length);
+            }
+            int start = (int) Math.min(offset, size);
+            int end = (int) Math.min(size, offset + length);
+            return ByteBuffer.wrap(data != null ? data : new byte[0], start, end - start)
+                    .slice().asReadOnlyBuffer();
+        }
+
+        /**
+         * Escribe los bytes restantes de source a partir de offset, sin
+         * reescribir el resto del contenido
+         */
+        public void write(long offset, ByteBuffer source) {
+            if (store != null) {
+                store.write(name, offset, source);
+                return;
+            }
+            if (offset < 0 || offset + source.remaining() > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Rango inválido: " + offset + "+" + source.remaining());
+            }
+            int end = (int) offset + source.remaining();
+            if (data == null || end > data.length) {
+                data = Arrays.copyOf(data != null ? data : new byte[0],
+                        Math.max(end, data != null ? data.length * 2 : 0));
+            }
+            if (offset > size) {
+                Arrays.fill(data, size, (int) offset, (byte) 0);
+            }
+            source.get(data, (int) offset, source.remaining());
+            size = Math.max(size, end);
+        }
+
+        /**
+         * Copia del contenido completo (null si no tiene)
+         */
+        byte[] getBytes() {
+            if (store != null) {
+                ByteBuffer view = store.read(name, 0, (int) store.size(name));
+                byte[] bytes = new byte[view.remaining()];
+                view.get(bytes);
+                return bytes;
+            }
+            return data != null ? Arrays.copyOf(data, size) : null;
+        }
+
+        void setBytes(byte[] bytes) {
+            if (store != null) {
+                store.replace(name, bytes);
+            } else {
+                data = bytes;
+                size = bytes != null ? bytes.length : 0;
+            }
+        }
+
+        /**
+         * Cambia el nombre; si está en el almacén, el contenido se mueve
+         */
+        void rename(String newName) {
+            if (store != null) {
+                byte[] bytes = getBytes();
+                store.delete(name);
+                name = newName;
+                store.replace(newName, bytes);
+            } else {
+                name = newName;
+            }
+        }
+
+        /**
+         * Pasa el contenido al almacén (o de vuelta a memoria si es null). Si
+         * el almacén ya guardaba este archivo, se conserva lo persistido.
+         */
+        void attachStore(FileStore newStore) {
+            if (newStore == store) {
+                return;
+            }
+            byte[] bytes = getBytes();
+            store = newStore;
+            if (newStore == null) {
+                data = bytes;
+                size = bytes != null ? bytes.length : 0;
+            } else {
+                data = null;
+                size = 0;
+                if (!newStore.contains(name)) {
+                    newStore.replace(name, bytes);
+                }
+            }
         }
 
         // Getters y setters
         public String getName() { return name; }
-        public String getContent() { return content; }
-        public void setContent(String content) { this.content = content; }
+        public int getHandle() { return handle; }
+        public boolean isPersistent() { return store != null; }
+        public int getBlockCount() { return blockCount; }
         public boolean isLocked() { return locked; }
         public void setLocked(boolean locked) { this.locked = locked; }
         public int getLockedByProcess() { return lockedByProcess; }
@@ -61,11 +240,13 @@ public class FileSystem {
      */
     public static class FileRequest {
         private int processId;
-        private String fileName;
+        private SimulatedFile file;           // Archivo solicitado (su nombre no se copia)
+        private String fileName;              // Sólo si se creó sin archivo
         private SimulatedFile.FileAccessType accessType;
         private long requestTime;
         private long grantedTime;
         private boolean granted;
+        private CompletableFuture<FileRequest> completion;   // Sólo en solicitudes asíncronas
 
         public FileRequest(int processId, String fileName,
                           SimulatedFile.FileAccessType accessType, long requestTime) {
@@ -76,6 +257,12 @@ public class FileSystem {
             this.granted = false;
         }
 
+        FileRequest(int processId, SimulatedFile file,
+                    SimulatedFile.FileAccessType accessType, long requestTime) {
+            this(processId, (String) null, accessType, requestTime);
+            this.file = file;
+        }
+
         public void grant(long grantedTime) {
             this.granted = true;
             this.grantedTime = grantedTime;
@@ -87,10 +274,19 @@ public class FileSystem {
 
         // Getters
         public int getProcessId() { return processId; }
-        public String getFileName() { return fileName; }
+        public String getFileName() { return file != null ? file.getName() : fileName; }
+        public int getHandle() { return file != null ? file.getHandle() : -1; }
         public SimulatedFile.FileAccessType getAccessType() { return accessType; }
         public long getRequestTime() { return requestTime; }
         public boolean isGranted() { return granted; }
+        public boolean isAsync() { return completion != null; }
+
+        /**
+         * Indica si el solicitante canceló el future antes de la concesión
+         */
+        boolean isCancelled() {
+            return completion != null && completion.isCancelled();
+        }
     }
 
     /**
@@ -98,7 +294,8 @@ public class FileSystem {
      */
     public static class FileAccessLog {
         private int processId;
-        private String fileName;
+        private SimulatedFile file;           // Archivo accedido (su nombre no se copia)
+        private String fileName;              // Sólo si el archivo no existe
         private SimulatedFile.FileAccessType accessType;
         private long timestamp;
         private boolean success;
@@ -115,9 +312,16 @@ public class FileSystem {
             this.message = message;
         }
 
+        FileAccessLog(int processId, SimulatedFile file,
+                      SimulatedFile.FileAccessType accessType,
+                      long timestamp, boolean success, String message) {
+            this(processId, (String) null, accessType, timestamp, success, message);
+            this.file = file;
+        }
+
         // Getters
         public int getProcessId() { return processId; }
-        public String getFileName() { return fileName; }
+        public String getFileName() { return file != null ? file.getName() : fileName; }
         public SimulatedFile.FileAccessType getAccessType() { return accessType; }
         public long getTimestamp() { return timestamp; }
         public boolean isSuccess() { return success; }
@@ -126,37 +330,320 @@ public class FileSystem {
         @Override
         public String toString() {
             return String.format("[%d] P%d %s %s - %s (%s)",
-                    timestamp, processId, accessType, fileName,
+                    timestamp, processId, accessType, getFileName(),
                     success ? "SUCCESS" : "FAILED", message);
         }
     }
 
+    /**
+     * Operación de E/S encolada en el IoScheduler: su tiempo se registra
+     * cuando termina la última de sus peticiones
+     */
+    private static class PendingIo {
+        private final long start;
+        private long firstId = -1;     // Identifica la operación en el checkpoint
+        private int requests;          // Peticiones sin terminar
+
+        PendingIo(long start) {
+            this.start = start;
+        }
+    }
+
     /**
      * Constructor del sistema de archivos
      */
     public FileSystem() {
-        this.files = new HashMap<>();
-        this.waitingQueues = new HashMap<>();
+        this.directories = new DirectoryTree();
+        this.fileTable = new SimulatedFile[16];
+        this.fileCount = 0;
+        this.freeHandles = new BitSet();
+        this.freeBlocks = new BitSet();
         this.accessLog = new ArrayList<>();
         this.conflictCount = 0;
-        this.listener = null;
+        this.listeners = new ArrayList<>();
+        this.submissionQueue = new ArrayDeque<>();
+        this.pendingIo = new HashMap<>();
+        this.clock = new NanoTimeClock();
+        this.metricsRegistry = new MetricsRegistry();
+        this.totalAccesses = metricsRegistry.counter("totalAccesses");
+        this.successfulAccesses = metricsRegistry.counter("successfulAccesses");
+        this.lockWaitTimes = metricsRegistry.histogram("lockWait");
+        this.ioTimes = metricsRegistry.histogram("ioTime");
+        this.asyncRequests = metricsRegistry.counter("asyncRequests");
+        this.asyncCompleted = metricsRegistry.counter("asyncCompleted");
+        this.grantedFutures = new ArrayDeque<>();
+        this.asyncCancelled = metricsRegistry.counter("asyncCancelled");
+        this.submitBatches = metricsRegistry.histogram("submitBatch");
     }
 
     /**
-     * Setea el listener (Scheduler) para notificaciones de bloqueo/desbloqueo
+     * Setea el listener (Scheduler) para notificaciones de bloqueo/desbloqueo,
+     * reemplazando a los que hubiera (null para quitarlos todos)
      */
     public void setListener(FileSystemListener listener) {
-        this.listener = listener;
+        listeners.clear();
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Agrega un listener de bloqueos/desbloqueos (se notifican en orden de registro)
+     */
+    public void addListener(FileSystemListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(FileSystemListener listener) {
+        listeners.remove(listener);
     }
 
     /**
-     * Crea un archivo en el sistema
+     * Crea un archivo en el sistema, junto con los directorios de su ruta
+     * que falten (creación administrativa: no respeta locks de directorio).
+     * Si la ruta ya existe no hace nada.
      */
     public void createFile(String fileName, String content) {
-        if (!files.containsKey(fileName)) {
-            files.put(fileName, new SimulatedFile(fileName, content));
-            waitingQueues.put(fileName, new LinkedList<>());
+        String path = DirectoryTree.normalize(fileName);
+        if (directories.lookup(path) == DirectoryTree.NOT_FOUND) {
+            SimulatedFile file = addFile(path, content);
+            if (journal != null) {
+                journal.logCreate(clock.now(), -1, path, file.getBytes());
+            }
+        }
+    }
+
+    /**
+     * Crea un archivo en nombre de un proceso
+     * @return false si el directorio no existe, el nombre está ocupado o
+     *         el directorio está bloqueado por otro proceso
+     */
+    public boolean createFile(int processId, String path, String content) {
+        path = DirectoryTree.normalize(path);
+        int parent = directories.lookup(DirectoryTree.parentPath(path));
+        if (path.isEmpty() || !DirectoryTree.isDirectory(parent)
+                || directories.lookup(path) != DirectoryTree.NOT_FOUND
+                || !directories.canModify(parent, processId)) {
+            return false;
+        }
+        SimulatedFile file = addFile(path, content);
+        if (journal != null) {
+            journal.logCreate(clock.now(), processId, path, file.getBytes());
+        }
+        return true;
+    }
+
+    /**
+     * Registra un archivo nuevo en la tabla y en su directorio, creando los
+     * directorios que falten (sin anotarlo en el journal)
+     */
+    private SimulatedFile addFile(String path, String content) {
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("Ruta de archivo vacía");
+        }
+        int parent = makeDirectories(DirectoryTree.parentPath(path));
+        SimulatedFile file = new SimulatedFile(path, content);
+        // Como en POSIX, se reutiliza el menor descriptor libre
+        int handle = freeHandles.nextSetBit(firstFreeHandle);
+        if (handle >= 0) {
+            freeHandles.clear(handle);
+            firstFreeHandle = handle + 1;
+        } else {
+            if (fileCount == fileTable.length) {
+                fileTable = Arrays.copyOf(fileTable, fileTable.length * 2);
+            }
+            handle = fileCount++;
+        }
+        file.handle = handle;
+        file.attachStore(backingStore);
+        fileTable[handle] = file;
+        liveFiles++;
+        directories.link(parent, DirectoryTree.baseName(path), file.handle);
+        if (tracer != null) {
+            tracer.setFileName(file.handle, path);
+        }
+        return file;
+    }
+
+    /**
+     * Crea los directorios que falten en una ruta normalizada
+     * @return código del último directorio
+     */
+    private int makeDirectories(String path) {
+        int code = directories.lookup(path);
+        if (DirectoryTree.isDirectory(code)) {
+            return code;
+        }
+        if (code != DirectoryTree.NOT_FOUND) {
+            throw new IllegalArgumentException("La ruta pasa por un archivo: " + path);
+        }
+        int parent = makeDirectories(DirectoryTree.parentPath(path));
+        return directories.mkdir(parent, DirectoryTree.baseName(path));
+    }
+
+    /**
+     * Crea un directorio
+     * @return false si el padre no existe, el nombre está ocupado o el padre
+     *         está bloqueado por otro proceso
+     */
+    public boolean mkdir(int processId, String path) {
+        path = DirectoryTree.normalize(path);
+        int parent = directories.lookup(DirectoryTree.parentPath(path));
+        if (path.isEmpty() || !DirectoryTree.isDirectory(parent)
+                || directories.lookup(path) != DirectoryTree.NOT_FOUND
+                || !directories.canModify(parent, processId)) {
+            return false;
+        }
+        directories.mkdir(parent, DirectoryTree.baseName(path));
+        return true;
+    }
+
+    /**
+     * Lista un directorio (los subdirectorios terminan en "/")
+     * @return nombres ordenados, o null si la ruta no es un directorio
+     */
+    public List<String> list(String path) {
+        int code = directories.lookup(path);
+        return DirectoryTree.isDirectory(code) ? directories.list(code) : null;
+    }
+
+    /**
+     * Borra un archivo o un directorio vacío
+     * @return false si no existe, es la raíz, el archivo está en uso o tiene
+     *         solicitudes en espera, el directorio no está vacío o el
+     *         directorio que lo contiene está bloqueado por otro proceso
+     */
+    public boolean delete(int processId, String path) {
+        path = DirectoryTree.normalize(path);
+        int code = directories.lookup(path);
+        if (code == DirectoryTree.NOT_FOUND || path.isEmpty()) {
+            return false;
+        }
+        int parent = directories.lookup(DirectoryTree.parentPath(path));
+        if (DirectoryTree.isDirectory(code)) {
+            if (directories.getEntryCount(code) > 0 || directories.getLockOwner(code) != -1
+                    || !directories.canModify(parent, processId)) {
+                return false;
+            }
+            directories.rmdir(code);
+            return true;
+        }
+        SimulatedFile file = fileTable[code];
+        if (file.isLocked() || !file.waitingQueue.isEmpty()
+                || !directories.canModify(parent, processId)) {
+            return false;
+        }
+        if (journal != null) {
+            journal.logDelete(clock.now(), processId, path);
+        }
+        removeFile(file);
+        return true;
+    }
+
+    /**
+     * Quita un archivo de su directorio y de la tabla; su descriptor y sus
+     * bloques quedan libres para los próximos archivos
+     */
+    private void removeFile(SimulatedFile file) {
+        String path = file.getName();
+        directories.unlink(directories.lookup(DirectoryTree.parentPath(path)), DirectoryTree.baseName(path));
+        if (backingStore != null) {
+            backingStore.delete(path);
         }
+        fileTable[file.handle] = null;
+        freeHandles.set(file.handle);
+        firstFreeHandle = Math.min(firstFreeHandle, file.handle);
+        liveFiles--;
+        freeBlocks(file);
+    }
+
+    /**
+     * Libera los bloques de un archivo borrado. Los libres que quedan justo
+     * debajo de nextFreeBlock se devuelven al tramo final, que es el que
+     * puede reservarse con reserveBlocks.
+     */
+    private void freeBlocks(SimulatedFile file) {
+        for (int b = 0; b < file.blockCount; b++) {
+            freeBlocks.set(file.blocks[b]);
+            firstFreeBlock = Math.min(firstFreeBlock, file.blocks[b]);
+        }
+        file.blockCount = 0;
+        while (nextFreeBlock > 0 && freeBlocks.get(nextFreeBlock - 1)) {
+            freeBlocks.clear(--nextFreeBlock);
+        }
+    }
+
+    /**
+     * Renombra (o mueve) un archivo o directorio. Los archivos abiertos
+     * conservan su descriptor; al mover un directorio se actualiza el nombre
+     * de cada archivo que contiene.
+     * @return false si el origen no existe, el destino ya existe o su
+     *         directorio no, se intenta mover un directorio dentro de sí
+     *         mismo, o alguno de los dos directorios está bloqueado por otro
+     *         proceso
+     */
+    public boolean rename(int processId, String from, String to) {
+        from = DirectoryTree.normalize(from);
+        to = DirectoryTree.normalize(to);
+        int code = directories.lookup(from);
+        int fromParent = directories.lookup(DirectoryTree.parentPath(from));
+        int toParent = directories.lookup(DirectoryTree.parentPath(to));
+        if (code == DirectoryTree.NOT_FOUND || from.isEmpty() || to.isEmpty()
+                || !DirectoryTree.isDirectory(toParent)
+                || directories.lookup(to) != DirectoryTree.NOT_FOUND
+                || (DirectoryTree.isDirectory(code) && directories.contains(code, toParent))
+                || !directories.canModify(fromParent, processId)
+                || !directories.canModify(toParent, processId)) {
+            return false;
+        }
+        if (journal != null) {
+            journal.logRename(clock.now(), processId, from, to);
+        }
+        directories.move(code, fromParent, DirectoryTree.baseName(from),
+                toParent, DirectoryTree.baseName(to));
+        List<Integer> moved = DirectoryTree.isDirectory(code)
+                ? directories.filesUnder(code) : Collections.singletonList(code);
+        for (int handle : moved) {
+            SimulatedFile file = fileTable[handle];
+            file.rename(to + file.getName().substring(from.length()));
+            if (tracer != null) {
+                tracer.setFileName(handle, file.getName());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Toma el lock de un directorio: mientras lo tenga, ningún otro proceso
+     * puede crear, borrar ni renombrar entradas en él
+     * @return false si no es un directorio o lo tiene otro proceso
+     */
+    public boolean lockDirectory(int processId, String path) {
+        int code = directories.lookup(path);
+        return DirectoryTree.isDirectory(code) && directories.lock(code, processId);
+    }
+
+    /**
+     * Libera el lock de un directorio
+     * @return false si no es un directorio o el proceso no tenía el lock
+     */
+    public boolean unlockDirectory(int processId, String path) {
+        int code = directories.lookup(path);
+        return DirectoryTree.isDirectory(code) && directories.unlock(code, processId);
+    }
+
+    public DirectoryTree getDirectoryTree() {
+        return directories;
+    }
+
+    /**
+     * Abre un archivo y devuelve su descriptor. Las operaciones por
+     * descriptor acceden directamente a la tabla, sin buscar el nombre.
+     * @return descriptor del archivo, o -1 si no existe
+     */
+    public int open(String fileName) {
+        int code = directories.lookup(fileName);
+        return code >= 0 ? code : -1;
     }
 
     /**
@@ -165,15 +652,130 @@ public class FileSystem {
      */
     public boolean requestAccess(int processId, String fileName,
                                  SimulatedFile.FileAccessType accessType) {
-        long currentTime = System.currentTimeMillis();
-
-        if (!files.containsKey(fileName)) {
-            logAccess(processId, fileName, accessType, currentTime,
+        int handle = open(fileName);
+        if (handle < 0) {
+            logAccess(processId, fileName, accessType, clock.now(),
                     false, "File not found");
             return false;
         }
+        return requestAccess(processId, handle, accessType);
+    }
+
+    /**
+     * Solicita acceso a un archivo por su descriptor
+     * @return true si el acceso fue concedido inmediatamente
+     */
+    public boolean requestAccess(int processId, int handle,
+                                 SimulatedFile.FileAccessType accessType) {
+        FileRequest request = new FileRequest(processId, fileAt(handle), accessType, clock.now());
+        return acquire(request, request.getRequestTime(), true);
+    }
+
+    /**
+     * Solicita varios archivos para un proceso en una sola llamada. Equivale
+     * a una solicitud por archivo, pero lee el reloj una vez y notifica a los
+     * listeners un único bloqueo (por el primer archivo ocupado) aunque el
+     * proceso quede en varias colas.
+     * @param handles descriptores (los negativos se ignoran)
+     * @return mapa de bits: el bit i está encendido si handles[i] se concedió
+     */
+    public BitSet requestAccess(int processId, int[] handles,
+                                SimulatedFile.FileAccessType accessType) {
+        BitSet granted = new BitSet(handles.length);
+        long currentTime = clock.now();
+        SimulatedFile blockedOn = null;
+        for (int i = 0; i < handles.length; i++) {
+            if (handles[i] < 0) {
+                continue;
+            }
+            FileRequest request = new FileRequest(processId, fileAt(handles[i]), accessType, currentTime);
+            if (acquire(request, currentTime, false)) {
+                granted.set(i);
+            } else if (blockedOn == null) {
+                blockedOn = request.file;
+            }
+        }
+        if (blockedOn != null) {
+            for (FileSystemListener listener : listeners) {
+                listener.processBlocked(processId, blockedOn.getName());
+            }
+        }
+        return granted;
+    }
 
-        SimulatedFile file = files.get(fileName);
+    /**
+     * Solicita acceso sin bloquear al proceso: el future se completa con la
+     * solicitud cuando se concede el lock (ya completo si estaba libre). Si
+     * se cancela antes, la solicitud sigue en la cola de espera (y cuenta en
+     * su longitud) hasta llegar al frente, donde se descarta sin conceder el
+     * lock. Los FileSystemListener no se notifican.
+     */
+    public CompletableFuture<FileRequest> requestAccessAsync(int processId, int handle,
+                                                             SimulatedFile.FileAccessType accessType) {
+        FileRequest request = newAsyncRequest(processId, handle, accessType);
+        acquire(request, request.getRequestTime(), true);
+        return request.completion;
+    }
+
+    /**
+     * Encola una solicitud asíncrona (como requestAccessAsync) que se procesa
+     * en el próximo tick junto con las demás encoladas
+     */
+    public CompletableFuture<FileRequest> submitAccess(int processId, int handle,
+                                                       SimulatedFile.FileAccessType accessType) {
+        FileRequest request = newAsyncRequest(processId, handle, accessType);
+        submissionQueue.add(request);
+        return request.completion;
+    }
+
+    private FileRequest newAsyncRequest(int processId, int handle,
+                                        SimulatedFile.FileAccessType accessType) {
+        FileRequest request = new FileRequest(processId, fileAt(handle), accessType, clock.now());
+        request.completion = new CompletableFuture<>();
+        asyncRequests.increment();
+        outstandingRequests++;
+        return request;
+    }
+
+    /**
+     * Procesa como un lote todas las solicitudes encoladas con submitAccess
+     * (las canceladas se descartan)
+     * @return solicitudes procesadas
+     */
+    public int submit() {
+        if (submissionQueue.isEmpty()) {
+            return 0;
+        }
+        long currentTime = clock.now();
+        int processed = 0;
+        FileRequest request;
+        while ((request = submissionQueue.poll()) != null) {
+            if (request.isCancelled()) {
+                cancelRequest();
+                continue;
+            }
+            acquire(request, currentTime, true);
+            processed++;
+        }
+        submitBatches.record(processed);
+        return processed;
+    }
+
+    private void cancelRequest() {
+        asyncCancelled.increment();
+        outstandingRequests--;
+    }
+
+    /**
+     * Concede el lock o encola la solicitud; las síncronas bloquean al
+     * proceso (vía listeners, si notify) y las asíncronas completan su future
+     * @return true si el acceso fue concedido inmediatamente
+     */
+    private boolean acquire(FileRequest request, long currentTime, boolean notify) {
+        SimulatedFile file = request.file;
+        int processId = request.getProcessId();
+        int handle = file.getHandle();
+        SimulatedFile.FileAccessType accessType = request.getAccessType();
 
         // Verificar si el archivo está libre
         if (!file.isLocked()) {
@@ -188,43 +790,80 @@ public class FileSystem {
                 file.incrementWriteCount();
             }
 
-            logAccess(processId, fileName, accessType, currentTime,
+            logAccess(processId, file, accessType, currentTime,
                     true, "Access granted immediately");
+            if (tracer != null) {
+                tracer.record(Tracer.EventType.LOCK_ACQUIRE, processId, handle);
+            }
+            request.grant(currentTime);
+            complete(request);
             return true;
         } else {
             // Archivo ocupado, añadir a cola de espera
             conflictCount++;
-            FileRequest request = new FileRequest(processId, fileName,
-                    accessType, currentTime);
-            waitingQueues.get(fileName).offer(request);
+            file.waitingQueue.offer(request);
 
-            logAccess(processId, fileName, accessType, currentTime,
+            logAccess(processId, file, accessType, currentTime,
                     false, String.format("Blocked by P%d, added to waiting queue",
                             file.getLockedByProcess()));
 
             // Notificar al scheduler/listener que el proceso está bloqueado
-            if (listener != null) {
-                listener.processBlocked(processId, fileName);
+            if (notify && !request.isAsync()) {
+                for (FileSystemListener listener : listeners) {
+                    listener.processBlocked(processId, file.getName());
+                }
             }
 
             return false;
         }
     }
 
+    /**
+     * Completa el future de una solicitud asíncrona ya concedida. Si el
+     * callback del future vuelve a entrar (p. ej. libera el lock y se
+     * concede a otra solicitud), los futures siguientes se encolan y los
+     * completa el bucle más externo, sin anidar llamadas por cada espera.
+     */
+    private void complete(FileRequest request) {
+        if (!request.isAsync()) {
+            return;
+        }
+        asyncCompleted.increment();
+        outstandingRequests--;
+        grantedFutures.add(request);
+        if (completingFutures) {
+            return;
+        }
+        completingFutures = true;
+        try {
+            FileRequest granted;
+            while ((granted = grantedFutures.poll()) != null) {
+                granted.completion.complete(granted);
+            }
+        } finally {
+            completingFutures = false;
+        }
+    }
+
     /**
      * Libera el acceso a un archivo
      */
     public void releaseAccess(int processId, String fileName) {
-        long currentTime = System.currentTimeMillis();
-
-        if (!files.containsKey(fileName)) {
-            return;
+        int handle = open(fileName);
+        if (handle >= 0) {
+            releaseAccess(processId, handle);
         }
+    }
 
-        SimulatedFile file = files.get(fileName);
+    /**
+     * Libera el acceso a un archivo por su descriptor
+     */
+    public void releaseAccess(int processId, int handle) {
+        SimulatedFile file = fileAt(handle);
 
         // Verificar que el proceso que libera sea el dueño del lock
         if (file.isLocked() && file.getLockedByProcess() == processId) {
+            long currentTime = clock.now();
             // Guardamos el currentAccessType anterior para el log
             SimulatedFile.FileAccessType prevType = file.getCurrentAccessType();
 
@@ -232,26 +871,32 @@ public class FileSystem {
             file.setLockedByProcess(-1);
             file.setCurrentAccessType(SimulatedFile.FileAccessType.NONE);
 
-            logAccess(processId, fileName, prevType,
+            logAccess(processId, file, prevType,
                     currentTime, true, "File released");
+            if (tracer != null) {
+                tracer.record(Tracer.EventType.LOCK_RELEASE, processId, handle);
+            }
 
             // Procesar cola de espera
-            processWaitingQueue(fileName);
+            processWaitingQueue(file);
         }
     }
 
     /**
      * Procesa la cola de espera de un archivo
      */
-    private void processWaitingQueue(String fileName) {
-        Queue<FileRequest> queue = waitingQueues.get(fileName);
+    private void processWaitingQueue(SimulatedFile file) {
+        Queue<FileRequest> queue = file.waitingQueue;
+        while (!queue.isEmpty() && queue.peek().isCancelled()) {
+            queue.poll();
+            cancelRequest();
+        }
 
-        if (queue != null && !queue.isEmpty()) {
+        if (!queue.isEmpty()) {
             FileRequest nextRequest = queue.poll();
-            long currentTime = System.currentTimeMillis();
+            long currentTime = clock.now();
 
             // Conceder acceso al siguiente en la cola
-            SimulatedFile file = files.get(fileName);
             file.setLocked(true);
             file.setLockedByProcess(nextRequest.getProcessId());
             file.setCurrentAccessType(nextRequest.getAccessType());
@@ -263,15 +908,23 @@ public class FileSystem {
             }
 
             nextRequest.grant(currentTime);
+            lockWaitTimes.record(Math.max(0, nextRequest.getWaitTime()));
 
-            logAccess(nextRequest.getProcessId(), fileName,
+            logAccess(nextRequest.getProcessId(), file,
                     nextRequest.getAccessType(), currentTime,
-                    true, String.format("Access granted from queue (waited %dms)",
-                            nextRequest.getWaitTime()));
+                    true, String.format("Access granted from queue (waited %d %s)",
+                            nextRequest.getWaitTime(), clock.getUnit()));
+            if (tracer != null) {
+                tracer.record(Tracer.EventType.LOCK_ACQUIRE, nextRequest.getProcessId(), file.getHandle());
+            }
 
             // Notificar al scheduler/listener que el proceso fue desbloqueado
-            if (listener != null) {
-                listener.processUnblocked(nextRequest.getProcessId(), fileName);
+            if (nextRequest.isAsync()) {
+                complete(nextRequest);
+            } else {
+                for (FileSystemListener listener : listeners) {
+                    listener.processUnblocked(nextRequest.getProcessId(), file.getName());
+                }
             }
         }
     }
@@ -280,14 +933,19 @@ public class FileSystem {
      * Lee el contenido de un archivo
      */
     public String readFile(int processId, String fileName) {
-        if (!files.containsKey(fileName)) {
-            return null;
-        }
+        int handle = open(fileName);
+        return handle >= 0 ? readFile(processId, handle) : null;
+    }
 
-        SimulatedFile file = files.get(fileName);
+    /**
+     * Lee el contenido de un archivo por su descriptor
+     */
+    public String readFile(int processId, int handle) {
+        SimulatedFile file = fileAt(handle);
 
         // Verificar que el proceso tiene acceso
         if (file.isLocked() && file.getLockedByProcess() == processId) {
+            chargeIo(processId, file, 0, file.getSize(), false);
             return file.getContent();
         }
 
@@ -298,60 +956,511 @@ public class FileSystem {
      * Escribe contenido en un archivo
      */
     public boolean writeFile(int processId, String fileName, String content) {
-        if (!files.containsKey(fileName)) {
-            return false;
-        }
+        int handle = open(fileName);
+        return handle >= 0 && writeFile(processId, handle, content);
+    }
 
-        SimulatedFile file = files.get(fileName);
+    /**
+     * Escribe contenido en un archivo por su descriptor
+     */
+    public boolean writeFile(int processId, int handle, String content) {
+        SimulatedFile file = fileAt(handle);
 
         // Verificar que el proceso tiene acceso y es escritura
         if (file.isLocked() &&
                 file.getLockedByProcess() == processId &&
                 file.getCurrentAccessType() == SimulatedFile.FileAccessType.WRITE) {
-            file.setContent(content);
+            byte[] bytes = content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
+            if (journal != null) {
+                journal.logWrite(clock.now(), processId, file.getName(), 0,
+                        bytes != null ? ByteBuffer.wrap(bytes) : null, true);
+            }
+            file.setBytes(bytes);
+            chargeIo(processId, file, 0, file.getSize(), true);
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Lee un rango de bytes de un archivo por su descriptor, sin copiarlo
+     * @return vista de sólo lectura, o null si el proceso no tiene el lock
+     */
+    public ByteBuffer readFile(int processId, int handle, long offset, int length) {
+        SimulatedFile file = fileAt(handle);
+        if (file.isLocked() && file.getLockedByProcess() == processId) {
+            ByteBuffer data = file.read(offset, length);
+            chargeIo(processId, file, offset, data.remaining(), false);
+            return data;
+        }
+        return null;
+    }
+
+    /**
+     * Escribe un rango de bytes en un archivo por su descriptor
+     * @return false si el proceso no tiene el lock de escritura
+     */
+    public boolean writeFile(int processId, int handle, long offset, ByteBuffer data) {
+        SimulatedFile file = fileAt(handle);
+        if (file.isLocked() &&
+                file.getLockedByProcess() == processId &&
+                file.getCurrentAccessType() == SimulatedFile.FileAccessType.WRITE) {
+            long length = data.remaining();
+            if (journal != null) {
+                journal.logWrite(clock.now(), processId, file.getName(), offset, data, false);
+            }
+            file.write(offset, data);
+            chargeIo(processId, file, offset, length, true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calcula el tiempo de E/S de un acceso a un rango del archivo y bloquea
+     * al proceso ese tiempo. Los bloques que están en la caché no cuestan
+     * nada; los que faltan se leen del disco (con read-ahead de los
+     * siguientes bloques del archivo) y los sucios desalojados se escriben.
+     * Sin caché, las escrituras van directamente al disco. Una escritura
+     * que falla en la caché no lee el bloque: se asume que lo sobrescribe.
+     *
+     * Con IoScheduler las operaciones se encolan y el proceso queda
+     * bloqueado hasta que terminen sus lecturas (y sus escrituras si no hay
+     * caché); la escritura de bloques desalojados no lo hace esperar. El
+     * tiempo de E/S se registra al terminar la última petición de la
+     * operación (requestCompleted).
+     */
+    private void chargeIo(int processId, SimulatedFile file, long offset, long length, boolean write) {
+        if (blockDevice == null || length <= 0) {
+            return;
+        }
+        long now = clock.now();
+        int blockSize = blockDevice.getBlockSize();
+        int first = (int) (offset / blockSize);
+        int last = (int) ((offset + length - 1) / blockSize);
+        List<Integer> reads = new ArrayList<>();
+        List<Integer> writes = new ArrayList<>();
+
+        for (int index = first; index <= last; index++) {
+            int block = deviceBlock(file, index);
+            if (bufferCache == null) {
+                (write ? writes : reads).add(block);
+            } else if (!bufferCache.lookup(block, write)) {
+                if (!write) {
+                    reads.add(block);
+                }
+                addVictim(writes, bufferCache.insert(block, write, false));
+            }
+        }
+
+        // Read-ahead: los bloques siguientes del archivo en la misma operación
+        if (bufferCache != null && !reads.isEmpty()) {
+            int fileBlocks = (int) ((file.getSize() + blockSize - 1) / blockSize);
+            int limit = Math.min(fileBlocks, last + 1 + bufferCache.getReadAhead());
+            for (int index = last + 1; index < limit; index++) {
+                int block = deviceBlock(file, index);
+                if (!bufferCache.contains(block)) {
+                    reads.add(block);
+                    addVictim(writes, bufferCache.insert(block, false, true));
+                }
+            }
+        }
+
+        if (ioScheduler != null) {
+            PendingIo operation = new PendingIo(now);
+            submitRuns(now, writes, true, bufferCache == null ? processId : -1, operation);
+            submitRuns(now, reads, false, processId, operation);
+            if (operation.requests == 0) {
+                ioTimes.record(0);
+            }
+            return;
+        }
+        long done = Math.max(submitRuns(now, writes, true, -1, null),
+                submitRuns(now, reads, false, -1, null));
+        int ioTime = (int) (done - now);
+        ioTimes.record(ioTime);
+        if (stallListener != null && ioTime > 0) {
+            stallListener.processStalled(processId, ioTime);
+        }
+    }
+
+    private static void addVictim(List<Integer> writes, int victim) {
+        if (victim >= 0) {
+            writes.add(victim);
+        }
+    }
+
+    /**
+     * IoRequestListener: al terminar la última petición encolada de una
+     * operación se registra su tiempo de E/S, desde que se encoló
+     */
+    @Override
+    public void requestCompleted(long id, long arrival, long doneTime) {
+        PendingIo operation = pendingIo.remove(id);
+        if (operation != null && --operation.requests == 0) {
+            ioTimes.record((int) (doneTime - operation.start));
+        }
+    }
+
+    /**
+     * Envía al disco los bloques agrupados en tramos consecutivos (o los
+     * encola a nombre de pid si hay IoScheduler)
+     * @param operation operación cuyo tiempo se mide al terminar sus peticiones encoladas (o null)
+     * @return tick de finalización de la última operación (now si no hay ninguna o se encolaron)
+     */
+    private long submitRuns(long now, List<Integer> blocks, boolean write, int pid, PendingIo operation) {
+        long done = now;
+        int i = 0;
+        while (i < blocks.size()) {
+            int start = blocks.get(i);
+            int run = 1;
+            while (i + run < blocks.size() && blocks.get(i + run) == start + run) {
+                run++;
+            }
+            if (ioScheduler != null) {
+                long id = ioScheduler.submit(now, pid, start, run, write);
+                if (operation != null) {
+                    if (operation.requests++ == 0) {
+                        operation.firstId = id;
+                    }
+                    pendingIo.put(id, operation);
+                }
+            } else {
+                done = Math.max(done, write ? blockDevice.write(now, start, run) : blockDevice.read(now, start, run));
+            }
+            i += run;
+        }
+        return done;
+    }
+
+    /**
+     * Bloque del disco de un bloque lógico, asignando los que falten: primero
+     * el menor bloque liberado y, si no hay, el siguiente sin usar
+     */
+    private int deviceBlock(SimulatedFile file, int index) {
+        while (file.blockCount <= index) {
+            int block = freeBlocks.nextSetBit(firstFreeBlock);
+            if (block >= 0) {
+                freeBlocks.clear(block);
+                firstFreeBlock = block + 1;
+            } else if (nextFreeBlock < fileBlockLimit) {
+                block = nextFreeBlock++;
+            } else {
+                throw new IllegalStateException("Disco lleno: " + fileBlockLimit + " bloques para archivos");
+            }
+            if (file.blockCount == file.blocks.length) {
+                file.blocks = Arrays.copyOf(file.blocks, Math.max(4, file.blocks.length * 2));
+            }
+            file.blocks[file.blockCount++] = block;
+        }
+        return file.blocks[index];
+    }
+
+    /**
+     * Escribe en el disco todos los bloques sucios de la caché
+     * @return ticks hasta que termina la escritura (0 si se encolaron en el IoScheduler)
+     */
+    public int flushCache() {
+        if (blockDevice == null || bufferCache == null) {
+            return 0;
+        }
+        long now = clock.now();
+        int[] dirty = bufferCache.flush();
+        List<Integer> blocks = new ArrayList<>(dirty.length);
+        for (int block : dirty) {
+            blocks.add(block);
+        }
+        return (int) (submitRuns(now, blocks, true, -1, null) - now);
+    }
+
+    /**
+     * Obtiene el archivo de un descriptor
+     */
+    private SimulatedFile fileAt(int handle) {
+        if (handle < 0 || handle >= fileCount || fileTable[handle] == null) {
+            throw new IllegalArgumentException("Descriptor de archivo inválido: " + handle);
+        }
+        return fileTable[handle];
+    }
+
     /**
      * Registra un acceso en el log
      */
+    private void logAccess(int processId, SimulatedFile file,
+                           SimulatedFile.FileAccessType accessType,
+                           long timestamp, boolean success, String message) {
+        accessLog.add(new FileAccessLog(processId, file,
+                accessType, timestamp, success, message));
+        countAccess(success);
+    }
+
+    /**
+     * Registra un acceso a un archivo inexistente
+     */
     private void logAccess(int processId, String fileName,
                            SimulatedFile.FileAccessType accessType,
                            long timestamp, boolean success, String message) {
-        FileAccessLog log = new FileAccessLog(processId, fileName,
-                accessType, timestamp, success, message);
-        accessLog.add(log);
+        accessLog.add(new FileAccessLog(processId, fileName,
+                accessType, timestamp, success, message));
+        countAccess(success);
+    }
+
+    private void countAccess(boolean success) {
+        totalAccesses.increment();
+        if (success) {
+            successfulAccesses.increment();
+        }
     }
 
     /**
-     * Obtiene las métricas del sistema de archivos
+     * Obtiene las métricas del sistema de archivos, a partir de los
+     * acumulados (sin recorrer el log)
      */
     public Map<String, Object> getMetrics() {
         Map<String, Object> metrics = new HashMap<>();
 
-        int totalAccesses = accessLog.size();
-        long successfulAccesses = accessLog.stream()
-                .filter(FileAccessLog::isSuccess)
-                .count();
+        int total = (int) totalAccesses.get();
+        long successful = successfulAccesses.get();
 
-        metrics.put("totalFiles", files.size());
-        metrics.put("totalAccesses", totalAccesses);
-        metrics.put("successfulAccesses", successfulAccesses);
+        metrics.put("totalFiles", liveFiles);
+        metrics.put("totalAccesses", total);
+        metrics.put("successfulAccesses", successful);
         metrics.put("conflicts", conflictCount);
-        metrics.put("successRate", totalAccesses > 0 ?
-                (successfulAccesses * 100.0) / totalAccesses : 0.0);
+        metrics.put("successRate", total > 0 ?
+                (successful * 100.0) / total : 0.0);
+        metrics.put("avgLockWait", lockWaitTimes.getMean());
+        metrics.put("lockWaitP50", lockWaitTimes.getValueAtPercentile(50.0));
+        metrics.put("lockWaitP99", lockWaitTimes.getValueAtPercentile(99.0));
+        metrics.put("lockWaitP999", lockWaitTimes.getValueAtPercentile(99.9));
+        if (blockDevice != null) {
+            metrics.put("avgIoTime", ioTimes.getMean());
+            metrics.put("ioTimeP99", ioTimes.getValueAtPercentile(99.0));
+            metrics.put("totalIoTime", ioTimes.getSum());
+            metrics.putAll(blockDevice.getMetrics());
+        }
+        if (bufferCache != null) {
+            metrics.putAll(bufferCache.getMetrics());
+        }
+        if (ioScheduler != null) {
+            metrics.putAll(ioScheduler.getMetrics());
+        }
+        if (journal != null) {
+            metrics.putAll(journal.getMetrics());
+        }
+        metrics.putAll(directories.getMetrics());
+        metrics.put("asyncRequests", asyncRequests.get());
+        metrics.put("asyncCompleted", asyncCompleted.get());
+        metrics.put("asyncCancelled", asyncCancelled.get());
+        metrics.put("outstandingRequests", outstandingRequests);
+        metrics.put("avgSubmitBatch", submitBatches.getMean());
 
         return metrics;
     }
 
     /**
-     * Obtiene el estado de todos los archivos
+     * Obtiene el estado de todos los archivos (en orden de descriptor)
      */
     public List<SimulatedFile> getAllFiles() {
-        return new ArrayList<>(files.values());
+        List<SimulatedFile> files = new ArrayList<>(liveFiles);
+        for (int i = 0; i < fileCount; i++) {
+            if (fileTable[i] != null) {
+                files.add(fileTable[i]);
+            }
+        }
+        return files;
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    public FileStore getBackingStore() {
+        return backingStore;
+    }
+
+    public BlockDevice getBlockDevice() {
+        return blockDevice;
+    }
+
+    public BufferCache getBufferCache() {
+        return bufferCache;
+    }
+
+    /**
+     * Coloca los archivos sobre un disco simulado, con una caché de bloques
+     * opcional (null = cada acceso va al disco). Los bloques se asignan a
+     * cada archivo a medida que se usa.
+     */
+    public void setBlockDevice(BlockDevice device, BufferCache cache) {
+        if (ioScheduler != null) {
+            ioScheduler.removeRequestListener(this);
+        }
+        pendingIo.clear();
+        this.blockDevice = device;
+        this.bufferCache = device != null ? cache : null;
+        this.ioScheduler = null;
+        this.fileBlockLimit = device != null ? device.getBlockCount() : 0;
+    }
+
+    /**
+     * Encola las operaciones del disco en un IoScheduler (su disco pasa a
+     * ser el de los archivos; la caché se conserva)
+     */
+    public void setIoScheduler(IoScheduler scheduler) {
+        BufferCache cache = bufferCache;
+        setBlockDevice(scheduler.getDevice(), cache);
+        this.ioScheduler = scheduler;
+        scheduler.addRequestListener(this);
+    }
+
+    public IoScheduler getIoScheduler() {
+        return ioScheduler;
+    }
+
+    /**
+     * Reserva los últimos bloques del disco para otro uso (p. ej. el área de
+     * intercambio del MemoryManager); los archivos no se asignarán ahí. Solo
+     * cuenta el tramo final sin usar: los bloques liberados en medio del
+     * disco se reutilizan para archivos, pero no se pueden reservar.
+     * @return primer bloque reservado
+     */
+    public int reserveBlocks(int blocks) {
+        if (blockDevice == null || blocks <= 0 || blocks > fileBlockLimit - nextFreeBlock) {
+            throw new IllegalArgumentException("No se pueden reservar " + blocks + " bloques");
+        }
+        fileBlockLimit -= blocks;
+        return fileBlockLimit;
+    }
+
+    /**
+     * Avanza la cola del disco hasta now (completa las peticiones
+     * terminadas), confirma el grupo del journal si venció y procesa las
+     * solicitudes encoladas con submitAccess
+     */
+    public void tick(long now) {
+        if (ioScheduler != null) {
+            ioScheduler.advance(now);
+        }
+        if (journal != null) {
+            journal.tick(now);
+        }
+        submit();
+    }
+
+    /**
+     * Activa el journaling (null para desactivarlo). Si el log ya tenía
+     * contenido confirmado, se recupera sobre los archivos (creando los que
+     * falten); después el log se reinicia con una imagen de todos los archivos.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+        if (journal != null) {
+            journal.attach(this);
+            restoreDurable(journal.recover(), false);
+            journal.checkpoint(clock.now());
+        }
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Inyecta una caída: se pierden las escrituras sin confirmar y el
+     * contenido de los archivos vuelve a lo que el journal puede recuperar
+     * (última imagen más grupos confirmados). Locks, colas y caché no cambian.
+     * @param tornWrite true para que parte del grupo pendiente llegue al log
+     *                  antes de caer (la recuperación debe descartarla)
+     * @return escrituras perdidas
+     */
+    public int crash(boolean tornWrite) {
+        if (journal == null) {
+            throw new IllegalStateException("La caída requiere un journal para recuperar el contenido");
+        }
+        int lost = journal.crash(tornWrite);
+        restoreDurable(journal.recover(), true);
+        return lost;
+    }
+
+    /**
+     * Reemplaza el contenido de los archivos por el recuperado
+     * @param exact true si los que no aparecen deben borrarse (salvo que un
+     *              proceso los tenga o los espere: esos quedan sin contenido)
+     */
+    private void restoreDurable(Map<String, byte[]> durable, boolean exact) {
+        for (int i = 0; i < fileCount; i++) {
+            SimulatedFile file = fileTable[i];
+            if (file == null) {
+                continue;
+            }
+            if (durable.containsKey(file.getName())) {
+                file.setBytes(durable.remove(file.getName()));
+            } else if (!exact) {
+                continue;
+            } else if (!file.isLocked() && file.waitingQueue.isEmpty()) {
+                removeFile(file);
+            } else {
+                file.setBytes(null);
+            }
+        }
+        for (Map.Entry<String, byte[]> entry : durable.entrySet()) {
+            addFile(entry.getKey(), null).setBytes(entry.getValue());
+        }
+    }
+
+    /**
+     * Setea el listener (Scheduler) que bloquea al proceso durante su E/S
+     */
+    public void setStallListener(IoStallListener listener) {
+        this.stallListener = listener;
+    }
+
+    /**
+     * Guarda el contenido de los archivos en un almacén persistente (null
+     * para volver a memoria). Los archivos que el almacén ya tenía conservan
+     * el contenido persistido; el resto se copia al almacén.
+     */
+    public void setBackingStore(FileStore store) {
+        this.backingStore = store;
+        for (int i = 0; i < fileCount; i++) {
+            if (fileTable[i] != null) {
+                fileTable[i].attachStore(store);
+            }
+        }
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Define la fuente de tiempo (p. ej. el reloj del Scheduler, para medir
+     * las esperas por lock en ticks); por defecto NanoTimeClock
+     */
+    public void setClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock no puede ser null");
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Registra la toma y liberación de locks en el tracer (null para desactivar)
+     */
+    public void setTracer(Tracer tracer) {
+        this.tracer = tracer;
+        if (tracer != null) {
+            for (int i = 0; i < fileCount; i++) {
+                if (fileTable[i] != null) {
+                    tracer.setFileName(i, fileTable[i].getName());
+                }
+            }
+        }
     }
 
     /**
@@ -365,23 +1474,248 @@ public class FileSystem {
      * Obtiene la cola de espera de un archivo
      */
     public Queue<FileRequest> getWaitingQueue(String fileName) {
-        return waitingQueues.getOrDefault(fileName, new LinkedList<>());
+        int handle = open(fileName);
+        return handle >= 0 ? fileTable[handle].waitingQueue : new LinkedList<>();
+    }
+
+    /**
+     * Guarda el estado del sistema de archivos (ver Checkpoint)
+     */
+    void writeState(Checkpoint.Output out) {
+        directories.writeState(out);
+        out.writeInt(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            SimulatedFile file = fileTable[i];
+            out.writeBoolean(file != null);
+            if (file == null) {
+                continue;
+            }
+            out.writeString(file.getName());
+            out.writeBytes(file.getBytes());
+            out.writeBoolean(file.isLocked());
+            out.writeInt(file.getLockedByProcess());
+            out.writeInt(file.getCurrentAccessType().ordinal());
+            out.writeInt(file.getReadCount());
+            out.writeInt(file.getWriteCount());
+            out.writeInt(file.blockCount);
+            for (int b = 0; b < file.blockCount; b++) {
+                out.writeInt(file.blocks[b]);
+            }
+            // Las solicitudes asíncronas no se guardan: su future es una conexión
+            int blocking = 0;
+            for (FileRequest request : file.waitingQueue) {
+                blocking += request.isAsync() ? 0 : 1;
+            }
+            out.writeInt(blocking);
+            for (FileRequest request : file.waitingQueue) {
+                if (request.isAsync()) {
+                    continue;
+                }
+                out.writeInt(request.getProcessId());
+                out.writeInt(request.getAccessType().ordinal());
+                out.writeLong(request.getRequestTime());
+            }
+        }
+        out.writeInt(conflictCount);
+        metricsRegistry.writeState(out);
+        out.writeInt(nextFreeBlock);
+        out.writeInt(freeBlocks.cardinality());
+        for (int block = freeBlocks.nextSetBit(0); block >= 0; block = freeBlocks.nextSetBit(block + 1)) {
+            out.writeInt(block);
+        }
+        out.writeInt(fileBlockLimit);
+        out.writeBoolean(blockDevice != null);
+        if (blockDevice != null) {
+            blockDevice.writeState(out);
+        }
+        out.writeBoolean(bufferCache != null);
+        if (bufferCache != null) {
+            bufferCache.writeState(out);
+        }
+        out.writeBoolean(ioScheduler != null);
+        if (ioScheduler != null) {
+            ioScheduler.writeState(out);
+        }
+        out.writeInt(pendingIo.size());
+        for (Map.Entry<Long, PendingIo> entry : pendingIo.entrySet()) {
+            PendingIo operation = entry.getValue();
+            out.writeLong(entry.getKey());
+            out.writeLong(operation.firstId);
+            out.writeLong(operation.start);
+            out.writeInt(operation.requests);
+        }
+
+        out.writeInt(accessLog.size());
+        for (FileAccessLog entry : accessLog) {
+            // Los accesos a archivos ya borrados se guardan por nombre
+            boolean live = entry.file != null && fileTable[entry.file.getHandle()] == entry.file;
+            out.writeInt(entry.getProcessId());
+            out.writeInt(live ? entry.file.getHandle() : -1);
+            if (!live) {
+                out.writeString(entry.getFileName());
+            }
+            out.writeInt(entry.getAccessType().ordinal());
+            out.writeLong(entry.getTimestamp());
+            out.writeBoolean(entry.isSuccess());
+            out.writeString(entry.getMessage());
+        }
+    }
+
+    /**
+     * Reemplaza los archivos, colas, log, disco, caché y cola del disco por
+     * los guardados; listeners, tracer, reloj, almacén persistente y journal
+     * se conservan (el journal se reinicia con una imagen del estado restaurado)
+     */
+    void readState(Checkpoint.Input in) {
+        SimulatedFile.FileAccessType[] types = SimulatedFile.FileAccessType.values();
+        cancelOutstanding();
+        directories.readState(in);
+        fileCount = 0;
+        liveFiles = 0;
+        freeHandles.clear();
+        firstFreeHandle = 0;
+        for (int i = in.readInt(); i > 0; i--) {
+            if (!in.readBoolean()) {
+                if (fileCount == fileTable.length) {
+                    fileTable = Arrays.copyOf(fileTable, fileTable.length * 2);
+                }
+                fileTable[fileCount++] = null;
+                continue;
+            }
+            String name = in.readString();
+            SimulatedFile file = addFile(name, null);
+            file.setBytes(in.readBytes());
+            file.setLocked(in.readBoolean());
+            file.setLockedByProcess(in.readInt());
+            file.setCurrentAccessType(types[in.readInt()]);
+            file.readCount = in.readInt();
+            file.writeCount = in.readInt();
+            file.blockCount = in.readInt();
+            file.blocks = new int[file.blockCount];
+            for (int b = 0; b < file.blockCount; b++) {
+                file.blocks[b] = in.readInt();
+            }
+            for (int r = in.readInt(); r > 0; r--) {
+                int processId = in.readInt();
+                SimulatedFile.FileAccessType type = types[in.readInt()];
+                file.waitingQueue.add(new FileRequest(processId, file, type, in.readLong()));
+            }
+        }
+        // Los huecos se liberan al final para que addFile no los ocupe
+        for (int handle = 0; handle < fileCount; handle++) {
+            if (fileTable[handle] == null) {
+                freeHandles.set(handle);
+            }
+        }
+        conflictCount = in.readInt();
+        metricsRegistry.readState(in);
+        nextFreeBlock = in.readInt();
+        freeBlocks.clear();
+        firstFreeBlock = 0;
+        for (int i = in.readInt(); i > 0; i--) {
+            freeBlocks.set(in.readInt());
+        }
+        fileBlockLimit = in.readInt();
+        blockDevice = in.readBoolean() ? BlockDevice.readState(in) : null;
+        bufferCache = in.readBoolean() ? BufferCache.readState(in) : null;
+        if (in.readBoolean()) {
+            // Se restaura sobre la cola existente para conservar su listener
+            if (ioScheduler == null) {
+                ioScheduler = new IoScheduler(blockDevice, IoScheduler.Policy.FCFS);
+            }
+            ioScheduler.readState(in, blockDevice);
+            ioScheduler.addRequestListener(this);
+        } else {
+            if (ioScheduler != null) {
+                ioScheduler.removeRequestListener(this);
+            }
+            ioScheduler = null;
+        }
+        // Las peticiones de una misma operación comparten su primer id
+        pendingIo.clear();
+        Map<Long, PendingIo> operations = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            long id = in.readLong();
+            long firstId = in.readLong();
+            long start = in.readLong();
+            int requests = in.readInt();
+            PendingIo operation = operations.get(firstId);
+            if (operation == null) {
+                operation = new PendingIo(start);
+                operation.firstId = firstId;
+                operation.requests = requests;
+                operations.put(firstId, operation);
+            }
+            pendingIo.put(id, operation);
+        }
+
+        accessLog.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            int processId = in.readInt();
+            int handle = in.readInt();
+            String missingName = handle < 0 ? in.readString() : null;
+            SimulatedFile.FileAccessType type = types[in.readInt()];
+            long timestamp = in.readLong();
+            boolean success = in.readBoolean();
+            String message = in.readString();
+            accessLog.add(handle >= 0
+                    ? new FileAccessLog(processId, fileTable[handle], type, timestamp, success, message)
+                    : new FileAccessLog(processId, missingName, type, timestamp, success, message));
+        }
+        if (journal != null) {
+            journal.checkpoint(clock.now());
+        }
+    }
+
+    /**
+     * Cancela los futures de las solicitudes asíncronas pendientes (en cola
+     * de envío o de espera), que no sobreviven a reset ni a una restauración
+     */
+    private void cancelOutstanding() {
+        List<FileRequest> pending = new ArrayList<>(submissionQueue);
+        submissionQueue.clear();
+        for (int i = 0; i < fileCount; i++) {
+            if (fileTable[i] != null) {
+                pending.addAll(fileTable[i].waitingQueue);
+            }
+        }
+        for (FileRequest request : pending) {
+            if (request.isAsync()) {
+                request.completion.cancel(false);
+            }
+        }
+        outstandingRequests = 0;
     }
 
     /**
      * Reinicia el sistema de archivos
      */
     public void reset() {
-        for (SimulatedFile file : files.values()) {
+        cancelOutstanding();
+        for (int i = 0; i < fileCount; i++) {
+            SimulatedFile file = fileTable[i];
+            if (file == null) {
+                continue;
+            }
             file.setLocked(false);
             file.setLockedByProcess(-1);
             file.setCurrentAccessType(SimulatedFile.FileAccessType.NONE);
-        }
-        for (Queue<FileRequest> queue : waitingQueues.values()) {
-            queue.clear();
+            file.waitingQueue.clear();
         }
         accessLog.clear();
         conflictCount = 0;
-        listener = null;
+        listeners.clear();
+        metricsRegistry.reset();
+        directories.reset();
+        if (blockDevice != null) {
+            blockDevice.reset();
+        }
+        if (bufferCache != null) {
+            bufferCache.reset();
+        }
+        if (ioScheduler != null) {
+            ioScheduler.reset();
+        }
+        pendingIo.clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Histograma de valores enteros no negativos con cubetas log-lineales (al
+ * estilo HDR): cada potencia de dos se divide en 2^precisionBits cubetas, de
+ * modo que el error relativo de un percentil es como máximo 2^-precisionBits.
+ * Registrar es O(1) y consultar un percentil recorre un número de cubetas
+ * que no depende de cuántos valores se registraron.
+ */
+public class Histogram {
+    private int precisionBits;
+    private int subBuckets;           // 2^precisionBits
+    private long[] counts;            // Crece hasta la cubeta del mayor valor visto
+    private long count;
+    private long sum;
+    private long min;
+    private long max;
+
+    /**
+     * Constructor del histograma
+     * @param precisionBits bits de precisión (1-16); 7 da un error menor al 1%
+     */
+    public Histogram(int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits debe estar entre 1 y 16");
+        }
+        this.precisionBits = precisionBits;
+        this.subBuckets = 1 << precisionBits;
+        this.counts = new long[2 * subBuckets];
+        reset();
+    }
+
+    /**
+     * Histograma con 7 bits de precisión
+     */
+    public Histogram() {
+        this(7);
+    }
+
+    /**
+     * Registra un valor
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("El histograma no admite valores negativos: " + value);
+        }
+        int index = indexOf(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Cubeta de un valor: los menores que 2·subBuckets son exactos; el resto
+     * conserva sus precisionBits+1 bits más significativos
+     */
+    private int indexOf(long value) {
+        if (value < 2L * subBuckets) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+        return subBuckets * (shift + 1) + (int) ((value >>> shift) - subBuckets);
+    }
+
+    /**
+     * Mayor valor que cae en la misma cubeta
+     */
+    private long highestEquivalent(int index) {
+        if (index < 2 * subBuckets) {
+            return index;
+        }
+        int shift = index / subBuckets - 1;
+        long lowest = (long) (subBuckets + index % subBuckets) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Valor por debajo del cual queda el percentil indicado de las muestras
+     * @param percentile entre 0 y 100 (p. ej. 99.9)
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(max, highestEquivalent(i));
+            }
+        }
+        return max;
+    }
+
+    public double getMean() {
+        return count > 0 ? (double) sum / count : 0.0;
+    }
+
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(precisionBits);
+        out.writeLong(count);
+        out.writeLong(sum);
+        out.writeLong(min);
+        out.writeLong(max);
+        int used = counts.length;
+        while (used > 0 && counts[used - 1] == 0) {
+            used--;
+        }
+        out.writeInt(used);
+        for (int i = 0; i < used; i++) {
+            out.writeLong(counts[i]);
+        }
+    }
+
+    void readState(Checkpoint.Input in) {
+        int bits = in.readInt();
+        if (bits != precisionBits) {
+            throw new IllegalStateException("Precisión de histograma distinta: " + bits);
+        }
+        count = in.readLong();
+        sum = in.readLong();
+        min = in.readLong();
+        max = in.readLong();
+        int used = in.readInt();
+        counts = new long[Math.max(2 * subBuckets, used)];
+        for (int i = 0; i < used; i++) {
+            counts[i] = in.readLong();
+        }
+    }
+
+    /**
+     * Reinicia el histograma
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    // Getters
+    public int getPrecisionBits() { return precisionBits; }
+    public long getCount() { return count; }
+    public long getSum() { return sum; }
+    public long getMin() { return count > 0 ? min : 0; }
+    public long getMax() { return max; }
+}
@@ -0,0 +1,20 @@
+package os.core;
+
+/**
+ * Interfaz ligera para notificar al Scheduler que un proceso espera
+ * peticiones encoladas en el disco, cuya duración no se conoce de antemano
+ * porque depende del orden en que las atienda el IoScheduler.
+ */
+public interface IoCompletionListener {
+    /**
+     * Notifica que el proceso con pid queda bloqueado hasta que terminen sus
+     * peticiones; cada fuente lo avisa una sola vez por espera
+     */
+    void processWaitingIo(int pid);
+
+    /**
+     * Notifica que terminaron todas las peticiones pendientes del proceso en
+     * esta fuente (puede seguir esperando a otra)
+     */
+    void processIoCompleted(int pid);
+}
@@ -0,0 +1,12 @@
+package os.core;
+
+/**
+ * Interfaz ligera para observar cada petición que termina en la cola del
+ * disco (p. ej. el MemoryManager mide así el servicio de sus fallos de página).
+ */
+public interface IoRequestListener {
+    /**
+     * Notifica que terminó la petición id, que llegó a la cola en arrival
+     */
+    void requestCompleted(long id, long arrival, long doneTime);
+}
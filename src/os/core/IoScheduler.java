@@ -0,0 +1,413 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Cola de peticiones del disco con planificación configurable. Las
+ * peticiones llegan del FileSystem (bloques de archivos) y del MemoryManager
+ * (páginas del área de intercambio); el disco atiende una a la vez y, cada
+ * vez que queda libre, la política elige la siguiente:
+ * - FCFS: orden de llegada.
+ * - SSTF: la más cercana al cabezal.
+ * - SCAN: ascensor; recorre el disco hasta el extremo y luego vuelve.
+ * - C_LOOK: sólo en sentido ascendente; tras la última salta a la primera.
+ * - DEADLINE: como C_LOOK, salvo que la petición más antigua haya vencido
+ *   su plazo (lecturas y escrituras tienen plazos distintos).
+ *
+ * Las políticas por posición usan un TreeMap por bloque, así que elegir la
+ * siguiente cuesta O(log n). El tiempo avanza con advance(now); al terminar
+ * todas las peticiones de un proceso se avisa al IoCompletionListener.
+ */
+public class IoScheduler {
+    public enum Policy { FCFS, SSTF, SCAN, C_LOOK, DEADLINE }
+
+    /**
+     * Petición de lectura o escritura de bloques consecutivos
+     */
+    private static class Request {
+        private final long id;
+        private final int pid;           // -1 = sin proceso esperando (p. ej. escritura diferida)
+        private final int block;
+        private final int blocks;
+        private final boolean write;
+        private final long arrival;
+        private final long deadline;
+        private boolean served;          // Ya despachada (las colas FIFO la descartan al verla)
+
+        Request(long id, int pid, int block, int blocks, boolean write, long arrival, long deadline) {
+            this.id = id;
+            this.pid = pid;
+            this.block = block;
+            this.blocks = blocks;
+            this.write = write;
+            this.arrival = arrival;
+            this.deadline = deadline;
+        }
+    }
+
+    private BlockDevice device;
+    private Policy policy;
+    private int readExpire;                            // Plazo de las lecturas (DEADLINE)
+    private int writeExpire;                           // Plazo de las escrituras (DEADLINE)
+    private ArrayDeque<Request> arrivalOrder;          // FCFS
+    private TreeMap<Integer, ArrayDeque<Request>> byBlock; // Resto de políticas: bloque -> peticiones
+    private ArrayDeque<Request> readDeadlines;         // DEADLINE: lecturas por vencimiento
+    private ArrayDeque<Request> writeDeadlines;        // DEADLINE: escrituras por vencimiento
+    private int pendingCount;
+    private boolean ascending;                         // Sentido del recorrido (SCAN)
+    private Request inFlight;                          // Petición que atiende el disco
+    private long inFlightDone;
+    private Map<Integer, Integer> outstanding;         // pid -> peticiones sin terminar
+    private IoCompletionListener listener;
+    private List<IoRequestListener> requestListeners;
+    private long nextId;
+
+    private MetricsRegistry metricsRegistry;
+    private MetricsRegistry.Counter requests;
+    private MetricsRegistry.Counter expired;
+    private Histogram latencies;
+    private Histogram seekDistances;
+
+    /**
+     * Constructor de la cola
+     * @param device disco que atiende las peticiones
+     */
+    public IoScheduler(BlockDevice device, Policy policy) {
+        this.device = device;
+        this.policy = policy;
+        this.readExpire = 50;
+        this.writeExpire = 500;
+        this.arrivalOrder = new ArrayDeque<>();
+        this.byBlock = new TreeMap<>();
+        this.readDeadlines = new ArrayDeque<>();
+        this.writeDeadlines = new ArrayDeque<>();
+        this.ascending = true;
+        this.outstanding = new HashMap<>();
+        this.requestListeners = new ArrayList<>();
+        this.metricsRegistry = new MetricsRegistry();
+        this.requests = metricsRegistry.counter("ioRequests");
+        this.expired = metricsRegistry.counter("expiredRequests");
+        this.latencies = metricsRegistry.histogram("ioLatency");
+        this.seekDistances = metricsRegistry.histogram("seekDistance");
+    }
+
+    /**
+     * Encola una petición. Si pid >= 0, el proceso queda bloqueado hasta que
+     * terminen todas sus peticiones.
+     * @return identificador de la petición (ver IoRequestListener)
+     */
+    public long submit(long now, int pid, int block, int blocks, boolean write) {
+        if (block < 0 || blocks <= 0 || block + blocks > device.getBlockCount()) {
+            throw new IllegalArgumentException("Bloques fuera del disco: " + block + "+" + blocks);
+        }
+        // Las peticiones que el disco terminó antes de ahora no compiten con la nueva
+        advance(now);
+        Request request = new Request(nextId++, pid, block, blocks, write, now,
+                now + (write ? writeExpire : readExpire));
+        enqueue(request);
+        requests.increment();
+        if (pid >= 0 && outstanding.merge(pid, 1, Integer::sum) == 1 && listener != null) {
+            listener.processWaitingIo(pid);
+        }
+        if (inFlight == null) {
+            dispatch(now);
+        }
+        return request.id;
+    }
+
+    /**
+     * Avanza hasta now: completa las peticiones terminadas y despacha las
+     * siguientes en el instante en que el disco queda libre
+     */
+    public void advance(long now) {
+        while (inFlight != null && inFlightDone <= now) {
+            Request done = inFlight;
+            long doneTime = inFlightDone;
+            inFlight = null;
+            complete(done, doneTime);
+            dispatch(doneTime);
+        }
+    }
+
+    private void enqueue(Request request) {
+        pendingCount++;
+        if (policy == Policy.FCFS) {
+            arrivalOrder.add(request);
+            return;
+        }
+        byBlock.computeIfAbsent(request.block, b -> new ArrayDeque<>()).add(request);
+        if (policy == Policy.DEADLINE) {
+            (request.write ? writeDeadlines : readDeadlines).add(request);
+        }
+    }
+
+    private void dispatch(long now) {
+        if (pendingCount == 0) {
+            return;
+        }
+        Request request = next(now);
+        pendingCount--;
+        request.served = true;
+        seekDistances.record(Math.abs((long) request.block - device.getHeadBlock()));
+        inFlightDone = request.write
+                ? device.write(now, request.block, request.blocks)
+                : device.read(now, request.block, request.blocks);
+        inFlight = request;
+    }
+
+    /**
+     * Elige (y saca de la cola) la siguiente petición según la política
+     */
+    private Request next(long now) {
+        int head = device.getHeadBlock();
+        switch (policy) {
+            case FCFS:
+                return arrivalOrder.poll();
+            case SSTF: {
+                Integer below = byBlock.floorKey(head);
+                Integer above = byBlock.ceilingKey(head);
+                if (below == null || (above != null && above - head <= head - below)) {
+                    return take(above);
+                }
+                return take(below);
+            }
+            case SCAN: {
+                Integer key = ascending ? byBlock.ceilingKey(head) : byBlock.floorKey(head);
+                if (key == null) {
+                    // Llegar al extremo del disco y cambiar de sentido
+                    device.seek(now, ascending ? device.getBlockCount() : 0);
+                    ascending = !ascending;
+                    key = ascending ? byBlock.ceilingKey(device.getHeadBlock())
+                            : byBlock.floorKey(device.getHeadBlock());
+                }
+                return take(key);
+            }
+            case DEADLINE: {
+                Request oldest = oldestExpired(now);
+                if (oldest != null) {
+                    expired.increment();
+                    ArrayDeque<Request> bucket = byBlock.get(oldest.block);
+                    bucket.remove(oldest);
+                    if (bucket.isEmpty()) {
+                        byBlock.remove(oldest.block);
+                    }
+                    return oldest;
+                }
+                Integer key = byBlock.ceilingKey(head);
+                return take(key != null ? key : byBlock.firstKey());
+            }
+            default: {
+                Integer key = byBlock.ceilingKey(head);
+                return take(key != null ? key : byBlock.firstKey());
+            }
+        }
+    }
+
+    private Request take(int block) {
+        ArrayDeque<Request> bucket = byBlock.get(block);
+        Request request = bucket.poll();
+        if (bucket.isEmpty()) {
+            byBlock.remove(block);
+        }
+        return request;
+    }
+
+    /**
+     * Petición con el plazo vencido más antiguo (lecturas y escrituras), o null
+     */
+    private Request oldestExpired(long now) {
+        Request read = peekPending(readDeadlines);
+        Request write = peekPending(writeDeadlines);
+        Request oldest = read == null || (write != null && write.deadline < read.deadline) ? write : read;
+        if (oldest == null || oldest.deadline > now) {
+            return null;
+        }
+        (oldest.write ? writeDeadlines : readDeadlines).poll();
+        return oldest;
+    }
+
+    private static Request peekPending(ArrayDeque<Request> queue) {
+        while (!queue.isEmpty() && queue.peek().served) {
+            queue.poll();
+        }
+        return queue.peek();
+    }
+
+    private void complete(Request request, long doneTime) {
+        latencies.record(doneTime - request.arrival);
+        for (int i = 0; i < requestListeners.size(); i++) {
+            requestListeners.get(i).requestCompleted(request.id, request.arrival, doneTime);
+        }
+        if (request.pid >= 0) {
+            int remaining = outstanding.merge(request.pid, -1, Integer::sum);
+            if (remaining == 0) {
+                outstanding.remove(request.pid);
+                if (listener != null) {
+                    listener.processIoCompleted(request.pid);
+                }
+            }
+        }
+    }
+
+    /**
+     * Peticiones pendientes (sin contar la que atiende el disco), por orden de llegada
+     */
+    private List<Request> pendingRequests() {
+        List<Request> pending = new ArrayList<>(arrivalOrder);
+        for (ArrayDeque<Request> bucket : byBlock.values()) {
+            pending.addAll(bucket);
+        }
+        pending.sort(Comparator.comparingLong(r -> r.id));
+        return pending;
+    }
+
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(policy.ordinal());
+        out.writeInt(readExpire);
+        out.writeInt(writeExpire);
+        out.writeBoolean(ascending);
+        out.writeLong(nextId);
+        List<Request> pending = new ArrayList<>(pendingRequests());
+        out.writeBoolean(inFlight != null);
+        if (inFlight != null) {
+            pending.add(0, inFlight);
+            out.writeLong(inFlightDone);
+        }
+        out.writeInt(pending.size());
+        for (Request request : pending) {
+            out.writeLong(request.id);
+            out.writeInt(request.pid);
+            out.writeInt(request.block);
+            out.writeInt(request.blocks);
+            out.writeBoolean(request.write);
+            out.writeLong(request.arrival);
+            out.writeLong(request.deadline);
+        }
+        out.writeInt(outstanding.size());
+        for (Map.Entry<Integer, Integer> entry : outstanding.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        metricsRegistry.writeState(out);
+    }
+
+    /**
+     * Reemplaza la cola por la guardada, sobre el disco indicado; los
+     * listeners se conservan
+     */
+    void readState(Checkpoint.Input in, BlockDevice device) {
+        clearQueues();
+        this.device = device;
+        policy = Policy.values()[in.readInt()];
+        readExpire = in.readInt();
+        writeExpire = in.readInt();
+        ascending = in.readBoolean();
+        nextId = in.readLong();
+        boolean busy = in.readBoolean();
+        if (busy) {
+            inFlightDone = in.readLong();
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            Request request = new Request(in.readLong(), in.readInt(), in.readInt(), in.readInt(),
+                    in.readBoolean(), in.readLong(), in.readLong());
+            if (busy && inFlight == null) {
+                request.served = true;
+                inFlight = request;
+            } else {
+                enqueue(request);
+            }
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            outstanding.put(in.readInt(), in.readInt());
+        }
+        metricsRegistry.readState(in);
+    }
+
+    private void clearQueues() {
+        arrivalOrder.clear();
+        byBlock.clear();
+        readDeadlines.clear();
+        writeDeadlines.clear();
+        pendingCount = 0;
+        inFlight = null;
+        outstanding.clear();
+    }
+
+    /**
+     * Obtiene métricas de la cola: recorrido del cabezal y latencia de cada
+     * petición (desde que llega hasta que termina)
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("ioPolicy", policy.name());
+        metrics.put("ioRequests", requests.get());
+        metrics.put("ioPending", pendingCount + (inFlight != null ? 1 : 0));
+        metrics.put("expiredRequests", expired.get());
+        metrics.put("avgSeekDistance", seekDistances.getMean());
+        metrics.put("totalSeekDistance", seekDistances.getSum());
+        metrics.put("avgIoLatency", latencies.getMean());
+        metrics.put("ioLatencyP50", latencies.getValueAtPercentile(50.0));
+        metrics.put("ioLatencyP99", latencies.getValueAtPercentile(99.0));
+        metrics.put("ioLatencyP999", latencies.getValueAtPercentile(99.9));
+        return metrics;
+    }
+
+    // Getters y setters
+    public BlockDevice getDevice() { return device; }
+    public Policy getPolicy() { return policy; }
+    public int getPendingCount() { return pendingCount; }
+    public boolean isBusy() { return inFlight != null; }
+    public MetricsRegistry getMetricsRegistry() { return metricsRegistry; }
+    public void setListener(IoCompletionListener listener) { this.listener = listener; }
+
+    /**
+     * Registra un observador de las peticiones terminadas
+     */
+    public void addRequestListener(IoRequestListener requestListener) {
+        if (!requestListeners.contains(requestListener)) {
+            requestListeners.add(requestListener);
+        }
+    }
+
+    public void removeRequestListener(IoRequestListener requestListener) {
+        requestListeners.remove(requestListener);
+    }
+
+    /**
+     * Plazos de la política DEADLINE, en ticks desde la llegada
+     */
+    public void setDeadlines(int readExpire, int writeExpire) {
+        if (readExpire < 0 || writeExpire < 0) {
+            throw new IllegalArgumentException("Los plazos no pueden ser negativos");
+        }
+        this.readExpire = readExpire;
+        this.writeExpire = writeExpire;
+    }
+
+    /**
+     * Cambia la política; las peticiones pendientes se reordenan
+     */
+    public void setPolicy(Policy policy) {
+        List<Request> pending = pendingRequests();
+        arrivalOrder.clear();
+        byBlock.clear();
+        readDeadlines.clear();
+        writeDeadlines.clear();
+        pendingCount = 0;
+        this.policy = policy;
+        for (Request request : pending) {
+            enqueue(request);
+        }
+    }
+
+    /**
+     * Vacía la cola (las peticiones pendientes se descartan sin avisar) y
+     * reinicia las métricas
+     */
+    public void reset() {
+        clearQueues();
+        ascending = true;
+        nextId = 0;
+        metricsRegistry.reset();
+    }
+}
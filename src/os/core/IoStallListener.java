@@ -0,0 +1,13 @@
+package os.core;
+
+/**
+ * Interfaz ligera para notificar al Scheduler que un proceso debe esperar
+ * una operación de E/S de duración conocida (p. ej. el servicio de un fallo
+ * de página desde el dispositivo de intercambio).
+ */
+public interface IoStallListener {
+    /**
+     * Notifica que el proceso con pid queda bloqueado durante ticks unidades
+     */
+    void processStalled(int pid, int ticks);
+}
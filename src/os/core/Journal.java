@@ -0,0 +1,576 @@
+package os.core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de escritura anticipada (write-ahead log) del FileSystem. Cada
+ * escritura se anota en el journal antes de aplicarse al archivo; las
+ * anotaciones se acumulan en un grupo que se escribe en el log con una sola
+ * llamada a force (group commit) cuando reúne groupSize intenciones o cuando
+ * la más antigua lleva maxDelay unidades de tiempo esperando.
+ *
+ * Tras una caída sólo sobrevive lo que llegó al log: la recuperación parte
+ * de la última imagen completa y vuelve a aplicar los grupos confirmados; un
+ * grupo sin su registro COMMIT (o con el CRC roto) se descarta. Cuando el log
+ * supera checkpointBytes se reescribe con una imagen nueva (en un archivo
+ * temporal que reemplaza al log de forma atómica).
+ *
+ * Formato de cada registro (big-endian):
+ *   tipo (byte), longitud del contenido (int), CRC32 del contenido (int), contenido
+ *   IMAGE:  archivos (int), por archivo nombre y contenido
+ *   CREATE: nombre, contenido
+ *   WRITE:  nombre, desplazamiento (long), reemplaza (byte), datos
+ *   RENAME: ruta de origen, ruta de destino (mueve también lo que hay debajo)
+ *   DELETE: ruta
+ *   COMMIT: transacción (long), intenciones del grupo (int)
+ * Los nombres van como longitud (int) + UTF-8 y los contenidos como
+ * longitud (int, -1 = sin contenido) + bytes.
+ */
+public class Journal implements Closeable {
+    private static final byte IMAGE = 1;
+    private static final byte CREATE = 2;
+    private static final byte WRITE = 3;
+    private static final byte COMMIT = 4;
+    private static final byte RENAME = 5;
+    private static final byte DELETE = 6;
+    private static final int RECORD_HEADER = 9;
+    private static final long DEFAULT_CHECKPOINT_BYTES = 4L << 20;
+
+    private Path path;
+    private FileChannel channel;
+    private long logSize;                 // Bytes válidos del log
+    private int groupSize;                // Intenciones por grupo
+    private long maxDelay;                // Espera máxima de una intención sin confirmar
+    private long checkpointBytes;         // Tamaño del log que provoca una imagen nueva
+    private FileSystem fileSystem;        // Origen de las imágenes
+    private IoCompletionListener listener;
+
+    // Grupo en curso (aún no escrito en el log)
+    private ByteBuffer group;
+    private int groupIntents;
+    private long[] appendTimes;           // Instante de cada intención del grupo
+    private Set<Integer> waiting;         // Procesos que esperan la confirmación
+    private long lastTransaction;
+    private long lastNow;
+
+    private MetricsRegistry metricsRegistry;
+    private MetricsRegistry.Counter intents;
+    private MetricsRegistry.Counter commits;
+    private MetricsRegistry.Counter userBytes;
+    private MetricsRegistry.Counter journalBytes;
+    private MetricsRegistry.Counter checkpoints;
+    private MetricsRegistry.Counter crashes;
+    private MetricsRegistry.Counter recoveredIntents;
+    private MetricsRegistry.Counter lostIntents;
+    private MetricsRegistry.Counter discardedIntents;
+    private Histogram commitLatencies;
+    private Histogram fsyncMicros;
+    private Histogram groupSizes;
+
+    /**
+     * Abre (o crea) el log. El contenido previo no se lee hasta recover.
+     * @param groupSize intenciones que fuerzan la confirmación del grupo
+     * @param maxDelay unidades de tiempo (del reloj del FileSystem) que puede
+     *                 esperar una intención; 0 confirma cada una al llegar
+     */
+    public Journal(Path path, int groupSize, long maxDelay) throws IOException {
+        if (groupSize <= 0 || maxDelay < 0) {
+            throw new IllegalArgumentException("Parámetros de journal inválidos");
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.logSize = channel.size();
+        this.groupSize = groupSize;
+        this.maxDelay = maxDelay;
+        this.checkpointBytes = DEFAULT_CHECKPOINT_BYTES;
+        this.group = ByteBuffer.allocate(4096);
+        this.appendTimes = new long[Math.min(groupSize, 1024)];
+        this.waiting = new LinkedHashSet<>();
+        this.metricsRegistry = new MetricsRegistry();
+        this.intents = metricsRegistry.counter("journalIntents");
+        this.commits = metricsRegistry.counter("journalCommits");
+        this.userBytes = metricsRegistry.counter("userBytesWritten");
+        this.journalBytes = metricsRegistry.counter("journalBytes");
+        this.checkpoints = metricsRegistry.counter("journalCheckpoints");
+        this.crashes = metricsRegistry.counter("journalCrashes");
+        this.recoveredIntents = metricsRegistry.counter("recoveredIntents");
+        this.lostIntents = metricsRegistry.counter("lostIntents");
+        this.discardedIntents = metricsRegistry.counter("discardedIntents");
+        this.commitLatencies = metricsRegistry.histogram("commitLatency");
+        this.fsyncMicros = metricsRegistry.histogram("fsyncMicros");
+        this.groupSizes = metricsRegistry.histogram("groupSize");
+    }
+
+    /**
+     * Define el tamaño del log a partir del cual se reescribe con una imagen
+     */
+    public void setCheckpointThreshold(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Umbral inválido: " + bytes);
+        }
+        this.checkpointBytes = bytes;
+    }
+
+    /**
+     * Setea el listener (Scheduler) que bloquea a los procesos que escriben
+     * hasta que su grupo se confirma (null = las escrituras no esperan)
+     */
+    public void setListener(IoCompletionListener listener) {
+        this.listener = listener;
+    }
+
+    void attach(FileSystem fileSystem) {
+        this.fileSystem = fileSystem;
+    }
+
+    /**
+     * Anota la creación de un archivo
+     */
+    void logCreate(long now, int pid, String name, byte[] content) {
+        int start = beginRecord(CREATE);
+        putString(name);
+        putBytes(content != null ? ByteBuffer.wrap(content) : null);
+        endRecord(start);
+        addIntent(now, pid, 0);
+    }
+
+    /**
+     * Anota una escritura; data no se consume
+     * @param replace true si data reemplaza todo el contenido (null = sin contenido)
+     */
+    void logWrite(long now, int pid, String name, long offset, ByteBuffer data, boolean replace) {
+        int start = beginRecord(WRITE);
+        putString(name);
+        ensureGroup(9);
+        group.putLong(offset);
+        group.put(replace ? (byte) 1 : 0);
+        putBytes(data);
+        endRecord(start);
+        addIntent(now, pid, data != null ? data.remaining() : 0);
+    }
+
+    /**
+     * Anota el cambio de nombre de un archivo o directorio
+     */
+    void logRename(long now, int pid, String from, String to) {
+        int start = beginRecord(RENAME);
+        putString(from);
+        putString(to);
+        endRecord(start);
+        addIntent(now, pid, 0);
+    }
+
+    /**
+     * Anota el borrado de un archivo
+     */
+    void logDelete(long now, int pid, String name) {
+        int start = beginRecord(DELETE);
+        putString(name);
+        endRecord(start);
+        addIntent(now, pid, 0);
+    }
+
+    private void addIntent(long now, int pid, long bytes) {
+        lastNow = now;
+        if (groupIntents == appendTimes.length) {
+            appendTimes = Arrays.copyOf(appendTimes, appendTimes.length * 2);
+        }
+        appendTimes[groupIntents++] = now;
+        intents.increment();
+        userBytes.add(bytes);
+        if (listener != null && pid >= 0 && waiting.add(pid)) {
+            listener.processWaitingIo(pid);
+        }
+        if (groupIntents >= groupSize || maxDelay == 0) {
+            commit(now);
+        }
+    }
+
+    /**
+     * Confirma el grupo si su intención más antigua ya esperó maxDelay
+     */
+    public void tick(long now) {
+        lastNow = now;
+        if (groupIntents > 0 && now - appendTimes[0] >= maxDelay) {
+            commit(now);
+        }
+    }
+
+    /**
+     * Escribe el grupo en curso y su registro COMMIT con un solo force. Al
+     * terminar, si el log pasó del umbral, se reescribe con una imagen.
+     * @return intenciones confirmadas
+     */
+    public int commit(long now) {
+        int count = writeGroup(now);
+        if (count > 0 && logSize > checkpointBytes) {
+            checkpoint(now);
+        }
+        return count;
+    }
+
+    private int writeGroup(long now) {
+        lastNow = now;
+        int count = groupIntents;
+        if (count == 0) {
+            return 0;
+        }
+        int start = beginRecord(COMMIT);
+        ensureGroup(12);
+        group.putLong(++lastTransaction);
+        group.putInt(count);
+        endRecord(start);
+
+        group.flip();
+        int bytes = group.remaining();
+        try {
+            while (group.hasRemaining()) {
+                logSize += channel.write(group, logSize);
+            }
+            long fsyncStart = System.nanoTime();
+            channel.force(false);
+            fsyncMicros.record((System.nanoTime() - fsyncStart) / 1000);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        journalBytes.add(bytes);
+        commits.increment();
+        groupSizes.record(count);
+        for (int i = 0; i < count; i++) {
+            commitLatencies.record(now - appendTimes[i]);
+        }
+        clearGroup();
+        return count;
+    }
+
+    /**
+     * Confirma lo pendiente y reemplaza el log por una imagen del contenido
+     * actual de los archivos
+     */
+    public void checkpoint(long now) {
+        writeGroup(now);
+        List<FileSystem.SimulatedFile> files = fileSystem != null
+                ? fileSystem.getAllFiles() : Collections.emptyList();
+        int start = beginRecord(IMAGE);
+        ensureGroup(4);
+        group.putInt(files.size());
+        for (FileSystem.SimulatedFile file : files) {
+            putString(file.getName());
+            byte[] content = file.getBytes();
+            putBytes(content != null ? ByteBuffer.wrap(content) : null);
+        }
+        endRecord(start);
+        group.flip();
+        int bytes = group.remaining();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (group.hasRemaining()) {
+                    out.write(group);
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logSize = channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        journalBytes.add(bytes);
+        checkpoints.increment();
+        group.clear();
+    }
+
+    /**
+     * Simula una caída: el grupo sin confirmar se pierde. Con tornWrite, la
+     * primera mitad del grupo llega al log antes de caer (escritura rota),
+     * que la recuperación debe descartar.
+     * @return intenciones perdidas
+     */
+    int crash(boolean tornWrite) {
+        int lost = groupIntents;
+        if (tornWrite && lost > 0) {
+            group.flip();
+            group.limit(group.limit() / 2);
+            try {
+                while (group.hasRemaining()) {
+                    channel.write(group, logSize + group.position());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        crashes.increment();
+        lostIntents.add(lost);
+        clearGroup();
+        return lost;
+    }
+
+    /**
+     * Reconstruye el contenido duradero leyendo el log: la última imagen más
+     * los grupos confirmados. Lo que sigue al último registro válido (grupos
+     * sin COMMIT, registros rotos) se descarta y se recorta del log, y el
+     * grupo en memoria, si lo hay, se pierde.
+     * @return contenido de cada archivo por nombre (null = sin contenido)
+     */
+    public Map<String, byte[]> recover() {
+        Map<String, byte[]> durable = new LinkedHashMap<>();
+        List<ByteBuffer> pending = new ArrayList<>();
+        try {
+            ByteBuffer log = ByteBuffer.allocate((int) channel.size());
+            while (log.hasRemaining()) {
+                if (channel.read(log, log.position()) < 0) {
+                    break;
+                }
+            }
+            log.flip();
+
+            long validEnd = 0;
+            CRC32 crc = new CRC32();
+            while (log.remaining() >= RECORD_HEADER) {
+                byte type = log.get();
+                int length = log.getInt();
+                int expectedCrc = log.getInt();
+                if (length < 0 || length > log.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = log.slice();
+                payload.limit(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+                log.position(log.position() + length);
+                if (type == IMAGE) {
+                    durable.clear();
+                    pending.clear();
+                    for (int i = payload.getInt(); i > 0; i--) {
+                        durable.put(getString(payload), getBytes(payload));
+                    }
+                    validEnd = log.position();
+                } else if (type == CREATE || type == WRITE || type == RENAME || type == DELETE) {
+                    pending.add(withType(type, payload));
+                } else if (type == COMMIT) {
+                    lastTransaction = payload.getLong();
+                    for (ByteBuffer intent : pending) {
+                        apply(durable, intent);
+                    }
+                    recoveredIntents.add(pending.size());
+                    pending.clear();
+                    validEnd = log.position();
+                } else {
+                    break;
+                }
+            }
+            discardedIntents.add(pending.size());
+            lostIntents.add(groupIntents);
+            clearGroup();
+            channel.truncate(validEnd);
+            logSize = validEnd;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return durable;
+    }
+
+    private static ByteBuffer withType(byte type, ByteBuffer payload) {
+        ByteBuffer intent = ByteBuffer.allocate(1 + payload.remaining());
+        intent.put(type);
+        intent.put(payload.duplicate());
+        intent.flip();
+        return intent;
+    }
+
+    /**
+     * Aplica una intención confirmada al contenido recuperado
+     */
+    private static void apply(Map<String, byte[]> durable, ByteBuffer intent) {
+        byte type = intent.get();
+        String name = getString(intent);
+        if (type == CREATE) {
+            byte[] content = getBytes(intent);
+            if (!durable.containsKey(name)) {
+                durable.put(name, content);
+            }
+            return;
+        }
+        if (type == DELETE) {
+            durable.remove(name);
+            return;
+        }
+        if (type == RENAME) {
+            String to = getString(intent);
+            String prefix = name + "/";
+            Map<String, byte[]> moved = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, byte[]>> entries = durable.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, byte[]> entry = entries.next();
+                String key = entry.getKey();
+                if (key.equals(name) || key.startsWith(prefix)) {
+                    moved.put(to + key.substring(name.length()), entry.getValue());
+                    entries.remove();
+                }
+            }
+            durable.putAll(moved);
+            return;
+        }
+        long offset = intent.getLong();
+        boolean replace = intent.get() != 0;
+        byte[] data = getBytes(intent);
+        if (replace) {
+            durable.put(name, data);
+            return;
+        }
+        byte[] old = durable.get(name);
+        if (old == null) {
+            old = new byte[0];
+        }
+        int end = (int) offset + (data != null ? data.length : 0);
+        byte[] updated = Arrays.copyOf(old, Math.max(old.length, end));
+        if (data != null) {
+            System.arraycopy(data, 0, updated, (int) offset, data.length);
+        }
+        durable.put(name, updated);
+    }
+
+    /**
+     * Reserva la cabecera de un registro en el grupo
+     * @return posición del registro
+     */
+    private int beginRecord(byte type) {
+        ensureGroup(RECORD_HEADER);
+        int start = group.position();
+        group.put(type);
+        group.putInt(0);
+        group.putInt(0);
+        return start;
+    }
+
+    /**
+     * Completa longitud y CRC de la cabecera
+     */
+    private void endRecord(int start) {
+        int length = group.position() - start - RECORD_HEADER;
+        ByteBuffer payload = group.duplicate();
+        payload.position(start + RECORD_HEADER);
+        payload.limit(group.position());
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        group.putInt(start + 1, length);
+        group.putInt(start + 5, (int) crc.getValue());
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureGroup(4 + bytes.length);
+        group.putInt(bytes.length);
+        group.put(bytes);
+    }
+
+    private void putBytes(ByteBuffer data) {
+        if (data == null) {
+            ensureGroup(4);
+            group.putInt(-1);
+            return;
+        }
+        ensureGroup(4 + data.remaining());
+        group.putInt(data.remaining());
+        group.put(data.duplicate());
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] getBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private void ensureGroup(int extra) {
+        if (group.remaining() < extra) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(group.capacity() * 2, group.position() + extra));
+            group.flip();
+            larger.put(group);
+            group = larger;
+        }
+    }
+
+    /**
+     * Vacía el grupo y despierta a los procesos que esperaban su confirmación
+     */
+    private void clearGroup() {
+        group.clear();
+        groupIntents = 0;
+        if (listener != null) {
+            for (int pid : waiting) {
+                listener.processIoCompleted(pid);
+            }
+        }
+        waiting.clear();
+    }
+
+    /**
+     * Confirma lo pendiente y cierra el log
+     */
+    @Override
+    public void close() throws IOException {
+        commit(lastNow);
+        channel.close();
+    }
+
+    /**
+     * Obtiene métricas del journal. La amplificación de escritura es
+     * (bytes del log + bytes escritos en los archivos) / bytes escritos.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        long written = userBytes.get();
+        metrics.put("journalIntents", intents.get());
+        metrics.put("journalCommits", commits.get());
+        metrics.put("pendingIntents", groupIntents);
+        metrics.put("avgGroupSize", groupSizes.getMean());
+        metrics.put("journalBytes", journalBytes.get());
+        metrics.put("userBytesWritten", written);
+        metrics.put("writeAmplification", written > 0
+                ? (double) (journalBytes.get() + written) / written : 0.0);
+        metrics.put("avgCommitLatency", commitLatencies.getMean());
+        metrics.put("commitLatencyP50", commitLatencies.getValueAtPercentile(50.0));
+        metrics.put("commitLatencyP99", commitLatencies.getValueAtPercentile(99.0));
+        metrics.put("avgFsyncMicros", fsyncMicros.getMean());
+        metrics.put("fsyncMicrosP99", fsyncMicros.getValueAtPercentile(99.0));
+        metrics.put("journalCheckpoints", checkpoints.get());
+        metrics.put("journalCrashes", crashes.get());
+        metrics.put("recoveredIntents", recoveredIntents.get());
+        metrics.put("lostIntents", lostIntents.get());
+        metrics.put("discardedIntents", discardedIntents.get());
+        return metrics;
+    }
+
+    // Getters
+    public Path getPath() { return path; }
+    public long getLogSize() { return logSize; }
+    public int getGroupSize() { return groupSize; }
+    public long getMaxDelay() { return maxDelay; }
+    public int getPendingIntents() { return groupIntents; }
+    public long getLastTransaction() { return lastTransaction; }
+    public MetricsRegistry getMetricsRegistry() { return metricsRegistry; }
+}
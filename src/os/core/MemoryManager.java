@@ -5,7 +5,7 @@ import java.util.*;
 /**
  * Gestor de memoria con paginación por demanda y algoritmos de reemplazo
  */
-public class MemoryManager {
+public class MemoryManager implements IoRequestListener {
     private int frameCount;              // Número total de marcos de página
     private Map<Integer, PageFrame> frames; // Marcos de página
     public enum PageReplacementAlgorithm { FIFO, LRU }
@@ -14,6 +14,35 @@ public class MemoryManager {
     private int accessCounter;           // Contador de accesos para LRU
     private int pageFaults;              // Contador de fallos de página
     private int pageHits;                // Contador de aciertos
+    private StackDistanceAnalyzer referenceAnalyzer; // Registro opcional de referencias
+    private Tlb tlb;                     // TLB opcional delante de la búsqueda de páginas
+    private Map<Integer, PageTable> pageTables; // Tabla de páginas jerárquica por proceso
+    private Map<Integer, Integer> addressSpaces; // Hilo -> proceso cuyo espacio de direcciones comparte
+    private int[] pageTableLevels;       // Bits por nivel de las tablas nuevas
+    private boolean hugePagesEnabled;    // Cargar páginas grandes cuando haya marcos contiguos
+    private int hugePageLoads;           // Páginas grandes cargadas
+    private SwapDevice swapDevice;       // Dispositivo de intercambio (null = fallos sin costo)
+    private IoScheduler swapQueue;       // Cola del disco con el área de intercambio (prioritaria sobre swapDevice)
+    private boolean swapAreaEnabled;
+    private int swapAreaStart;           // Primer bloque del área de intercambio
+    private int swapAreaBlocks;
+    private int blocksPerPage;
+    private int[] dirtyVictims = new int[8]; // pid, página de cada víctima sucia del fallo en curso
+    private int dirtyVictimCount;
+    private WriteBackDaemon writeBackDaemon; // Limpieza anticipada de páginas sucias
+    private Prefetcher prefetcher;       // Carga anticipada de páginas en cada fallo
+    private IoStallListener stallListener;   // Scheduler a notificar del tiempo de servicio
+    private Tracer tracer;               // Registro opcional de fallos de página
+    private long currentTime;            // Tick actual del simulador
+    private Clock clock;                 // Reloj compartido (null = usar el último tick)
+    private int dirtyEvictions;          // Desalojos que exigieron escribir la página
+    private int cleanEvictions;          // Desalojos sin escritura
+    private int evictedDirtyPages;       // Páginas sucias desalojadas por el fallo en curso
+    private int loadedPages;             // Páginas leídas por el fallo en curso
+    private long totalFaultServiceTime;
+    private int lastFaultServiceTime;
+    private Set<Long> pendingSwapIns;    // Lecturas de fallos encoladas en el área de intercambio
+    private int servicedSwapIns;         // Lecturas del área de intercambio ya terminadas
 
     /**
      * Clase interna que representa un marco de página
@@ -24,6 +53,9 @@ public class MemoryManager {
         private boolean valid;
         private int loadTime;
         private int lastAccessTime;
+        private int hugeBaseFrame;       // Primer marco de la página grande (-1 si es página base)
+        private boolean dirty;           // Modificada desde que se cargó o se escribió al intercambio
+        private boolean prefetched;      // Cargada por el prefetcher y aún no accedida
 
         public PageFrame() {
             this.valid = false;
@@ -31,6 +63,7 @@ public class MemoryManager {
             this.processId = -1;
             this.loadTime = 0;
             this.lastAccessTime = 0;
+            this.hugeBaseFrame = -1;
         }
 
         public void load(int pageNumber, int processId, int time) {
@@ -39,16 +72,48 @@ public class MemoryManager {
             this.valid = true;
             this.loadTime = time;
             this.lastAccessTime = time;
+            this.hugeBaseFrame = -1;
+            this.dirty = false;
+            this.prefetched = false;
+        }
+
+        void markHuge(int baseFrame) {
+            this.hugeBaseFrame = baseFrame;
         }
 
         public void access(int time) {
             this.lastAccessTime = time;
         }
 
+        void markDirty() {
+            this.dirty = true;
+        }
+
+        void clean() {
+            this.dirty = false;
+        }
+
+        void markPrefetched() {
+            this.prefetched = true;
+        }
+
+        /**
+         * Primer acceso a una página anticipada
+         * @return true si la página estaba marcada como anticipada
+         */
+        boolean consumePrefetch() {
+            boolean was = prefetched;
+            this.prefetched = false;
+            return was;
+        }
+
         public void clear() {
             this.valid = false;
             this.pageNumber = -1;
             this.processId = -1;
+            this.hugeBaseFrame = -1;
+            this.dirty = false;
+            this.prefetched = false;
         }
 
         // Getters
@@ -57,6 +122,10 @@ public class MemoryManager {
         public boolean isValid() { return valid; }
         public int getLoadTime() { return loadTime; }
         public int getLastAccessTime() { return lastAccessTime; }
+        public int getHugeBaseFrame() { return hugeBaseFrame; }
+        public boolean isHugePage() { return hugeBaseFrame >= 0; }
+        public boolean isDirty() { return dirty; }
+        public boolean isPrefetched() { return prefetched; }
     }
 
     /**
@@ -70,6 +139,12 @@ public class MemoryManager {
         this.accessCounter = 0;
         this.pageFaults = 0;
         this.pageHits = 0;
+        this.pageTables = new HashMap<>();
+        this.addressSpaces = new HashMap<>();
+        this.pendingSwapIns = new HashSet<>();
+        this.pageTableLevels = new int[]{11, 10, 10};
+        this.hugePagesEnabled = false;
+        this.hugePageLoads = 0;
 
         // Inicializar marcos
         for (int i = 0; i < frameCount; i++) {
@@ -78,53 +153,454 @@ public class MemoryManager {
     }
 
     /**
-     * Accede a una página de memoria
+     * Accede a una página de memoria para lectura
      * @return true si hay fallo de página
      */
     public boolean accessPage(int processId, int pageNumber) {
+        return accessPage(processId, pageNumber, false);
+    }
+
+    /**
+     * Accede a una página de memoria
+     * @param write true si el acceso modifica la página (la marca sucia)
+     * @return true si hay fallo de página
+     */
+    public boolean accessPage(int processId, int pageNumber, boolean write) {
+        int space = addressSpace(processId);
         accessCounter++;
+        if (referenceAnalyzer != null) {
+            referenceAnalyzer.record(space, pageNumber);
+        }
 
-        // Verificar si la página ya está en memoria
-        for (PageFrame frame : frames.values()) {
-            if (frame.isValid() &&
-                frame.getProcessId() == processId &&
-                frame.getPageNumber() == pageNumber) {
-                // Page hit
-                frame.access(accessCounter);
+        // Consultar primero el TLB
+        if (tlb != null) {
+            int cachedFrame = tlb.lookup(space, pageNumber);
+            if (cachedFrame >= 0) {
+                touch(cachedFrame, write);
                 pageHits++;
                 return false;
             }
         }
 
+        // Recorrer la tabla de páginas del proceso
+        PageTable table = pageTables.get(space);
+        int frameNumber = table != null ? table.lookup(pageNumber) : -1;
+        if (frameNumber >= 0) {
+            // Page hit
+            touch(frameNumber, write);
+            pageHits++;
+            cacheTranslation(space, pageNumber, frameNumber);
+            return false;
+        }
+
         // Page fault - necesita cargar la página
-        pageFaults++;
-        loadPage(processId, pageNumber);
+        servicePageFault(space, processId, pageNumber, write);
         return true;
     }
 
+    /**
+     * Accede a varias páginas de un proceso, en orden. Equivale a llamar a
+     * accessPage por cada una, pero busca la tabla de páginas del proceso
+     * una sola vez y suma los aciertos al terminar el lote.
+     * @param stopAtFault true para terminar en el primer fallo (p. ej. si el
+     *                    fallo bloquea al proceso); si lo hubo, faults.length()
+     *                    es la cantidad de páginas accedidas
+     * @return mapa de bits: el bit i está encendido si pages[i] produjo fallo
+     */
+    public BitSet accessPages(int processId, int[] pages, boolean write, boolean stopAtFault) {
+        BitSet faults = new BitSet(pages.length);
+        int space = addressSpace(processId);
+        PageTable table = pageTables.get(space);
+        int hits = 0;
+        for (int i = 0; i < pages.length; i++) {
+            int pageNumber = pages[i];
+            accessCounter++;
+            if (referenceAnalyzer != null) {
+                referenceAnalyzer.record(space, pageNumber);
+            }
+            int frameNumber = tlb != null ? tlb.lookup(space, pageNumber) : -1;
+            if (frameNumber >= 0) {
+                touch(frameNumber, write);
+                hits++;
+                continue;
+            }
+            frameNumber = table != null ? table.lookup(pageNumber) : -1;
+            if (frameNumber >= 0) {
+                touch(frameNumber, write);
+                hits++;
+                cacheTranslation(space, pageNumber, frameNumber);
+                continue;
+            }
+            servicePageFault(space, processId, pageNumber, write);
+            faults.set(i);
+            if (stopAtFault) {
+                break;
+            }
+            table = pageTables.get(space);         // El primer fallo crea la tabla
+        }
+        pageHits += hits;
+        return faults;
+    }
+
+    /**
+     * Carga la página del fallo (y las que anticipe el prefetcher) y cobra
+     * el tiempo de servicio
+     * @param space proceso dueño del espacio de direcciones
+     * @param threadId proceso o hilo que espera el servicio del fallo
+     */
+    private void servicePageFault(int space, int threadId, int pageNumber, boolean write) {
+        pageFaults++;
+        if (tracer != null) {
+            tracer.record(Tracer.EventType.PAGE_FAULT, threadId, pageNumber);
+        }
+        evictedDirtyPages = 0;
+        dirtyVictimCount = 0;
+        loadedPages = 0;
+        int frameNumber = loadPage(space, pageNumber);
+        if (write) {
+            frames.get(frameNumber).markDirty();
+        }
+        cacheTranslation(space, pageNumber, frameNumber);
+        prefetchAround(space, pageNumber);
+        chargeFaultService(space, threadId, pageNumber);
+    }
+
+    /**
+     * Espacio de direcciones que usa un proceso o hilo
+     */
+    private int addressSpace(int processId) {
+        if (addressSpaces.isEmpty()) {
+            return processId;
+        }
+        Integer owner = addressSpaces.get(processId);
+        return owner != null ? owner : processId;
+    }
+
+    /**
+     * Hace que un hilo comparta el espacio de direcciones de su proceso: sus
+     * accesos usan la tabla de páginas, los marcos y las entradas del TLB
+     * del proceso, y sus fallos bloquean sólo al hilo
+     */
+    public void attachThread(int threadId, int processId) {
+        if (threadId == processId || addressSpaces.containsKey(processId)) {
+            throw new IllegalArgumentException("El hilo " + threadId + " no puede compartir el espacio de " + processId);
+        }
+        addressSpaces.put(threadId, processId);
+    }
+
+    /**
+     * Separa un hilo del espacio de direcciones de su proceso
+     */
+    public void detachThread(int threadId) {
+        addressSpaces.remove(threadId);
+    }
+
+    /**
+     * Proceso cuyo espacio de direcciones usa el proceso o hilo dado
+     */
+    public int getAddressSpace(int processId) {
+        return addressSpace(processId);
+    }
+
+    private void touch(int frameNumber, boolean write) {
+        PageFrame frame = frames.get(frameNumber);
+        frame.access(accessCounter);
+        if (write) {
+            frame.markDirty();
+        }
+        if (frame.consumePrefetch() && prefetcher != null) {
+            prefetcher.recordUsed();
+        }
+    }
+
+    /**
+     * Carga las páginas que propone el prefetcher junto con la del fallo.
+     * Se leen en la misma operación del intercambio que la página pedida.
+     * Con tan pocos marcos que el lote podría desalojar la página pedida no
+     * se anticipa nada.
+     */
+    private void prefetchAround(int processId, int pageNumber) {
+        if (prefetcher == null || frameCount <= prefetcher.getDegree()) {
+            return;
+        }
+        PageTable table = pageTables.get(processId);
+        for (int candidate : prefetcher.candidates(processId, pageNumber)) {
+            if (!table.isInRange(candidate) || table.isMapped(candidate)) {
+                continue;
+            }
+            int frameNumber = loadPage(processId, candidate);
+            frames.get(frameNumber).markPrefetched();
+            prefetcher.recordIssued();
+        }
+    }
+
+    /**
+     * Calcula el tiempo de servicio del fallo en el dispositivo de intercambio
+     * (escritura de las víctimas sucias seguida de la lectura de la página)
+     * y bloquea al proceso ese tiempo.
+     *
+     * Con área de intercambio en el disco, las escrituras de las víctimas y
+     * la lectura se encolan en el IoScheduler; el proceso espera sólo la
+     * lectura, que cubre en un tramo las páginas cargadas por el fallo.
+     */
+    private void chargeFaultService(int space, int threadId, int pageNumber) {
+        if (swapQueue != null) {
+            long now = now();
+            for (int i = 0; i < dirtyVictimCount; i++) {
+                swapQueue.submit(now, -1, swapBlock(dirtyVictims[2 * i], dirtyVictims[2 * i + 1]),
+                        blocksPerPage, true);
+            }
+            int block = swapBlock(space, pageNumber);
+            int blocks = Math.min(loadedPages * blocksPerPage, swapAreaStart + swapAreaBlocks - block);
+            // El tiempo de servicio se cobra al terminar la lectura (requestCompleted)
+            pendingSwapIns.add(swapQueue.submit(now, threadId, block, blocks, false));
+            return;
+        }
+        if (swapDevice == null) {
+            lastFaultServiceTime = 0;
+            return;
+        }
+        long now = now();
+        if (evictedDirtyPages > 0) {
+            swapDevice.write(now, evictedDirtyPages);
+        }
+        long done = swapDevice.read(now, loadedPages);
+        lastFaultServiceTime = (int) (done - now);
+        totalFaultServiceTime += lastFaultServiceTime;
+        if (stallListener != null && lastFaultServiceTime > 0) {
+            stallListener.processStalled(threadId, lastFaultServiceTime);
+        }
+    }
+
+    /**
+     * IoRequestListener: al terminar la lectura de un fallo en el área de
+     * intercambio se cobra su tiempo en cola y en el disco
+     */
+    @Override
+    public void requestCompleted(long id, long arrival, long doneTime) {
+        if (pendingSwapIns.remove(id)) {
+            lastFaultServiceTime = (int) (doneTime - arrival);
+            totalFaultServiceTime += lastFaultServiceTime;
+            servicedSwapIns++;
+        }
+    }
+
+    /**
+     * Inserta en el TLB la traducción recién resuelta
+     */
+    private void cacheTranslation(int processId, int pageNumber, int frameNumber) {
+        if (tlb != null) {
+            PageFrame frame = frames.get(frameNumber);
+            if (frame.isHugePage()) {
+                tlb.insertHuge(processId, pageNumber, frame.getHugeBaseFrame());
+            } else {
+                tlb.insert(processId, pageNumber, frameNumber);
+            }
+        }
+    }
+
     /**
      * Carga una página en memoria
+     * @return marco donde quedó cargada
      */
-    private void loadPage(int processId, int pageNumber) {
+    private int loadPage(int processId, int pageNumber) {
+        PageTable table = pageTables.get(processId);
+        if (table == null) {
+            table = new PageTable(pageTableLevels);
+            pageTables.put(processId, table);
+        }
+
+        // Intentar cargar la página grande completa si hay marcos contiguos libres
+        if (hugePagesEnabled && table.canMapHuge(pageNumber)) {
+            int hugeSize = table.getHugePageSize();
+            int baseFrame = findFreeHugeRegion(hugeSize);
+            if (baseFrame >= 0) {
+                int firstPage = pageNumber & ~(hugeSize - 1);
+                for (int i = 0; i < hugeSize; i++) {
+                    PageFrame frame = frames.get(baseFrame + i);
+                    frame.load(firstPage + i, processId, accessCounter);
+                    frame.markHuge(baseFrame);
+                    updateAlgorithmStructures(baseFrame + i);
+                }
+                table.mapHuge(pageNumber, baseFrame);
+                hugePageLoads++;
+                loadedPages += hugeSize;
+                return baseFrame + (pageNumber - firstPage);
+            }
+        }
+
         // Buscar marco libre
         Integer freeFrame = findFreeFrame();
+        int frameNumber;
 
         if (freeFrame != null) {
             // Hay marco libre, cargar directamente
-            frames.get(freeFrame).load(pageNumber, processId, accessCounter);
-            updateAlgorithmStructures(freeFrame);
+            frameNumber = freeFrame;
         } else {
             // No hay marcos libres, aplicar algoritmo de reemplazo
-            int victimFrame = selectVictimFrame();
-            PageFrame victim = frames.get(victimFrame);
+            frameNumber = selectVictimFrame();
+            evictFrame(frameNumber);
+        }
+
+        frames.get(frameNumber).load(pageNumber, processId, accessCounter);
+        updateAlgorithmStructures(frameNumber);
+        table.map(pageNumber, frameNumber);
+        loadedPages++;
+        return frameNumber;
+    }
+
+    /**
+     * Bloque del área de intercambio donde se guarda una página; las páginas
+     * consecutivas de un proceso quedan en bloques consecutivos
+     */
+    private int swapBlock(int processId, int pageNumber) {
+        int slots = swapAreaBlocks / blocksPerPage;
+        int slot = (int) Math.floorMod((long) processId * 1024 + pageNumber, (long) slots);
+        return swapAreaStart + slot * blocksPerPage;
+    }
+
+    private void recordDirtyVictim(int processId, int pageNumber) {
+        if (swapQueue == null) {
+            return;
+        }
+        if (2 * dirtyVictimCount + 2 > dirtyVictims.length) {
+            dirtyVictims = Arrays.copyOf(dirtyVictims, dirtyVictims.length * 2);
+        }
+        dirtyVictims[2 * dirtyVictimCount] = processId;
+        dirtyVictims[2 * dirtyVictimCount + 1] = pageNumber;
+        dirtyVictimCount++;
+    }
+
+    /**
+     * Desaloja la página de un marco. Si forma parte de una página grande se
+     * desaloja la región completa, porque comparte una sola entrada de tabla.
+     */
+    private void evictFrame(int frameNumber) {
+        PageFrame victim = frames.get(frameNumber);
+        if (!victim.isValid()) {
+            return;
+        }
+        int victimPid = victim.getProcessId();
+        int victimPage = victim.getPageNumber();
+        PageTable table = pageTables.get(victimPid);
 
-            // Reemplazar
+        if (tlb != null) {
+            tlb.invalidate(victimPid, victimPage);
+        }
+
+        int dirtyPages = 0;
+        if (victim.isHugePage()) {
+            int baseFrame = victim.getHugeBaseFrame();
+            table.unmapHuge(victimPage);
+            for (int i = 0; i < table.getHugePageSize(); i++) {
+                if (frames.get(baseFrame + i).isDirty()) {
+                    dirtyPages++;
+                    recordDirtyVictim(victimPid, frames.get(baseFrame + i).getPageNumber());
+                }
+                discardPrefetch(frames.get(baseFrame + i));
+                frames.get(baseFrame + i).clear();
+                if (baseFrame + i != frameNumber) {
+                    fifoQueue.remove(baseFrame + i);
+                }
+            }
+        } else {
+            if (victim.isDirty()) {
+                dirtyPages++;
+                recordDirtyVictim(victimPid, victimPage);
+            }
+            discardPrefetch(victim);
+            table.unmap(victimPage);
             victim.clear();
-            victim.load(pageNumber, processId, accessCounter);
-            updateAlgorithmStructures(victimFrame);
+        }
+
+        if (dirtyPages > 0) {
+            dirtyEvictions++;
+            evictedDirtyPages += dirtyPages;
+        } else {
+            cleanEvictions++;
         }
     }
 
+    /**
+     * Cuenta como desperdiciada una página anticipada que sale sin haberse usado
+     */
+    private void discardPrefetch(PageFrame frame) {
+        if (frame.isPrefetched() && prefetcher != null) {
+            prefetcher.recordWasted();
+        }
+    }
+
+    /**
+     * Avanza el reloj de la memoria y ejecuta el demonio de escritura diferida
+     */
+    public void tick(long now) {
+        this.currentTime = now;
+        if (writeBackDaemon != null && swapDevice != null) {
+            writeBackDaemon.run(this, swapDevice, now);
+        }
+    }
+
+    /**
+     * Cuenta los marcos libres o con páginas limpias
+     */
+    int countCleanFrames() {
+        int count = 0;
+        for (PageFrame frame : frames.values()) {
+            if (!frame.isValid() || !frame.isDirty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Marcos sucios en el orden en que el algoritmo los desalojaría
+     */
+    List<Integer> dirtyFramesInEvictionOrder() {
+        List<Integer> dirty = new ArrayList<>();
+        if (algorithm == PageReplacementAlgorithm.FIFO) {
+            Set<Integer> seen = new HashSet<>();
+            for (Integer frameNumber : fifoQueue) {
+                PageFrame frame = frames.get(frameNumber);
+                if (frame.isValid() && frame.isDirty() && seen.add(frameNumber)) {
+                    dirty.add(frameNumber);
+                }
+            }
+        } else {
+            for (Map.Entry<Integer, PageFrame> entry : frames.entrySet()) {
+                if (entry.getValue().isValid() && entry.getValue().isDirty()) {
+                    dirty.add(entry.getKey());
+                }
+            }
+            dirty.sort(Comparator.comparingInt(f -> frames.get(f).getLastAccessTime()));
+        }
+        return dirty;
+    }
+
+    /**
+     * Marca limpio un marco cuya página se escribió al intercambio
+     */
+    void cleanFrame(int frameNumber) {
+        frames.get(frameNumber).clean();
+    }
+
+    /**
+     * Busca una región alineada de marcos libres contiguos
+     * @return primer marco de la región, o -1 si no existe
+     */
+    private int findFreeHugeRegion(int hugeSize) {
+        for (int base = 0; base + hugeSize <= frameCount; base += hugeSize) {
+            boolean free = true;
+            for (int i = base; i < base + hugeSize && free; i++) {
+                free = !frames.get(i).isValid();
+            }
+            if (free) {
+                return base;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Encuentra un marco libre
      */
@@ -141,6 +617,14 @@ public class MemoryManager {
      * Selecciona un marco víctima según el algoritmo de reemplazo
      */
     private int selectVictimFrame() {
+        // Las páginas anticipadas que nunca se usaron salen primero
+        if (prefetcher != null && prefetcher.isEvictUnusedFirst()) {
+            int unused = selectUnusedPrefetch();
+            if (unused >= 0) {
+                fifoQueue.remove(unused);
+                return unused;
+            }
+        }
         if (algorithm == PageReplacementAlgorithm.FIFO) {
             return selectVictimFIFO();
         } else {
@@ -148,6 +632,25 @@ public class MemoryManager {
         }
     }
 
+    /**
+     * Busca la página anticipada sin usar más antigua, sin contar las cargadas
+     * en el fallo en curso
+     * @return marco, o -1 si no hay
+     */
+    private int selectUnusedPrefetch() {
+        int candidate = -1;
+        int oldestLoad = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, PageFrame> entry : frames.entrySet()) {
+            PageFrame frame = entry.getValue();
+            if (frame.isValid() && frame.isPrefetched() &&
+                frame.getLoadTime() < accessCounter && frame.getLoadTime() < oldestLoad) {
+                oldestLoad = frame.getLoadTime();
+                candidate = entry.getKey();
+            }
+        }
+        return candidate;
+    }
+
     /**
      * Selecciona víctima usando FIFO
      */
@@ -196,17 +699,27 @@ public class MemoryManager {
     }
 
     /**
-     * Libera todas las páginas de un proceso
+     * Libera todas las páginas de un proceso; sus hilos dejan de compartir
+     * su espacio de direcciones
      */
     public void freeProcessPages(int processId) {
+        addressSpaces.values().removeIf(owner -> owner == processId);
         for (Map.Entry<Integer, PageFrame> entry : frames.entrySet()) {
             PageFrame frame = entry.getValue();
             if (frame.isValid() && frame.getProcessId() == processId) {
+                discardPrefetch(frame);
                 frame.clear();
                 // Remover de estructuras de algoritmo (fifo)
                 fifoQueue.remove(entry.getKey());
             }
         }
+        pageTables.remove(processId);
+        if (prefetcher != null) {
+            prefetcher.forget(processId);
+        }
+        if (tlb != null) {
+            tlb.invalidateProcess(processId);
+        }
     }
 
     /**
@@ -248,6 +761,56 @@ public class MemoryManager {
         metrics.put("pageHitRate", getPageHitRate());
         metrics.put("framesUsed", countUsedFrames());
         metrics.put("framesFree", frameCount - countUsedFrames());
+
+        long tableBytes = 0;
+        int tableCount = 0;
+        long walks = 0;
+        long walkSteps = 0;
+        int hugePages = 0;
+        for (PageTable table : pageTables.values()) {
+            tableBytes += table.getFootprintBytes();
+            tableCount += table.getTableCount();
+            walks += table.getWalks();
+            walkSteps += table.getWalkSteps();
+            hugePages += table.getHugePages();
+        }
+        metrics.put("pageTableBytes", tableBytes);
+        metrics.put("pageTables", tableCount);
+        metrics.put("pageTableWalks", walks);
+        metrics.put("avgWalkSteps", walks > 0 ? (double) walkSteps / walks : 0.0);
+        metrics.put("hugePagesMapped", hugePages);
+        metrics.put("hugePageLoads", hugePageLoads);
+
+        int dirtyPages = 0;
+        for (PageFrame frame : frames.values()) {
+            if (frame.isValid() && frame.isDirty()) {
+                dirtyPages++;
+            }
+        }
+        metrics.put("dirtyPages", dirtyPages);
+        metrics.put("dirtyEvictions", dirtyEvictions);
+        metrics.put("cleanEvictions", cleanEvictions);
+        // Con área de intercambio sólo cuentan las lecturas ya terminadas
+        int servicedFaults = swapQueue != null ? servicedSwapIns : pageFaults;
+        metrics.put("avgFaultServiceTime", servicedFaults > 0 ?
+                (double) totalFaultServiceTime / servicedFaults : 0.0);
+        if (swapDevice != null) {
+            metrics.putAll(swapDevice.getMetrics());
+        }
+        if (writeBackDaemon != null) {
+            metrics.put("writeBackPages", writeBackDaemon.getPagesCleaned());
+        }
+        if (prefetcher != null) {
+            metrics.put("prefetchIssued", prefetcher.getIssued());
+            metrics.put("prefetchUsed", prefetcher.getUsed());
+            metrics.put("prefetchWasted", prefetcher.getWasted());
+            metrics.put("prefetchAccuracy", prefetcher.getAccuracy());
+            metrics.put("prefetchCoverage", prefetcher.getCoverage(pageFaults));
+        }
+
+        if (tlb != null) {
+            metrics.putAll(tlb.getMetrics());
+        }
         return metrics;
     }
 
@@ -269,6 +832,292 @@ public class MemoryManager {
     public int getPageFaults() { return pageFaults; }
     public int getPageHits() { return pageHits; }
     public PageReplacementAlgorithm getAlgorithm() { return algorithm; }
+    public StackDistanceAnalyzer getReferenceAnalyzer() { return referenceAnalyzer; }
+    public Tlb getTlb() { return tlb; }
+    public boolean isHugePagesEnabled() { return hugePagesEnabled; }
+    public SwapDevice getSwapDevice() { return swapDevice; }
+    public WriteBackDaemon getWriteBackDaemon() { return writeBackDaemon; }
+    public int getLastFaultServiceTime() { return lastFaultServiceTime; }
+    public Prefetcher getPrefetcher() { return prefetcher; }
+    public Tracer getTracer() { return tracer; }
+    public Clock getClock() { return clock; }
+
+    /**
+     * Define el reloj del que se toma el instante de cada fallo (p. ej. el
+     * del Scheduler); sin reloj se usa el último valor recibido en tick
+     */
+    public void setClock(Clock clock) { this.clock = clock; }
+
+    private long now() {
+        return clock != null ? clock.now() : currentTime;
+    }
+
+    /**
+     * Registra cada fallo de página en el tracer (null para desactivar)
+     */
+    public void setTracer(Tracer tracer) { this.tracer = tracer; }
+
+    /**
+     * Define el prefetcher que actúa en cada fallo (null para desactivar)
+     */
+    public void setPrefetcher(Prefetcher prefetcher) { this.prefetcher = prefetcher; }
+
+    /**
+     * Define el dispositivo de intercambio (null = los fallos no tienen costo)
+     */
+    public void setSwapDevice(SwapDevice swapDevice) { this.swapDevice = swapDevice; }
+
+    /**
+     * Coloca el intercambio en un área del disco atendida por un IoScheduler
+     * (null para quitarla). Los fallos encolan sus lecturas y escrituras en
+     * la cola del disco, junto con las del FileSystem.
+     * @param startBlock primer bloque del área (ver FileSystem.reserveBlocks)
+     * @param blocks bloques del área
+     * @param blocksPerPage bloques que ocupa cada página
+     */
+    public void setSwapArea(IoScheduler queue, int startBlock, int blocks, int blocksPerPage) {
+        if (queue != null && (startBlock < 0 || blocksPerPage <= 0 || blocks < blocksPerPage
+                || startBlock + blocks > queue.getDevice().getBlockCount())) {
+            throw new IllegalArgumentException("Área de intercambio inválida");
+        }
+        this.swapAreaEnabled = queue != null;
+        linkSwapArea(queue);
+        this.swapAreaStart = startBlock;
+        this.swapAreaBlocks = blocks;
+        this.blocksPerPage = blocksPerPage;
+    }
+
+    /**
+     * Vuelve a conectar el área de intercambio con la cola del disco
+     * restaurada (la cola pertenece al FileSystem)
+     */
+    void linkSwapArea(IoScheduler queue) {
+        if (swapQueue != null) {
+            swapQueue.removeRequestListener(this);
+        }
+        swapQueue = swapAreaEnabled ? queue : null;
+        if (swapQueue != null) {
+            swapQueue.addRequestListener(this);
+        }
+    }
+
+    /**
+     * Define el demonio de escritura diferida (requiere dispositivo de intercambio)
+     */
+    public void setWriteBackDaemon(WriteBackDaemon daemon) { this.writeBackDaemon = daemon; }
+
+    /**
+     * Setea el listener (Scheduler) que bloquea al proceso mientras se atiende el fallo
+     */
+    public void setStallListener(IoStallListener listener) { this.stallListener = listener; }
+    public int[] getPageTableLevels() { return pageTableLevels.clone(); }
+
+    /**
+     * Tabla de páginas de un proceso (null si no tiene páginas cargadas)
+     */
+    public PageTable getPageTable(int processId) {
+        return pageTables.get(processId);
+    }
+
+    /**
+     * Coloca un TLB delante de la búsqueda de páginas (null para desactivar)
+     */
+    public void setTlb(Tlb tlb) {
+        this.tlb = tlb;
+        if (tlb != null) {
+            tlb.flush();
+            configureTlb();
+        }
+    }
+
+    /**
+     * Define la geometría de las tablas de páginas (2 o 3 niveles).
+     * Sólo puede cambiarse mientras ningún proceso tenga páginas cargadas.
+     */
+    public void setPageTableLevels(int... levelBits) {
+        if (!pageTables.isEmpty()) {
+            throw new IllegalStateException("Hay tablas de páginas en uso; reinicie la memoria antes");
+        }
+        new PageTable(levelBits); // valida la geometría
+        this.pageTableLevels = levelBits.clone();
+        configureTlb();
+    }
+
+    /**
+     * Activa las páginas grandes: cubren una tabla hoja completa
+     * (2^bits del último nivel páginas) y ocupan marcos contiguos alineados
+     */
+    public void setHugePagesEnabled(boolean enabled) {
+        this.hugePagesEnabled = enabled;
+        configureTlb();
+    }
+
+    /**
+     * Ajusta el TLB al costo de recorrido y al tamaño de página grande
+     */
+    private void configureTlb() {
+        if (tlb != null) {
+            tlb.setWalkLevels(pageTableLevels.length);
+            tlb.setHugePageShift(hugePagesEnabled ? pageTableLevels[pageTableLevels.length - 1] : 0);
+            tlb.setAddressSpaces(addressSpaces);
+        }
+    }
+
+    /**
+     * Registra cada referencia en el analizador (null para desactivar)
+     */
+    public void setReferenceAnalyzer(StackDistanceAnalyzer analyzer) {
+        this.referenceAnalyzer = analyzer;
+    }
+
+    /**
+     * Guarda el estado de la memoria (ver Checkpoint). El número de marcos y
+     * el algoritmo van primero para poder crear un gestor equivalente.
+     */
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(frameCount);
+        out.writeInt(algorithm.ordinal());
+        out.writeInt(pageTableLevels.length);
+        for (int bits : pageTableLevels) {
+            out.writeInt(bits);
+        }
+        out.writeBoolean(hugePagesEnabled);
+        out.writeInt(accessCounter);
+        out.writeInt(pageFaults);
+        out.writeInt(pageHits);
+        out.writeInt(hugePageLoads);
+        out.writeLong(currentTime);
+        out.writeInt(dirtyEvictions);
+        out.writeInt(cleanEvictions);
+        out.writeLong(totalFaultServiceTime);
+        out.writeInt(lastFaultServiceTime);
+        out.writeInt(servicedSwapIns);
+        out.writeInt(pendingSwapIns.size());
+        for (long id : pendingSwapIns) {
+            out.writeLong(id);
+        }
+
+        for (int i = 0; i < frameCount; i++) {
+            PageFrame frame = frames.get(i);
+            out.writeBoolean(frame.valid);
+            out.writeInt(frame.pageNumber);
+            out.writeInt(frame.processId);
+            out.writeInt(frame.loadTime);
+            out.writeInt(frame.lastAccessTime);
+            out.writeInt(frame.hugeBaseFrame);
+            out.writeBoolean(frame.dirty);
+            out.writeBoolean(frame.prefetched);
+        }
+        out.writeInt(fifoQueue.size());
+        for (int frameNumber : fifoQueue) {
+            out.writeInt(frameNumber);
+        }
+        out.writeInt(pageTables.size());
+        for (Map.Entry<Integer, PageTable> entry : pageTables.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue().getWalks());
+            out.writeLong(entry.getValue().getWalkSteps());
+        }
+        out.writeInt(addressSpaces.size());
+        for (Map.Entry<Integer, Integer> entry : addressSpaces.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+
+        out.writeBoolean(swapDevice != null);
+        if (swapDevice != null) {
+            swapDevice.writeState(out);
+        }
+        out.writeBoolean(swapAreaEnabled);
+        out.writeInt(swapAreaStart);
+        out.writeInt(swapAreaBlocks);
+        out.writeInt(blocksPerPage);
+    }
+
+    /**
+     * Reemplaza el estado por el guardado; las tablas de páginas se
+     * reconstruyen a partir de los marcos y el TLB queda vacío
+     */
+    void readState(Checkpoint.Input in) {
+        int savedFrames = in.readInt();
+        if (savedFrames != frameCount) {
+            throw new IllegalArgumentException("El checkpoint es de " + savedFrames +
+                    " marcos y la memoria tiene " + frameCount);
+        }
+        algorithm = PageReplacementAlgorithm.values()[in.readInt()];
+        int[] levels = new int[in.readInt()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = in.readInt();
+        }
+        pageTables.clear();
+        pageTableLevels = levels;
+        hugePagesEnabled = in.readBoolean();
+        configureTlb();
+        accessCounter = in.readInt();
+        pageFaults = in.readInt();
+        pageHits = in.readInt();
+        hugePageLoads = in.readInt();
+        currentTime = in.readLong();
+        dirtyEvictions = in.readInt();
+        cleanEvictions = in.readInt();
+        totalFaultServiceTime = in.readLong();
+        lastFaultServiceTime = in.readInt();
+        servicedSwapIns = in.readInt();
+        pendingSwapIns.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            pendingSwapIns.add(in.readLong());
+        }
+
+        for (int i = 0; i < frameCount; i++) {
+            PageFrame frame = frames.get(i);
+            frame.valid = in.readBoolean();
+            frame.pageNumber = in.readInt();
+            frame.processId = in.readInt();
+            frame.loadTime = in.readInt();
+            frame.lastAccessTime = in.readInt();
+            frame.hugeBaseFrame = in.readInt();
+            frame.dirty = in.readBoolean();
+            frame.prefetched = in.readBoolean();
+        }
+        fifoQueue.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            fifoQueue.add(in.readInt());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            PageTable table = new PageTable(pageTableLevels);
+            pageTables.put(in.readInt(), table);
+            table.restoreWalkCounters(in.readLong(), in.readLong());
+        }
+        addressSpaces.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            addressSpaces.put(in.readInt(), in.readInt());
+        }
+
+        // Reconstruir las tablas de páginas (una entrada por página grande)
+        for (int i = 0; i < frameCount; i++) {
+            PageFrame frame = frames.get(i);
+            if (!frame.valid) {
+                continue;
+            }
+            PageTable table = pageTables.computeIfAbsent(frame.processId, pid -> new PageTable(pageTableLevels));
+            if (!frame.isHugePage()) {
+                table.map(frame.pageNumber, i);
+            } else if (frame.hugeBaseFrame == i) {
+                table.mapHuge(frame.pageNumber, i);
+            }
+        }
+
+        if (in.readBoolean()) {
+            swapDevice = SwapDevice.readState(in);
+        }
+        swapAreaEnabled = in.readBoolean();
+        swapAreaStart = in.readInt();
+        swapAreaBlocks = in.readInt();
+        blocksPerPage = in.readInt();
+        if (tlb != null) {
+            tlb.flush();
+        }
+    }
 
     /**
      * Reinicia el gestor de memoria
@@ -278,7 +1127,29 @@ public class MemoryManager {
             frame.clear();
         }
         fifoQueue.clear();
+        pageTables.clear();
+        addressSpaces.clear();
+        if (tlb != null) {
+            tlb.reset();
+        }
+        if (swapDevice != null) {
+            swapDevice.reset();
+        }
+        if (writeBackDaemon != null) {
+            writeBackDaemon.reset();
+        }
+        if (prefetcher != null) {
+            prefetcher.reset();
+        }
         accessCounter = 0;
+        hugePageLoads = 0;
+        currentTime = 0;
+        dirtyEvictions = 0;
+        cleanEvictions = 0;
+        totalFaultServiceTime = 0;
+        lastFaultServiceTime = 0;
+        pendingSwapIns.clear();
+        servicedSwapIns = 0;
         pageFaults = 0;
         pageHits = 0;
     }
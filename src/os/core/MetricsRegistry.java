@@ -0,0 +1,114 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Registro de métricas incrementales. Los componentes obtienen sus
+ * contadores e histogramas una sola vez y los actualizan en el momento en
+ * que ocurre cada evento, de modo que consultar las métricas no requiere
+ * recorrer procesos terminados ni registros de acceso.
+ */
+public class MetricsRegistry {
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    private Map<String, Counter> counters;
+    private Map<String, Histogram> histograms;
+
+    /**
+     * Contador acumulativo
+     */
+    public static class Counter {
+        private long value;
+
+        public void increment() { value++; }
+        public void add(long amount) { value += amount; }
+        public long get() { return value; }
+        public void reset() { value = 0; }
+    }
+
+    /**
+     * Constructor del registro
+     */
+    public MetricsRegistry() {
+        this.counters = new LinkedHashMap<>();
+        this.histograms = new LinkedHashMap<>();
+    }
+
+    /**
+     * Obtiene (o crea) el contador con ese nombre
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * Obtiene (o crea) el histograma con ese nombre
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Valores actuales: cada contador por su nombre y, por cada histograma,
+     * nombre.count, nombre.mean, nombre.max y los percentiles nombre.p50,
+     * nombre.p99 y nombre.p999
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            metrics.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            String name = entry.getKey();
+            Histogram histogram = entry.getValue();
+            metrics.put(name + ".count", histogram.getCount());
+            metrics.put(name + ".mean", histogram.getMean());
+            metrics.put(name + ".max", histogram.getMax());
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                metrics.put(name + "." + PERCENTILE_NAMES[i], histogram.getValueAtPercentile(PERCENTILES[i]));
+            }
+        }
+        return metrics;
+    }
+
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(counters.size());
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeLong(entry.getValue().get());
+        }
+        out.writeInt(histograms.size());
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeState(out);
+        }
+    }
+
+    /**
+     * Carga valores guardados sobre los contadores e histogramas existentes,
+     * que los componentes ya tienen referenciados
+     */
+    void readState(Checkpoint.Input in) {
+        reset();
+        for (int i = in.readInt(); i > 0; i--) {
+            Counter counter = counter(in.readString());
+            counter.value = in.readLong();
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            histogram(in.readString()).readState(in);
+        }
+    }
+
+    /**
+     * Reinicia todos los contadores e histogramas (siguen registrados)
+     */
+    public void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+}
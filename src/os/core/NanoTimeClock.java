@@ -0,0 +1,12 @@
+package os.core;
+
+/**
+ * Reloj de tiempo real basado en System.nanoTime (monótono, en nanosegundos)
+ */
+public class NanoTimeClock implements Clock {
+    @Override
+    public long now() { return System.nanoTime(); }
+
+    @Override
+    public String getUnit() { return "ns"; }
+}
@@ -0,0 +1,340 @@
+package os.core;
+
+/**
+ * Tabla de páginas jerárquica (árbol radix de 2 o 3 niveles) de un proceso.
+ * Las tablas de los niveles inferiores sólo se crean cuando alguna página
+ * de su rango se mapea, y se liberan al quedar vacías, de modo que un
+ * espacio de direcciones grande y disperso no materializa niveles sin uso.
+ *
+ * Una página grande ocupa el rango completo de una tabla hoja: se mapea en
+ * la entrada del penúltimo nivel y apunta a marcos físicos contiguos.
+ */
+public class PageTable {
+    public static final int ENTRY_BYTES = 8;   // Tamaño de una entrada (PTE)
+
+    private int[] levelBits;          // Bits del número de página por nivel, de la raíz a las hojas
+    private int totalBits;
+    private Node root;
+    private int tableCount;           // Tablas materializadas (incluida la raíz)
+    private long footprintBytes;
+    private int mappedPages;          // Páginas base mapeadas
+    private int hugePages;            // Páginas grandes mapeadas
+    private long walks;               // Recorridos realizados
+    private long walkSteps;           // Accesos a memoria de todos los recorridos
+
+    /**
+     * Nodo del árbol. Los nodos internos usan children; el penúltimo nivel
+     * además guarda en hugeFrames los mapeos de páginas grandes; las hojas
+     * usan frames. Los marcos se guardan desplazados en 1 (0 = no presente).
+     */
+    private static class Node {
+        Node[] children;
+        int[] hugeFrames;
+        int[] frames;
+        int used;                     // Entradas presentes en este nodo
+    }
+
+    /**
+     * Constructor de la tabla
+     * @param levelBits bits por nivel (p. ej. {10, 10} o {11, 10, 10})
+     */
+    public PageTable(int... levelBits) {
+        if (levelBits.length < 2 || levelBits.length > 3) {
+            throw new IllegalArgumentException("Se admiten tablas de 2 o 3 niveles");
+        }
+        int bits = 0;
+        for (int b : levelBits) {
+            if (b <= 0) {
+                throw new IllegalArgumentException("Cada nivel necesita al menos un bit");
+            }
+            bits += b;
+        }
+        if (bits > 31) {
+            throw new IllegalArgumentException("El número de página admite como máximo 31 bits");
+        }
+        this.levelBits = levelBits.clone();
+        this.totalBits = bits;
+        this.root = newNode(0);
+    }
+
+    /**
+     * Recorre la tabla para traducir una página
+     * @return marco físico, o -1 si la página no está presente
+     */
+    public int lookup(int pageNumber) {
+        return resolve(pageNumber, true);
+    }
+
+    /**
+     * Indica si la página está mapeada, sin contabilizar un recorrido
+     */
+    public boolean isMapped(int pageNumber) {
+        return resolve(pageNumber, false) >= 0;
+    }
+
+    /**
+     * Indica si la página pertenece al espacio de direcciones de la tabla
+     */
+    public boolean isInRange(int pageNumber) {
+        return pageNumber >= 0 && (pageNumber >>> totalBits) == 0;
+    }
+
+    private int resolve(int pageNumber, boolean countWalk) {
+        checkPage(pageNumber);
+        if (countWalk) {
+            walks++;
+        }
+        Node node = root;
+        int last = levelBits.length - 1;
+        for (int level = 0; level < last; level++) {
+            if (countWalk) {
+                walkSteps++;
+            }
+            int index = indexAt(pageNumber, level);
+            if (level == last - 1 && node.hugeFrames != null && node.hugeFrames[index] != 0) {
+                return node.hugeFrames[index] - 1 + (pageNumber & (getHugePageSize() - 1));
+            }
+            node = node.children[index];
+            if (node == null) {
+                return -1;
+            }
+        }
+        if (countWalk) {
+            walkSteps++;
+        }
+        int frame = node.frames[indexAt(pageNumber, last)];
+        return frame - 1;
+    }
+
+    /**
+     * Mapea una página base a un marco
+     */
+    public void map(int pageNumber, int frameNumber) {
+        checkPage(pageNumber);
+        Node leaf = leafFor(pageNumber, true);
+        int index = indexAt(pageNumber, levelBits.length - 1);
+        if (leaf.frames[index] == 0) {
+            leaf.used++;
+            mappedPages++;
+        }
+        leaf.frames[index] = frameNumber + 1;
+    }
+
+    /**
+     * Elimina el mapeo de una página base, liberando las tablas vacías
+     */
+    public void unmap(int pageNumber) {
+        checkPage(pageNumber);
+        int last = levelBits.length - 1;
+        Node[] path = new Node[levelBits.length];
+        Node node = root;
+        for (int level = 0; level < last; level++) {
+            path[level] = node;
+            node = node.children[indexAt(pageNumber, level)];
+            if (node == null) {
+                return;
+            }
+        }
+        int index = indexAt(pageNumber, last);
+        if (node.frames[index] == 0) {
+            return;
+        }
+        node.frames[index] = 0;
+        node.used--;
+        mappedPages--;
+
+        // Podar hacia la raíz las tablas que quedaron vacías
+        for (int level = last - 1; level >= 0 && node.used == 0; level--) {
+            Node parent = path[level];
+            parent.children[indexAt(pageNumber, level)] = null;
+            parent.used--;
+            releaseNode(level + 1);
+            node = parent;
+        }
+    }
+
+    /**
+     * Indica si la región de página grande que contiene la página está libre
+     * (sin tabla hoja ni otra página grande), y por tanto puede mapearse
+     */
+    public boolean canMapHuge(int pageNumber) {
+        checkPage(pageNumber);
+        Node parent = hugeParentFor(pageNumber, false);
+        if (parent == null) {
+            return true;
+        }
+        int index = indexAt(pageNumber, levelBits.length - 2);
+        return parent.children[index] == null &&
+               (parent.hugeFrames == null || parent.hugeFrames[index] == 0);
+    }
+
+    /**
+     * Mapea la página grande que contiene la página a marcos contiguos
+     * @param baseFrame primer marco físico de la región
+     */
+    public void mapHuge(int pageNumber, int baseFrame) {
+        if (!canMapHuge(pageNumber)) {
+            throw new IllegalStateException("La región ya tiene páginas mapeadas");
+        }
+        Node parent = hugeParentFor(pageNumber, true);
+        if (parent.hugeFrames == null) {
+            parent.hugeFrames = new int[1 << levelBits[levelBits.length - 2]];
+        }
+        parent.hugeFrames[indexAt(pageNumber, levelBits.length - 2)] = baseFrame + 1;
+        parent.used++;
+        hugePages++;
+    }
+
+    /**
+     * Elimina el mapeo de la página grande que contiene la página
+     */
+    public void unmapHuge(int pageNumber) {
+        checkPage(pageNumber);
+        int hugeLevel = levelBits.length - 2;
+        Node[] path = new Node[levelBits.length];
+        Node node = root;
+        for (int level = 0; level < hugeLevel; level++) {
+            path[level] = node;
+            node = node.children[indexAt(pageNumber, level)];
+            if (node == null) {
+                return;
+            }
+        }
+        int index = indexAt(pageNumber, hugeLevel);
+        if (node.hugeFrames == null || node.hugeFrames[index] == 0) {
+            return;
+        }
+        node.hugeFrames[index] = 0;
+        node.used--;
+        hugePages--;
+
+        for (int level = hugeLevel - 1; level >= 0 && node.used == 0; level--) {
+            Node parent = path[level];
+            parent.children[indexAt(pageNumber, level)] = null;
+            parent.used--;
+            releaseNode(level + 1);
+            node = parent;
+        }
+    }
+
+    /**
+     * Indica si la página está cubierta por una página grande
+     */
+    public boolean isHuge(int pageNumber) {
+        Node parent = hugeParentFor(pageNumber, false);
+        if (parent == null || parent.hugeFrames == null) {
+            return false;
+        }
+        return parent.hugeFrames[indexAt(pageNumber, levelBits.length - 2)] != 0;
+    }
+
+    /**
+     * Obtiene (y opcionalmente crea) la tabla hoja de una página
+     */
+    private Node leafFor(int pageNumber, boolean create) {
+        Node node = root;
+        int last = levelBits.length - 1;
+        for (int level = 0; level < last; level++) {
+            int index = indexAt(pageNumber, level);
+            Node child = node.children[index];
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                if (level == last - 1 && node.hugeFrames != null && node.hugeFrames[index] != 0) {
+                    throw new IllegalStateException("La página pertenece a una página grande");
+                }
+                child = newNode(level + 1);
+                node.children[index] = child;
+                node.used++;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Obtiene (y opcionalmente crea) el nodo del penúltimo nivel de una página
+     */
+    private Node hugeParentFor(int pageNumber, boolean create) {
+        Node node = root;
+        for (int level = 0; level < levelBits.length - 2; level++) {
+            int index = indexAt(pageNumber, level);
+            Node child = node.children[index];
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = newNode(level + 1);
+                node.children[index] = child;
+                node.used++;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private Node newNode(int level) {
+        Node node = new Node();
+        int entries = 1 << levelBits[level];
+        if (level == levelBits.length - 1) {
+            node.frames = new int[entries];
+        } else {
+            node.children = new Node[entries];
+        }
+        tableCount++;
+        footprintBytes += (long) entries * ENTRY_BYTES;
+        return node;
+    }
+
+    private void releaseNode(int level) {
+        tableCount--;
+        footprintBytes -= (long) (1 << levelBits[level]) * ENTRY_BYTES;
+    }
+
+    private int indexAt(int pageNumber, int level) {
+        int shift = 0;
+        for (int l = levelBits.length - 1; l > level; l--) {
+            shift += levelBits[l];
+        }
+        return (pageNumber >>> shift) & ((1 << levelBits[level]) - 1);
+    }
+
+    private void checkPage(int pageNumber) {
+        if (!isInRange(pageNumber)) {
+            throw new IllegalArgumentException("Página fuera del espacio de direcciones: " + pageNumber);
+        }
+    }
+
+    /**
+     * Restablece los contadores de recorridos (al restaurar un checkpoint)
+     */
+    void restoreWalkCounters(long walks, long walkSteps) {
+        this.walks = walks;
+        this.walkSteps = walkSteps;
+    }
+
+    /**
+     * Páginas base que cubre una página grande (entradas de una tabla hoja)
+     */
+    public int getHugePageSize() {
+        return 1 << levelBits[levelBits.length - 1];
+    }
+
+    /**
+     * Promedio de accesos a memoria por recorrido de la tabla
+     */
+    public double getAverageWalkSteps() {
+        return walks > 0 ? (double) walkSteps / walks : 0.0;
+    }
+
+    // Getters
+    public int getLevels() { return levelBits.length; }
+    public int[] getLevelBits() { return levelBits.clone(); }
+    public int getTableCount() { return tableCount; }
+    public long getFootprintBytes() { return footprintBytes; }
+    public int getMappedPages() { return mappedPages; }
+    public int getHugePages() { return hugePages; }
+    public long getWalks() { return walks; }
+    public long getWalkSteps() { return walkSteps; }
+}
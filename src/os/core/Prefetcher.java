@@ -0,0 +1,154 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Prefetcher de páginas configurable. Ante un fallo propone páginas
+ * adicionales para cargar junto con la página pedida:
+ * - SEQUENTIAL: las siguientes páginas (lectura anticipada)
+ * - STRIDE: continúa el salto detectado entre los dos últimos fallos del proceso
+ * - DECLARED: las siguientes páginas del conjunto requiredPages declarado
+ *
+ * Lleva la cuenta de páginas anticipadas usadas y desperdiciadas para
+ * calcular precisión (usadas / emitidas) y cobertura (fallos evitados /
+ * fallos que habría sin prefetch).
+ */
+public class Prefetcher {
+    public enum Mode { SEQUENTIAL, STRIDE, DECLARED }
+
+    private Mode mode;
+    private int degree;                         // Páginas anticipadas por fallo
+    private boolean evictUnusedFirst;           // Desalojar antes las anticipadas sin usar
+    private Map<Integer, int[]> strideState;    // pid -> {última página con fallo, último salto}
+    private Map<Integer, int[]> declaredPages;  // pid -> páginas declaradas, ordenadas y sin repetir
+    private long issued;
+    private long used;
+    private long wasted;
+
+    /**
+     * Constructor del prefetcher
+     * @param degree número máximo de páginas anticipadas por fallo
+     */
+    public Prefetcher(Mode mode, int degree) {
+        if (degree <= 0) {
+            throw new IllegalArgumentException("degree debe ser positivo");
+        }
+        this.mode = mode;
+        this.degree = degree;
+        this.evictUnusedFirst = true;
+        this.strideState = new HashMap<>();
+        this.declaredPages = new HashMap<>();
+    }
+
+    /**
+     * Declara el conjunto de páginas que usará un proceso
+     */
+    public void declarePages(int processId, Collection<Integer> pages) {
+        int[] sorted = pages.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        declaredPages.put(processId, sorted);
+    }
+
+    /**
+     * Declara las requiredPages de un proceso
+     */
+    public void declareProcess(Process process) {
+        declarePages(process.getPid(), process.getRequiredPages());
+    }
+
+    /**
+     * Propone las páginas a anticipar tras un fallo en faultPage
+     */
+    int[] candidates(int processId, int faultPage) {
+        switch (mode) {
+            case SEQUENTIAL: {
+                int[] pages = new int[degree];
+                for (int i = 0; i < degree; i++) {
+                    pages[i] = faultPage + i + 1;
+                }
+                return pages;
+            }
+            case STRIDE: {
+                int[] state = strideState.get(processId);
+                int[] pages = new int[0];
+                if (state != null) {
+                    int stride = faultPage - state[0];
+                    // Sólo se anticipa cuando el mismo salto se repite
+                    if (stride != 0 && stride == state[1]) {
+                        pages = new int[degree];
+                        for (int i = 0; i < degree; i++) {
+                            pages[i] = faultPage + stride * (i + 1);
+                        }
+                    }
+                    state[1] = stride;
+                    state[0] = faultPage;
+                } else {
+                    strideState.put(processId, new int[]{faultPage, 0});
+                }
+                return pages;
+            }
+            default: {
+                int[] declared = declaredPages.get(processId);
+                if (declared == null || declared.length == 0) {
+                    return new int[0];
+                }
+                // Siguientes páginas declaradas después de la del fallo (circularmente)
+                int position = Arrays.binarySearch(declared, faultPage);
+                int start = position >= 0 ? position + 1 : -position - 1;
+                int count = Math.min(degree, declared.length - (position >= 0 ? 1 : 0));
+                int[] pages = new int[count];
+                for (int i = 0; i < count; i++) {
+                    pages[i] = declared[(start + i) % declared.length];
+                }
+                return pages;
+            }
+        }
+    }
+
+    void recordIssued() { issued++; }
+    void recordUsed() { used++; }
+    void recordWasted() { wasted++; }
+
+    /**
+     * Olvida el estado de un proceso terminado
+     */
+    public void forget(int processId) {
+        strideState.remove(processId);
+        declaredPages.remove(processId);
+    }
+
+    /**
+     * Precisión: porcentaje de páginas anticipadas que llegaron a usarse
+     */
+    public double getAccuracy() {
+        return issued > 0 ? (used * 100.0) / issued : 0.0;
+    }
+
+    /**
+     * Cobertura: porcentaje de los fallos que habría sin prefetch que se evitaron
+     * @param demandFaults fallos que sí ocurrieron
+     */
+    public double getCoverage(long demandFaults) {
+        long total = used + demandFaults;
+        return total > 0 ? (used * 100.0) / total : 0.0;
+    }
+
+    // Getters y setters
+    public Mode getMode() { return mode; }
+    public int getDegree() { return degree; }
+    public long getIssued() { return issued; }
+    public long getUsed() { return used; }
+    public long getWasted() { return wasted; }
+    public boolean isEvictUnusedFirst() { return evictUnusedFirst; }
+    public void setEvictUnusedFirst(boolean evictUnusedFirst) { this.evictUnusedFirst = evictUnusedFirst; }
+
+    /**
+     * Reinicia contadores y estado de todos los procesos
+     */
+    public void reset() {
+        strideState.clear();
+        declaredPages.clear();
+        issued = 0;
+        used = 0;
+        wasted = 0;
+    }
+}
@@ -6,19 +6,39 @@ import java.util.*;
  * Clase que representa un proceso en el simulador de Sistema Operativo
  */
 public class Process implements Comparable<Process> {
-    private int pid;                    // ID único del proceso
-    private String name;                // Nombre del proceso
-    private int priority;               // Prioridad (1-10, menor = más prioritario)
-    private int burstTime;              // Tiempo de CPU requerido
-    private int remainingTime;          // Tiempo restante de ejecución
-    private int arrivalTime;            // Tiempo de llegada
-    private int waitingTime;            // Tiempo de espera
-    private int turnaroundTime;         // Tiempo de retorno
-    private int completionTime;         // Tiempo de finalización
-    private ProcessState state;         // Estado actual del proceso
+    // Campos enteros del proceso. Toda la lógica los lee y escribe con
+    // field/setField, de modo que una vista (ProcessTable.Row) solo cambia
+    // dónde se guardan.
+    static final int PID = 0;                 // ID único del proceso
+    static final int PRIORITY = 1;            // Prioridad (1-10, menor = más prioritario)
+    static final int BURST_TIME = 2;          // Tiempo de CPU requerido
+    static final int REMAINING_TIME = 3;      // Tiempo restante de ejecución
+    static final int ARRIVAL_TIME = 4;        // Tiempo de llegada
+    static final int WAITING_TIME = 5;        // Tiempo de espera
+    static final int TURNAROUND_TIME = 6;     // Tiempo de retorno
+    static final int COMPLETION_TIME = 7;     // Tiempo de finalización
+    static final int START_TIME = 8;          // Primera vez que obtuvo la CPU (-1 = aún no)
+    static final int STATE = 9;               // Estado actual (ordinal de ProcessState)
+    static final int QUANTUM = 10;            // Quantum usado (para Round Robin)
+    static final int CONTEXT_SWITCHES = 11;   // Veces que entró a la CPU reemplazando a otro proceso
+    // Tarea de tiempo real: cada activación (trabajo) necesita BURST_TIME de CPU
+    static final int PERIOD = 12;             // Periodo o separación mínima entre activaciones (0 = no es de tiempo real)
+    static final int RELATIVE_DEADLINE = 13;  // Plazo de cada trabajo, contado desde su activación
+    static final int JOB_COUNT = 14;          // Trabajos de la tarea
+    static final int COMPLETED_JOBS = 15;
+    static final int ABSOLUTE_DEADLINE = 16;  // Plazo del trabajo actual
+    static final int BURST_INDEX = 17;        // Ráfaga en curso (impar = E/S)
+    static final int FIELD_COUNT = 18;
+
+    private static final ProcessState[] STATES = ProcessState.values();
+
+    private int[] fields;                // null en las vistas
+    private String name;                 // Nombre del proceso
     private List<Integer> requiredPages; // Páginas de memoria requeridas
-    private List<String> requiredFiles; // Archivos que necesita acceder
-    private int quantum;                // Quantum usado (para Round Robin)
+    private List<String> requiredFiles;  // Archivos que necesita acceder
+    private int[] releaseOffsets;        // Activaciones de una tarea esporádica, desde la llegada (null = periódica)
+    // Ráfagas alternadas CPU, E/S, CPU, ..., CPU (null = una sola ráfaga de CPU)
+    private int[] bursts;
     
     public enum ProcessState {
         NEW, READY, RUNNING, WAITING, TERMINATED
@@ -29,53 +49,277 @@ public class Process implements Comparable<Process> {
      */
     public Process(int pid, String name, int priority, int burstTime, 
                    int arrivalTime, List<Integer> requiredPages, List<String> requiredFiles) {
-        this.pid = pid;
+        this.fields = new int[FIELD_COUNT];
         this.name = name;
-        this.priority = priority;
-        this.burstTime = burstTime;
-        this.remainingTime = burstTime;
-        this.arrivalTime = arrivalTime;
-        this.waitingTime = 0;
-        this.turnaroundTime = 0;
-        this.completionTime = 0;
-        this.state = ProcessState.NEW;
         this.requiredPages = requiredPages != null ? new ArrayList<>(requiredPages) : new ArrayList<>();
         this.requiredFiles = requiredFiles != null ? new ArrayList<>(requiredFiles) : new ArrayList<>();
-        this.quantum = 0;
+        setField(PID, pid);
+        setField(PRIORITY, priority);
+        setField(BURST_TIME, burstTime);
+        setField(REMAINING_TIME, burstTime);
+        setField(ARRIVAL_TIME, arrivalTime);
+        setField(START_TIME, -1);
+        setState(ProcessState.NEW);
     }
     
+    /**
+     * Constructor para vistas que guardan sus datos fuera del objeto
+     * (p. ej. ProcessTable); deben sobrescribir los métodos de almacenamiento
+     * (field, setField, releaseOffsets, storeReleaseOffsets, burstCount,
+     * burst, storeBursts) y los datos no enteros (nombre, páginas, archivos)
+     */
+    protected Process() {
+    }
+
+    /**
+     * Copia independiente para simular la carga pendiente sin tocar el
+     * original: conserva todos los campos enteros (avance, ráfaga en curso,
+     * parámetros de tiempo real), las activaciones y las ráfagas, pero no
+     * las páginas ni los archivos
+     */
+    Process copyForTrial() {
+        Process copy = new Process(getPid(), getName(), getPriority(), getBurstTime(),
+                getArrivalTime(), null, null);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            copy.setField(field, field(field));
+        }
+        int[] offsets = releaseOffsets();
+        copy.storeReleaseOffsets(offsets != null ? offsets.clone() : null);
+        if (hasBursts()) {
+            copy.storeBursts(getBursts());
+        }
+        return copy;
+    }
+
+    // Almacenamiento: lo único que sobrescriben las vistas
+
+    int field(int field) {
+        return fields[field];
+    }
+
+    void setField(int field, int value) {
+        fields[field] = value;
+    }
+
+    int[] releaseOffsets() {
+        return releaseOffsets;
+    }
+
+    void storeReleaseOffsets(int[] releaseOffsets) {
+        this.releaseOffsets = releaseOffsets;
+    }
+
+    int burstCount() {
+        return bursts != null ? bursts.length : 0;
+    }
+
+    int burst(int index) {
+        return bursts[index];
+    }
+
+    void storeBursts(int[] bursts) {
+        this.bursts = bursts;
+    }
+
     /**
      * Ejecuta el proceso por un tiempo determinado
      * @param time Tiempo de ejecución
      * @return Tiempo realmente ejecutado
      */
     public int execute(int time) {
+        int remainingTime = getRemainingTime();
         int executedTime = Math.min(time, remainingTime);
-        remainingTime -= executedTime;
-        quantum += executedTime;
+        setField(REMAINING_TIME, remainingTime - executedTime);
+        setField(QUANTUM, getQuantum() + executedTime);
         
-        if (remainingTime == 0) {
-            state = ProcessState.TERMINATED;
+        if (remainingTime == executedTime) {
+            setState(ProcessState.TERMINATED);
         }
         
         return executedTime;
     }
     
+    /**
+     * Restablece el avance del proceso (al restaurar un checkpoint)
+     */
+    void restoreProgress(int remainingTime, int turnaroundTime, int quantum) {
+        setField(REMAINING_TIME, remainingTime);
+        setField(TURNAROUND_TIME, turnaroundTime);
+        setField(QUANTUM, quantum);
+    }
+
+    /**
+     * Cuenta un cambio de contexto hacia este proceso (lo llama el Scheduler)
+     */
+    void recordContextSwitch() {
+        setField(CONTEXT_SWITCHES, getContextSwitches() + 1);
+    }
+
+    /**
+     * Restablece los cambios de contexto (al restaurar un checkpoint)
+     */
+    void restoreContextSwitches(int contextSwitches) {
+        setField(CONTEXT_SWITCHES, contextSwitches);
+    }
+
+    /**
+     * Convierte el proceso en una tarea periódica: el trabajo k se activa en
+     * arrivalTime + k * period y debe terminar relativeDeadline ticks después
+     * @param jobs trabajos que ejecutará la tarea
+     */
+    public void setPeriodic(int period, int relativeDeadline, int jobs) {
+        if (period <= 0 || relativeDeadline <= 0 || jobs <= 0) {
+            throw new IllegalArgumentException("Parámetros de tarea periódica inválidos");
+        }
+        if (hasBursts()) {
+            throw new IllegalStateException("Una tarea de tiempo real no puede tener ráfagas de E/S");
+        }
+        restoreRealTime(period, relativeDeadline, jobs, null, 0, getArrivalTime() + relativeDeadline);
+    }
+
+    /**
+     * Convierte el proceso en una tarea esporádica con activaciones en los
+     * instantes dados (relativos a arrivalTime, el primero 0), separadas al
+     * menos minInterarrival ticks
+     */
+    public void setSporadic(int minInterarrival, int relativeDeadline, int[] releases) {
+        if (minInterarrival <= 0 || relativeDeadline <= 0 || releases.length == 0 || releases[0] != 0) {
+            throw new IllegalArgumentException("Parámetros de tarea esporádica inválidos");
+        }
+        if (hasBursts()) {
+            throw new IllegalStateException("Una tarea de tiempo real no puede tener ráfagas de E/S");
+        }
+        for (int i = 1; i < releases.length; i++) {
+            if (releases[i] - releases[i - 1] < minInterarrival) {
+                throw new IllegalArgumentException("Activaciones separadas menos de " + minInterarrival
+                        + " ticks: " + releases[i - 1] + ", " + releases[i]);
+            }
+        }
+        restoreRealTime(minInterarrival, relativeDeadline, releases.length, releases.clone(),
+                0, getArrivalTime() + relativeDeadline);
+    }
+
+    /**
+     * Instante de activación de un trabajo de la tarea
+     */
+    public int getReleaseTime(int job) {
+        int[] offsets = releaseOffsets();
+        return getArrivalTime() + (offsets != null ? offsets[job] : job * getPeriod());
+    }
+
+    /**
+     * Termina el trabajo actual
+     * @return true si la tarea tiene más trabajos
+     */
+    boolean finishJob() {
+        int completedJobs = getCompletedJobs() + 1;
+        setField(COMPLETED_JOBS, completedJobs);
+        return completedJobs < getJobCount();
+    }
+
+    /**
+     * Comienza el siguiente trabajo: restablece el tiempo restante y el plazo
+     */
+    void startNextJob() {
+        setAbsoluteDeadline(getReleaseTime(getCompletedJobs()) + getRelativeDeadline());
+        restoreProgress(getBurstTime(), getTurnaroundTime(), getQuantum());
+    }
+
+    void setAbsoluteDeadline(int absoluteDeadline) {
+        setField(ABSOLUTE_DEADLINE, absoluteDeadline);
+    }
+
+    /**
+     * Fija los parámetros y el avance de una tarea de tiempo real (también
+     * al restaurar un checkpoint)
+     * @param releaseOffsets activaciones desde arrivalTime, o null si es periódica
+     */
+    void restoreRealTime(int period, int relativeDeadline, int jobCount, int[] releaseOffsets,
+                         int completedJobs, int absoluteDeadline) {
+        setField(PERIOD, period);
+        setField(RELATIVE_DEADLINE, relativeDeadline);
+        setField(JOB_COUNT, jobCount);
+        storeReleaseOffsets(releaseOffsets);
+        setField(COMPLETED_JOBS, completedJobs);
+        setField(ABSOLUTE_DEADLINE, absoluteDeadline);
+    }
+
+    /**
+     * Define la secuencia de ráfagas del proceso: duraciones alternadas de
+     * CPU y de E/S, empezando y terminando en CPU (p. ej. {5, 20, 3}). El
+     * tiempo de ráfaga pasa a ser la suma de las ráfagas de CPU y el tiempo
+     * restante, el de la ráfaga de CPU en curso; durante cada ráfaga de E/S
+     * el Scheduler deja al proceso en WAITING.
+     */
+    public void setBursts(int[] bursts) {
+        if (bursts.length == 0 || bursts.length % 2 == 0) {
+            throw new IllegalArgumentException("Las ráfagas deben alternar CPU y E/S y terminar en CPU");
+        }
+        for (int burst : bursts) {
+            if (burst <= 0) {
+                throw new IllegalArgumentException("Ráfaga no positiva: " + Arrays.toString(bursts));
+            }
+        }
+        if (isRealTime() || getStartTime() >= 0) {
+            throw new IllegalStateException("Las ráfagas se definen antes de ejecutar el proceso");
+        }
+        restoreBursts(bursts.clone(), 0);
+        restoreProgress(bursts[0], getTurnaroundTime(), getQuantum());
+    }
+
+    /**
+     * Fija las ráfagas y la ráfaga en curso (también al restaurar un
+     * checkpoint); el tiempo de ráfaga pasa a ser la suma de las de CPU
+     */
+    void restoreBursts(int[] bursts, int burstIndex) {
+        storeBursts(bursts);
+        setBurstIndex(burstIndex);
+        int cpu = 0;
+        for (int i = 0; i < bursts.length; i += 2) {
+            cpu += bursts[i];
+        }
+        setField(BURST_TIME, cpu);
+    }
+
+    void setBurstIndex(int burstIndex) {
+        setField(BURST_INDEX, burstIndex);
+    }
+
+    /**
+     * Pasa de la ráfaga de CPU terminada a la siguiente de E/S
+     * @return duración de la ráfaga de E/S
+     */
+    int startIoBurst() {
+        int next = getBurstIndex() + 1;
+        setBurstIndex(next);
+        return getBurst(next);
+    }
+
+    /**
+     * Termina la ráfaga de E/S y empieza la siguiente de CPU
+     */
+    void finishIoBurst() {
+        int next = getBurstIndex() + 1;
+        setBurstIndex(next);
+        restoreProgress(getBurst(next), getTurnaroundTime(), getQuantum());
+    }
+
     /**
      * Verifica si el proceso ha terminado
      */
     public boolean isCompleted() {
-        return remainingTime == 0;
+        return getRemainingTime() == 0;
     }
     
     /**
      * Calcula las métricas del proceso
      */
     public void calculateMetrics(int currentTime) {
-        if (state == ProcessState.TERMINATED) {
-            this.completionTime = currentTime;
-            this.turnaroundTime = completionTime - arrivalTime;
-            this.waitingTime = turnaroundTime - burstTime;
+        if (getState() == ProcessState.TERMINATED) {
+            int turnaroundTime = currentTime - getArrivalTime();
+            setField(COMPLETION_TIME, currentTime);
+            setField(TURNAROUND_TIME, turnaroundTime);
+            setField(WAITING_TIME, turnaroundTime - getBurstTime() - getIoTime());
         }
     }
     
@@ -84,31 +328,88 @@ public class Process implements Comparable<Process> {
      */
     @Override
     public int compareTo(Process other) {
-        return Integer.compare(this.priority, other.priority);
+        return Integer.compare(this.getPriority(), other.getPriority());
     }
     
     // Getters y Setters
-    public int getPid() { return pid; }
+    public int getPid() { return field(PID); }
+
+    /**
+     * Proceso dueño del espacio de direcciones: el propio pid, salvo en los
+     * hilos (SimulatedThread), que devuelven el de su proceso
+     */
+    public int getProcessId() { return getPid(); }
+
     public String getName() { return name; }
-    public int getPriority() { return priority; }
-    public int getBurstTime() { return burstTime; }
-    public int getRemainingTime() { return remainingTime; }
-    public int getArrivalTime() { return arrivalTime; }
-    public int getWaitingTime() { return waitingTime; }
-    public int getTurnaroundTime() { return turnaroundTime; }
-    public int getCompletionTime() { return completionTime; }
-    public ProcessState getState() { return state; }
+    public int getPriority() { return field(PRIORITY); }
+    public int getBurstTime() { return field(BURST_TIME); }
+    public int getRemainingTime() { return field(REMAINING_TIME); }
+    public int getArrivalTime() { return field(ARRIVAL_TIME); }
+    public int getWaitingTime() { return field(WAITING_TIME); }
+    public int getTurnaroundTime() { return field(TURNAROUND_TIME); }
+    public int getCompletionTime() { return field(COMPLETION_TIME); }
+    public int getStartTime() { return field(START_TIME); }
+    public ProcessState getState() { return STATES[field(STATE)]; }
     public List<Integer> getRequiredPages() { return requiredPages; }
     public List<String> getRequiredFiles() { return requiredFiles; }
-    public int getQuantum() { return quantum; }
+    public int getQuantum() { return field(QUANTUM); }
+    public int getContextSwitches() { return field(CONTEXT_SWITCHES); }
+    public boolean isRealTime() { return getPeriod() > 0; }
+    public boolean isSporadic() { return releaseOffsets() != null; }
+    public int getPeriod() { return field(PERIOD); }
+    public int getRelativeDeadline() { return field(RELATIVE_DEADLINE); }
+    public int getJobCount() { return field(JOB_COUNT); }
+    public int getCompletedJobs() { return field(COMPLETED_JOBS); }
+    public int getAbsoluteDeadline() { return field(ABSOLUTE_DEADLINE); }
+    public int getBurstCount() { return burstCount(); }
+    public int getBurst(int index) { return burst(index); }
+    public int getBurstIndex() { return field(BURST_INDEX); }
+    public boolean hasBursts() { return getBurstCount() > 0; }
+    public boolean isInIoBurst() { return hasBursts() && (getBurstIndex() & 1) == 1; }
+    public boolean hasMoreBursts() { return getBurstIndex() + 1 < getBurstCount(); }
+
+    /**
+     * Ráfagas alternadas de CPU y E/S (copia), o null si tiene una sola de CPU
+     */
+    public int[] getBursts() {
+        if (!hasBursts()) {
+            return null;
+        }
+        int[] copy = new int[getBurstCount()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = getBurst(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Tiempo total de E/S de las ráfagas (0 si no tiene)
+     */
+    public int getIoTime() {
+        int io = 0;
+        for (int i = 1; i < getBurstCount(); i += 2) {
+            io += getBurst(i);
+        }
+        return io;
+    }
     
-    public void setState(ProcessState state) { this.state = state; }
-    public void setWaitingTime(int waitingTime) { this.waitingTime = waitingTime; }
-    public void setCompletionTime(int completionTime) { this.completionTime = completionTime; }
+    public void setState(ProcessState state) { setField(STATE, state.ordinal()); }
+    public void setWaitingTime(int waitingTime) { setField(WAITING_TIME, waitingTime); }
+    public void setCompletionTime(int completionTime) { setField(COMPLETION_TIME, completionTime); }
+    public void setStartTime(int startTime) { setField(START_TIME, startTime); }
+
+    /**
+     * Tiempo de respuesta: desde la llegada hasta la primera ejecución
+     * @return tiempo de respuesta, o -1 si aún no se ejecutó
+     */
+    public int getResponseTime() {
+        return getStartTime() >= 0 ? getStartTime() - getArrivalTime() : -1;
+    }
     
     @Override
     public String toString() {
         return String.format("P%d(%s) - Priority:%d, Burst:%d, Remaining:%d, State:%s", 
-                             pid, name, priority, burstTime, remainingTime, state);
+                             getPid(), getName(), getPriority(), getBurstTime(),
+                             getRemainingTime(), getState());
     }
 }
\ No newline at end of file
@@ -0,0 +1,369 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Tabla compacta de procesos para poblaciones grandes. Guarda cada campo en
+ * una columna de tipo primitivo; las páginas y archivos de todos los
+ * procesos se concatenan en arreglos int (formato CSR con desplazamientos)
+ * y los nombres de archivo se internan como identificadores enteros.
+ *
+ * Row es una vista ligera (flyweight) compatible con Process: el Scheduler,
+ * la GUI y las métricas la usan como cualquier proceso, pero lee y escribe
+ * directamente en las columnas.
+ */
+public class ProcessTable {
+    private int size;
+    // Una columna por campo entero de Process, indexada por sus constantes
+    private int[][] columns;
+    private Map<Integer, int[]> releaseOffsets;  // fila -> activaciones de una tarea esporádica
+    // Ráfagas CPU/E/S: las de la fila i ocupan burstData[burstStarts[i] .. + burstCounts[i])
+    private int[] burstStarts;
+    private int[] burstCounts;
+    private int[] burstData;
+    private int burstDataSize;
+    private int burstGarbage;               // Posiciones de burstData que ya no usa ninguna fila
+
+    // Páginas: las del proceso i ocupan pageData[pageOffsets[i] .. pageOffsets[i+1])
+    private int[] pageOffsets;
+    private int[] pageData;
+    // Archivos (identificadores internados), mismo formato
+    private int[] fileOffsets;
+    private int[] fileData;
+
+    private Map<String, Integer> fileIds;   // nombre -> identificador
+    private List<String> fileNames;         // identificador -> nombre
+
+    /**
+     * Vista de una fila de la tabla con la interfaz de Process. Solo
+     * sobrescribe el almacenamiento; la lógica es la de Process.
+     */
+    public class Row extends Process {
+        private int row;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        /**
+         * Reubica la vista sobre otra fila (para recorrer sin crear objetos)
+         */
+        public Row moveTo(int row) {
+            checkRow(row);
+            this.row = row;
+            return this;
+        }
+
+        public int getRow() { return row; }
+
+        @Override
+        int field(int field) {
+            return columns[field][row];
+        }
+
+        @Override
+        void setField(int field, int value) {
+            columns[field][row] = value;
+        }
+
+        @Override
+        int[] releaseOffsets() {
+            return releaseOffsets.get(row);
+        }
+
+        @Override
+        void storeReleaseOffsets(int[] offsets) {
+            if (offsets != null) {
+                releaseOffsets.put(row, offsets);
+            } else {
+                releaseOffsets.remove(row);
+            }
+        }
+
+        @Override
+        int burstCount() {
+            return burstCounts[row];
+        }
+
+        @Override
+        int burst(int index) {
+            Objects.checkIndex(index, burstCounts[row]);
+            return burstData[burstStarts[row] + index];
+        }
+
+        /**
+         * Reescribe el segmento de la fila si caben las ráfagas; si no, lo
+         * abandona y añade uno nuevo al final, compactando burstData cuando
+         * la mitad ya no se usa
+         */
+        @Override
+        void storeBursts(int[] bursts) {
+            int count = burstCounts[row];
+            if (bursts.length <= count) {
+                burstGarbage += count - bursts.length;
+            } else {
+                burstGarbage += count;
+                burstCounts[row] = 0;
+                if (burstGarbage > burstDataSize / 2) {
+                    compactBursts();
+                }
+                burstData = grow(burstData, burstDataSize + bursts.length);
+                burstStarts[row] = burstDataSize;
+                burstDataSize += bursts.length;
+            }
+            System.arraycopy(bursts, 0, burstData, burstStarts[row], bursts.length);
+            burstCounts[row] = bursts.length;
+        }
+
+        @Override public String getName() { return "P" + getPid(); }
+
+        /**
+         * Páginas requeridas, leídas directamente de la columna (sin copia)
+         */
+        @Override
+        public List<Integer> getRequiredPages() {
+            final int start = pageOffsets[row];
+            final int end = pageOffsets[row + 1];
+            return new AbstractList<Integer>() {
+                @Override public Integer get(int i) {
+                    Objects.checkIndex(i, end - start);
+                    return pageData[start + i];
+                }
+                @Override public int size() { return end - start; }
+            };
+        }
+
+        /**
+         * Archivos requeridos, traducidos desde sus identificadores internados
+         */
+        @Override
+        public List<String> getRequiredFiles() {
+            final int start = fileOffsets[row];
+            final int end = fileOffsets[row + 1];
+            return new AbstractList<String>() {
+                @Override public String get(int i) {
+                    Objects.checkIndex(i, end - start);
+                    return fileNames.get(fileData[start + i]);
+                }
+                @Override public int size() { return end - start; }
+            };
+        }
+    }
+
+    /**
+     * Constructor de la tabla
+     * @param initialCapacity procesos previstos
+     */
+    public ProcessTable(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.columns = new int[Process.FIELD_COUNT][capacity];
+        this.releaseOffsets = new HashMap<>();
+        this.burstStarts = new int[capacity];
+        this.burstCounts = new int[capacity];
+        this.burstData = new int[0];
+        this.pageOffsets = new int[capacity + 1];
+        this.pageData = new int[capacity * 4];
+        this.fileOffsets = new int[capacity + 1];
+        this.fileData = new int[capacity];
+        this.fileIds = new HashMap<>();
+        this.fileNames = new ArrayList<>();
+        this.size = 0;
+    }
+
+    /**
+     * Añade un proceso con sus datos ya en formato primitivo
+     * @param fileIdList identificadores obtenidos con internFile
+     * @return fila asignada
+     */
+    public int add(int pid, int priority, int burstTime, int arrivalTime,
+                   int[] pages, int[] fileIdList) {
+        ensureCapacity(size + 1);
+        int row = size;
+        columns[Process.PID][row] = pid;
+        columns[Process.PRIORITY][row] = priority;
+        columns[Process.BURST_TIME][row] = burstTime;
+        columns[Process.REMAINING_TIME][row] = burstTime;
+        columns[Process.ARRIVAL_TIME][row] = arrivalTime;
+        columns[Process.START_TIME][row] = -1;
+        columns[Process.STATE][row] = Process.ProcessState.NEW.ordinal();
+
+        int pageStart = pageOffsets[row];
+        pageData = grow(pageData, pageStart + pages.length);
+        System.arraycopy(pages, 0, pageData, pageStart, pages.length);
+        pageOffsets[row + 1] = pageStart + pages.length;
+
+        int fileStart = fileOffsets[row];
+        fileData = grow(fileData, fileStart + fileIdList.length);
+        for (int i = 0; i < fileIdList.length; i++) {
+            if (fileIdList[i] < 0 || fileIdList[i] >= fileNames.size()) {
+                throw new IllegalArgumentException("Identificador de archivo desconocido: " + fileIdList[i]);
+            }
+            fileData[fileStart + i] = fileIdList[i];
+        }
+        fileOffsets[row + 1] = fileStart + fileIdList.length;
+
+        size++;
+        return row;
+    }
+
+    /**
+     * Copia un proceso a la tabla (el objeto original puede descartarse)
+     * @return fila asignada
+     */
+    public int add(Process process) {
+        List<Integer> pageList = process.getRequiredPages();
+        int[] pages = new int[pageList.size()];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = pageList.get(i);
+        }
+        List<String> fileList = process.getRequiredFiles();
+        int[] files = new int[fileList.size()];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = internFile(fileList.get(i));
+        }
+        int row = add(process.getPid(), process.getPriority(), process.getBurstTime(),
+                process.getArrivalTime(), pages, files);
+        if (process.isRealTime()) {
+            int[] offsets = process.releaseOffsets();
+            new Row(row).restoreRealTime(process.getPeriod(), process.getRelativeDeadline(),
+                    process.getJobCount(), offsets != null ? offsets.clone() : null,
+                    process.getCompletedJobs(), process.getAbsoluteDeadline());
+        }
+        if (process.hasBursts()) {
+            Row view = new Row(row);
+            view.restoreBursts(process.getBursts(), process.getBurstIndex());
+            view.restoreProgress(process.getRemainingTime(), 0, 0);
+        }
+        return row;
+    }
+
+    /**
+     * Añade todos los procesos de una fuente (p. ej. un WorkloadGenerator)
+     */
+    public void addAll(Iterator<Process> source) {
+        while (source.hasNext()) {
+            add(source.next());
+        }
+    }
+
+    /**
+     * Obtiene el identificador de un nombre de archivo, registrándolo si es nuevo
+     */
+    public int internFile(String fileName) {
+        Integer id = fileIds.get(fileName);
+        if (id == null) {
+            id = fileNames.size();
+            fileIds.put(fileName, id);
+            fileNames.add(fileName);
+        }
+        return id;
+    }
+
+    /**
+     * Nombre del archivo con ese identificador
+     */
+    public String getFileName(int fileId) {
+        return fileNames.get(fileId);
+    }
+
+    /**
+     * Crea una vista sobre una fila
+     */
+    public Row get(int row) {
+        checkRow(row);
+        return new Row(row);
+    }
+
+    /**
+     * Recorre las filas en orden creando una vista por proceso; sirve como
+     * fuente de llegadas del Scheduler si la tabla está ordenada por llegada
+     */
+    public Iterator<Process> iterator() {
+        return new Iterator<Process>() {
+            private int next = 0;
+
+            @Override public boolean hasNext() { return next < size; }
+
+            @Override public Process next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return new Row(next++);
+            }
+        };
+    }
+
+    /**
+     * Páginas de una fila sin crear objetos (copia en dest, devuelve cantidad)
+     */
+    public int getPages(int row, int[] dest) {
+        checkRow(row);
+        int count = pageOffsets[row + 1] - pageOffsets[row];
+        System.arraycopy(pageData, pageOffsets[row], dest, 0, count);
+        return count;
+    }
+
+    public int getPageCount(int row) {
+        checkRow(row);
+        return pageOffsets[row + 1] - pageOffsets[row];
+    }
+
+    private void ensureCapacity(int needed) {
+        int current = burstStarts.length;
+        if (needed <= current) {
+            return;
+        }
+        int capacity = Math.max(needed, current + (current >> 1));
+        for (int f = 0; f < columns.length; f++) {
+            columns[f] = Arrays.copyOf(columns[f], capacity);
+        }
+        burstStarts = Arrays.copyOf(burstStarts, capacity);
+        burstCounts = Arrays.copyOf(burstCounts, capacity);
+        pageOffsets = Arrays.copyOf(pageOffsets, capacity + 1);
+        fileOffsets = Arrays.copyOf(fileOffsets, capacity + 1);
+    }
+
+    /**
+     * Copia los segmentos de ráfagas en uso al principio de un arreglo
+     * nuevo, descartando los abandonados
+     */
+    private void compactBursts() {
+        int[] compacted = new int[burstDataSize - burstGarbage];
+        int next = 0;
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(burstData, burstStarts[row], compacted, next, burstCounts[row]);
+            burstStarts[row] = next;
+            next += burstCounts[row];
+        }
+        burstData = compacted;
+        burstDataSize = next;
+        burstGarbage = 0;
+    }
+
+    private static int[] grow(int[] array, int needed) {
+        if (needed <= array.length) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(needed, array.length + (array.length >> 1)));
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Fila fuera de rango: " + row);
+        }
+    }
+
+    /**
+     * Memoria aproximada que ocupan las columnas, en bytes
+     */
+    public long getFootprintBytes() {
+        long columnBytes = (long) burstStarts.length * (Process.FIELD_COUNT + 2) * Integer.BYTES;
+        long offsets = (long) (pageOffsets.length + fileOffsets.length) * Integer.BYTES;
+        long data = (long) (pageData.length + fileData.length + burstData.length) * Integer.BYTES;
+        return columnBytes + offsets + data;
+    }
+
+    // Getters
+    public int size() { return size; }
+    public int getFileCount() { return fileNames.size(); }
+}
@@ -0,0 +1,167 @@
+package os.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * Ejecución grabada por SimulationRecorder: estado inicial, operaciones
+ * externas con su resultado y traza de referencia.
+ *
+ * Formato (big-endian):
+ *   cabecera: MAGIC (int), VERSION (short), indicadores (short),
+ *             longitud del contenido (int), CRC32 del contenido (int)
+ *   contenido: checkpoint inicial [longitud, bytes],
+ *              operaciones [número de enteros, enteros],
+ *              traza [eventos, (instante long, tipo, pid, argumento) por evento]
+ */
+public class Recording {
+    public static final int MAGIC = 0x4F535252;      // "OSRR"
+    public static final short VERSION = 12;
+    private static final int HEADER_BYTES = 16;
+    private static final short TRUNCATED_FLAG = 1;
+
+    private Checkpoint initialState;
+    private int[] commands;
+    private long[] timestamps;
+    private int[] trace;                  // tipo, pid, argumento por evento
+    private boolean traceTruncated;       // El tracer descartó eventos al grabar
+
+    Recording(Checkpoint initialState, int[] commands, long[] timestamps,
+              int[] trace, boolean traceTruncated) {
+        this.initialState = initialState;
+        this.commands = commands;
+        this.timestamps = timestamps;
+        this.trace = trace;
+        this.traceTruncated = traceTruncated;
+    }
+
+    /**
+     * Escribe la grabación en un archivo
+     */
+    public void write(Path path) throws IOException {
+        byte[] checkpoint = initialState.getPayload();
+        ByteBuffer payload = ByteBuffer.allocate(4 + checkpoint.length
+                + 4 + commands.length * 4
+                + 4 + timestamps.length * Tracer.RECORD_BYTES);
+        payload.putInt(checkpoint.length);
+        payload.put(checkpoint);
+        payload.putInt(commands.length);
+        for (int value : commands) {
+            payload.putInt(value);
+        }
+        payload.putInt(timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            payload.putLong(timestamps[i]);
+            payload.putInt(trace[i * 3]);
+            payload.putInt(trace[i * 3 + 1]);
+            payload.putInt(trace[i * 3 + 2]);
+        }
+        payload.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putShort(traceTruncated ? TRUNCATED_FLAG : 0);
+        header.putInt(payload.remaining());
+        header.putInt((int) crc.getValue());
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, payload};
+            while (header.hasRemaining() || payload.hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    /**
+     * Lee una grabación escrita con write
+     */
+    public static Recording read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("No es un archivo de grabación: " + path);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Versión de grabación no soportada: " + version);
+            }
+            boolean truncated = (header.getShort() & TRUNCATED_FLAG) != 0;
+            int length = header.getInt();
+            int expectedCrc = header.getInt();
+            if (length < 0 || length > channel.size() - HEADER_BYTES) {
+                throw new IOException("Grabación truncada: " + path);
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Grabación corrupta (CRC inválido): " + path);
+            }
+
+            try {
+                byte[] checkpoint = new byte[payload.getInt()];
+                payload.get(checkpoint);
+                int[] commands = new int[payload.getInt()];
+                for (int i = 0; i < commands.length; i++) {
+                    commands[i] = payload.getInt();
+                }
+                int events = payload.getInt();
+                long[] timestamps = new long[events];
+                int[] trace = new int[events * 3];
+                for (int i = 0; i < events; i++) {
+                    timestamps[i] = payload.getLong();
+                    trace[i * 3] = payload.getInt();
+                    trace[i * 3 + 1] = payload.getInt();
+                    trace[i * 3 + 2] = payload.getInt();
+                }
+                return new Recording(Checkpoint.fromPayload(checkpoint), commands,
+                        timestamps, trace, truncated);
+            } catch (RuntimeException e) {
+                throw new IOException("Grabación mal formada: " + path, e);
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Fin de archivo inesperado");
+            }
+        }
+        buffer.flip();
+    }
+
+    // Acceso para el Replayer
+    int[] getCommands() { return commands; }
+    long getTimestamp(int event) { return timestamps[event]; }
+    int getType(int event) { return trace[event * 3]; }
+    int getPid(int event) { return trace[event * 3 + 1]; }
+    int getArg(int event) { return trace[event * 3 + 2]; }
+
+    // Getters
+    public Checkpoint getInitialState() { return initialState; }
+    public int getEventCount() { return timestamps.length; }
+    public boolean isTraceTruncated() { return traceTruncated; }
+
+    /**
+     * Número de operaciones grabadas
+     */
+    public int getCommandCount() {
+        int count = 0;
+        for (int i = 0; i < commands.length; i += SimulationRecorder.length(commands, i)) {
+            count++;
+        }
+        return count;
+    }
+}
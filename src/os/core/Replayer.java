@@ -0,0 +1,140 @@
+package os.core;
+
+/**
+ * Reproduce una Recording a partir de su estado inicial y compara cada
+ * resultado y cada evento con los grabados. Sirve para reproducir un fallo
+ * paso a paso o para comprobar que una versión optimizada de un componente
+ * toma exactamente las mismas decisiones que la original.
+ */
+public class Replayer {
+
+    /**
+     * Resultado de una reproducción: el primer punto de divergencia, si lo hay
+     */
+    public static class Result {
+        private final int commandsReplayed;
+        private final int commandIndex;   // -1 si no hubo divergencia
+        private final int eventIndex;     // -1 si divergió el resultado de la operación
+        private final String expected;
+        private final String actual;
+
+        Result(int commandsReplayed, int commandIndex, int eventIndex, String expected, String actual) {
+            this.commandsReplayed = commandsReplayed;
+            this.commandIndex = commandIndex;
+            this.eventIndex = eventIndex;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public boolean isDiverged() { return commandIndex >= 0; }
+        public int getCommandsReplayed() { return commandsReplayed; }
+        public int getCommandIndex() { return commandIndex; }
+        public int getEventIndex() { return eventIndex; }
+        public String getExpected() { return expected; }
+        public String getActual() { return actual; }
+
+        @Override
+        public String toString() {
+            if (!isDiverged()) {
+                return String.format("Reproducción idéntica (%d operaciones)", commandsReplayed);
+            }
+            String where = eventIndex >= 0 ? "evento " + eventIndex : "resultado";
+            return String.format("Divergencia en la operación %d (%s): esperado %s, obtenido %s",
+                    commandIndex, where, expected, actual);
+        }
+    }
+
+    /**
+     * Reproduce sobre componentes nuevos creados desde el estado inicial
+     */
+    public static Result replay(Recording recording) {
+        Checkpoint.Fork fork = recording.getInitialState().fork();
+        return replay(recording, fork.getScheduler(), fork.getMemoryManager(), fork.getFileSystem());
+    }
+
+    /**
+     * Reproduce sobre componentes existentes (p. ej. una implementación
+     * alternativa ya conectada). Se restaura el estado inicial en ellos y,
+     * durante la reproducción, registran en un tracer propio; al terminar
+     * recuperan el tracer que tuvieran.
+     */
+    public static Result replay(Recording recording, Scheduler scheduler,
+                                MemoryManager memoryManager, FileSystem fileSystem) {
+        recording.getInitialState().restore(scheduler, memoryManager, fileSystem);
+
+        Tracer previousSchedulerTracer = scheduler.getTracer();
+        Tracer previousMemoryTracer = memoryManager.getTracer();
+        Tracer previousFileSystemTracer = fileSystem.getTracer();
+        // Un evento más que la referencia basta para detectar eventos sobrantes
+        Tracer tracer = new Tracer(recording.getEventCount() + 1, scheduler.getClock());
+        scheduler.setTracer(tracer);
+        memoryManager.setTracer(tracer);
+        fileSystem.setTracer(tracer);
+        try {
+            return run(recording, scheduler, memoryManager, fileSystem, tracer);
+        } finally {
+            scheduler.setTracer(previousSchedulerTracer);
+            memoryManager.setTracer(previousMemoryTracer);
+            fileSystem.setTracer(previousFileSystemTracer);
+        }
+    }
+
+    private static Result run(Recording recording, Scheduler scheduler, MemoryManager memoryManager,
+                              FileSystem fileSystem, Tracer tracer) {
+        int[] commands = recording.getCommands();
+        int expectedEvents = recording.getEventCount();
+        int checkedEvents = 0;
+        int commandIndex = 0;
+
+        for (int position = 0; position < commands.length; commandIndex++) {
+            int length = SimulationRecorder.length(commands, position);
+            int expectedResult = commands[position + length - 1];
+            int result = SimulationRecorder.apply(commands, position, scheduler, memoryManager, fileSystem);
+
+            // Eventos producidos por esta operación
+            int events = tracer.getEventCount();
+            for (; checkedEvents < events; checkedEvents++) {
+                if (checkedEvents >= expectedEvents) {
+                    if (recording.isTraceTruncated()) {
+                        break;
+                    }
+                    return new Result(commandIndex, commandIndex, checkedEvents,
+                            "fin de la traza", describe(tracer, checkedEvents));
+                }
+                if (!sameEvent(recording, tracer, checkedEvents)) {
+                    return new Result(commandIndex, commandIndex, checkedEvents,
+                            describe(recording, checkedEvents), describe(tracer, checkedEvents));
+                }
+            }
+            if (result != expectedResult) {
+                return new Result(commandIndex, commandIndex, -1,
+                        Integer.toString(expectedResult), Integer.toString(result));
+            }
+            position += length;
+        }
+
+        if (checkedEvents < expectedEvents) {
+            return new Result(commandIndex, commandIndex, checkedEvents,
+                    describe(recording, checkedEvents), "fin de la traza");
+        }
+        return new Result(commandIndex, -1, -1, null, null);
+    }
+
+    private static boolean sameEvent(Recording recording, Tracer tracer, int event) {
+        return recording.getTimestamp(event) == tracer.getTimestamp(event)
+                && recording.getType(event) == tracer.getType(event).ordinal()
+                && recording.getPid(event) == tracer.getPid(event)
+                && recording.getArg(event) == tracer.getArg(event);
+    }
+
+    private static String describe(Recording recording, int event) {
+        return String.format("%s(pid=%d, arg=%d) en t=%d",
+                Tracer.EventType.values()[recording.getType(event)],
+                recording.getPid(event), recording.getArg(event), recording.getTimestamp(event));
+    }
+
+    private static String describe(Tracer tracer, int event) {
+        return String.format("%s(pid=%d, arg=%d) en t=%d",
+                tracer.getType(event), tracer.getPid(event), tracer.getArg(event), tracer.getTimestamp(event));
+    }
+}
@@ -0,0 +1,169 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Pruebas de planificabilidad para tareas de tiempo real en una CPU. Cada
+ * tarea aporta su ráfaga C (burstTime), su periodo T (o separación mínima
+ * entre activaciones si es esporádica) y su plazo relativo D; los procesos
+ * que no son de tiempo real se ignoran. No se considera el costo de los
+ * cambios de contexto del Scheduler.
+ */
+public final class Schedulability {
+
+    private Schedulability() {
+    }
+
+    /**
+     * Utilización total: suma de C / T
+     */
+    public static double utilization(Collection<Process> tasks) {
+        double utilization = 0;
+        for (Process task : realTime(tasks)) {
+            utilization += (double) task.getBurstTime() / task.getPeriod();
+        }
+        return utilization;
+    }
+
+    /**
+     * Prueba exacta para EDF. Con plazos iguales o mayores que el periodo
+     * basta U <= 1; con plazos menores comprueba la demanda del procesador,
+     * dbf(t) <= t, en cada plazo absoluto hasta la cota de Baruah, Rosier y
+     * Howell (o hasta hiperperiodo + max D si U = 1).
+     * @throws ArithmeticException si U = 1 y el hiperperiodo no cabe en un long
+     */
+    public static boolean edf(Collection<Process> tasks) {
+        List<Process> list = realTime(tasks);
+        double utilization = utilization(list);
+        if (utilization > 1 + 1e-9) {
+            return false;
+        }
+        boolean constrained = false;
+        long maxDeadline = 0;
+        for (Process task : list) {
+            constrained |= task.getRelativeDeadline() < task.getPeriod();
+            maxDeadline = Math.max(maxDeadline, task.getRelativeDeadline());
+        }
+        if (!constrained) {
+            return true;
+        }
+
+        long bound;
+        if (utilization < 1 - 1e-9) {
+            double slack = 0;
+            for (Process task : list) {
+                slack += (task.getPeriod() - task.getRelativeDeadline())
+                        * ((double) task.getBurstTime() / task.getPeriod());
+            }
+            bound = Math.max(maxDeadline, (long) Math.ceil(slack / (1 - utilization)));
+        } else {
+            bound = hyperperiod(list) + maxDeadline;
+        }
+
+        for (Process task : list) {
+            for (long deadline = task.getRelativeDeadline(); deadline <= bound; deadline += task.getPeriod()) {
+                if (demand(list, deadline) > deadline) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cota suficiente de Liu y Layland para Rate-Monotonic:
+     * U <= n (2^(1/n) - 1), válida sólo si cada plazo es al menos el periodo
+     */
+    public static boolean rateMonotonicBound(Collection<Process> tasks) {
+        List<Process> list = realTime(tasks);
+        for (Process task : list) {
+            if (task.getRelativeDeadline() < task.getPeriod()) {
+                return false;
+            }
+        }
+        int n = list.size();
+        return n == 0 || utilization(list) <= n * (Math.pow(2, 1.0 / n) - 1) + 1e-9;
+    }
+
+    /**
+     * Prueba por análisis de tiempo de respuesta con prioridades
+     * Rate-Monotonic. Exacta si cada plazo es menor o igual que su periodo;
+     * con plazos mayores exige respuesta <= T y es sólo suficiente.
+     */
+    public static boolean rateMonotonic(Collection<Process> tasks) {
+        for (int response : responseTimes(tasks).values()) {
+            if (response < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Peor tiempo de respuesta de cada tarea con prioridades Rate-Monotonic
+     * (periodo más corto primero, empates por pid): menor punto fijo de
+     * R = C + suma de techo(R / Tj) Cj sobre las tareas más prioritarias
+     * @return pid -> tiempo de respuesta, o -1 si supera min(D, T)
+     */
+    public static Map<Integer, Integer> responseTimes(Collection<Process> tasks) {
+        List<Process> list = realTime(tasks);
+        list.sort(Comparator.comparingInt(Process::getPeriod).thenComparingInt(Process::getPid));
+        Map<Integer, Integer> responses = new LinkedHashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            Process task = list.get(i);
+            long limit = Math.min(task.getRelativeDeadline(), task.getPeriod());
+            long response = task.getBurstTime();
+            long previous = -1;
+            while (response != previous && response <= limit) {
+                previous = response;
+                response = task.getBurstTime();
+                for (int j = 0; j < i; j++) {
+                    Process higher = list.get(j);
+                    response += ((previous + higher.getPeriod() - 1) / higher.getPeriod()) * higher.getBurstTime();
+                }
+            }
+            responses.put(task.getPid(), response <= limit ? (int) response : -1);
+        }
+        return responses;
+    }
+
+    /**
+     * Demanda del procesador: ráfagas de los trabajos que se activan y
+     * vencen dentro de [0, t]
+     */
+    private static long demand(List<Process> tasks, long t) {
+        long demand = 0;
+        for (Process task : tasks) {
+            if (t >= task.getRelativeDeadline()) {
+                demand += ((t - task.getRelativeDeadline()) / task.getPeriod() + 1) * task.getBurstTime();
+            }
+        }
+        return demand;
+    }
+
+    private static long hyperperiod(List<Process> tasks) {
+        long lcm = 1;
+        for (Process task : tasks) {
+            long period = task.getPeriod();
+            long a = lcm;
+            long b = period;
+            while (b != 0) {
+                long r = a % b;
+                a = b;
+                b = r;
+            }
+            lcm = Math.multiplyExact(lcm / a, period);
+        }
+        return lcm;
+    }
+
+    private static List<Process> realTime(Collection<Process> tasks) {
+        List<Process> list = new ArrayList<>();
+        for (Process task : tasks) {
+            if (task.isRealTime()) {
+                list.add(task);
+            }
+        }
+        return list;
+    }
+}
@@ -5,34 +5,213 @@ import java.util.*;
 /**
  * Planificador de procesos con múltiples algoritmos
  */
-public class Scheduler implements FileSystemListener {
+public class Scheduler implements FileSystemListener, IoStallListener, IoCompletionListener,
+        SynchronizationListener {
     private Queue<Process> readyQueue;
     private List<Process> newProcesses;      // procesos no aún movidos a ready
+    private Iterator<Process> arrivalSource; // fuente perezosa de procesos en orden de llegada
+    private Process pendingArrival;          // siguiente proceso de la fuente, aún no llegado
     private List<Process> completedProcesses;
     private Map<Integer, Process> waitingProcessesByPid; // procesos en WAITING (bloqueados por I/O)
+    private TimerWheel timedWakeups;                      // despertares de esperas con duración conocida
+    private Map<Integer, Integer> stalledUntil;           // pid -> tick en que termina su espera temporizada
+    private Map<Integer, Integer> waitingIo;              // pid -> fuentes (disco, journal) cuya E/S aún espera
+    private TimerWheel jobReleases;                       // próxima activación de cada tarea de tiempo real inactiva
+    private Map<Integer, Process> idleTasks;              // tareas de tiempo real esperando su próxima activación
+    private final TimerWheel.Expiry wakeUp = this::wakeUp;
+    private final TimerWheel.Expiry releaseJob = this::releaseJob;
+    private int ioInFlight;                               // procesos en una ráfaga de E/S
     private Process currentProcess;
     private SchedulingAlgorithm algorithm;
     private int timeQuantum;  // Para Round Robin
-    private int currentTime;
+    private SimulatedClock clock;     // Reloj compartido: única fuente del tick actual
     private int currentQuantumUsed;
+    private int lastDispatchedPid;    // Último proceso que ocupó la CPU (-1 si ninguno)
+    private List<ContextSwitchListener> contextSwitchListeners;
+    private Tracer tracer;            // Registro opcional de eventos
+
+    // Costo de los cambios de contexto (0 = gratuitos)
+    private int contextSwitchCost;    // Ticks de núcleo para guardar y restaurar el contexto
+    private int cacheWarmupPenalty;   // Ticks máximos para recalentar caché y TLB
+    private int dispatchOverhead;     // Ticks de sobrecarga que le quedan al despacho actual
+    private long busyTicks;           // Ticks en que algún proceso avanzó
+    private Map<Integer, Long> cacheStamps; // pid -> busyTicks cuando dejó la CPU
+    private int tuningMinQuantum;     // Rango del ajuste automático del quantum (0 = desactivado)
+    private int tuningMaxQuantum;
+    private boolean quantumTuned;     // El ajuste automático ya se aplicó en esta simulación
+
+    // Métricas incrementales: se actualizan al despachar y al terminar cada proceso
+    private MetricsRegistry metricsRegistry;
+    private MetricsRegistry.Counter completedCount;
+    private MetricsRegistry.Counter completedBurstTime;
+    private Histogram waitingTimes;
+    private Histogram turnaroundTimes;
+    private Histogram responseTimes;
+    private MetricsRegistry.Counter contextSwitchCount;
+    private MetricsRegistry.Counter switchOverheadTicks;
+    private MetricsRegistry.Counter cacheWarmupTicks;
+    private MetricsRegistry.Counter completedSwitches;
+    private MetricsRegistry.Counter realTimeJobs;
+    private MetricsRegistry.Counter deadlineMisses;
+    private MetricsRegistry.Counter latenessSum;
+    private Histogram tardiness;
+    private Histogram jobResponseTimes;
+    private MetricsRegistry.Counter ioBursts;
+    private MetricsRegistry.Counter ioBurstTime;
+    private MetricsRegistry.Counter ioBusyTicks;      // Ticks con alguna ráfaga de E/S en curso
+    private MetricsRegistry.Counter overlapTicks;     // ... y además la CPU ocupada
 
     public enum SchedulingAlgorithm {
-        ROUND_ROBIN, SJF, PRIORITY
+        ROUND_ROBIN, SJF, PRIORITY,
+        EDF,              // Plazo absoluto más cercano primero (expropiativo)
+        RATE_MONOTONIC    // Periodo más corto primero (expropiativo)
     }
 
+    // Orden de las colas de tiempo real; los procesos que no son de tiempo
+    // real quedan detrás de todas las tareas, en orden de pid
+    private static final Comparator<Process> EDF_ORDER = Comparator
+            .comparingInt((Process p) -> p.isRealTime() ? p.getAbsoluteDeadline() : Integer.MAX_VALUE)
+            .thenComparingInt(Process::getPid);
+    private static final Comparator<Process> RATE_MONOTONIC_ORDER = Comparator
+            .comparingInt((Process p) -> p.isRealTime() ? p.getPeriod() : Integer.MAX_VALUE)
+            .thenComparingInt(Process::getPid);
+
+    // Ranuras de las ruedas de temporizadores: cubren las esperas habituales
+    // en una vuelta; las más largas esperan vueltas extra en su ranura
+    private static final int WHEEL_SLOTS = 256;
+
     /**
      * Constructor del planificador
      */
     public Scheduler(SchedulingAlgorithm algorithm, int timeQuantum) {
         this.algorithm = algorithm;
         this.timeQuantum = timeQuantum;
-        this.readyQueue = new LinkedList<>();
+        this.readyQueue = createReadyQueue(algorithm);
         this.newProcesses = new ArrayList<>();
         this.completedProcesses = new ArrayList<>();
         this.waitingProcessesByPid = new HashMap<>();
-        this.currentTime = 0;
+        this.timedWakeups = new TimerWheel(WHEEL_SLOTS);
+        this.stalledUntil = new HashMap<>();
+        this.waitingIo = new HashMap<>();
+        this.jobReleases = new TimerWheel(WHEEL_SLOTS);
+        this.idleTasks = new HashMap<>();
+        this.clock = new SimulatedClock();
         this.currentQuantumUsed = 0;
         this.currentProcess = null;
+        this.lastDispatchedPid = -1;
+        this.contextSwitchListeners = new ArrayList<>();
+        this.cacheStamps = new HashMap<>();
+        this.metricsRegistry = new MetricsRegistry();
+        this.completedCount = metricsRegistry.counter("completedProcesses");
+        this.completedBurstTime = metricsRegistry.counter("completedBurstTime");
+        this.waitingTimes = metricsRegistry.histogram("waitingTime");
+        this.turnaroundTimes = metricsRegistry.histogram("turnaroundTime");
+        this.responseTimes = metricsRegistry.histogram("responseTime");
+        this.contextSwitchCount = metricsRegistry.counter("contextSwitches");
+        this.switchOverheadTicks = metricsRegistry.counter("switchOverheadTicks");
+        this.cacheWarmupTicks = metricsRegistry.counter("cacheWarmupTicks");
+        this.completedSwitches = metricsRegistry.counter("completedContextSwitches");
+        this.realTimeJobs = metricsRegistry.counter("realTimeJobs");
+        this.deadlineMisses = metricsRegistry.counter("deadlineMisses");
+        this.latenessSum = metricsRegistry.counter("latenessSum");
+        this.tardiness = metricsRegistry.histogram("tardiness");
+        this.jobResponseTimes = metricsRegistry.histogram("jobResponseTime");
+        this.ioBursts = metricsRegistry.counter("ioBursts");
+        this.ioBurstTime = metricsRegistry.counter("ioBurstTime");
+        this.ioBusyTicks = metricsRegistry.counter("ioBusyTicks");
+        this.overlapTicks = metricsRegistry.counter("cpuIoOverlapTicks");
+    }
+
+    /**
+     * Cola de listos del algoritmo: FIFO (ordenada al insertar para SJF y
+     * prioridad) o montículo por plazo o periodo para EDF y RM, con
+     * inserción y extracción O(log n)
+     */
+    private static Queue<Process> createReadyQueue(SchedulingAlgorithm algorithm) {
+        switch (algorithm) {
+            case EDF:
+                return new PriorityQueue<>(EDF_ORDER);
+            case RATE_MONOTONIC:
+                return new PriorityQueue<>(RATE_MONOTONIC_ORDER);
+            default:
+                return new LinkedList<>();
+        }
+    }
+
+    /**
+     * Configura el costo de los cambios de contexto. Cada vez que la CPU pasa
+     * a otro proceso gasta switchCost ticks de núcleo; además, el proceso
+     * entrante recalienta caché y TLB durante tantos ticks como ejecutaron
+     * otros procesos desde que dejó la CPU, hasta cacheWarmupPenalty (la
+     * penalización completa si nunca se ejecutó). Durante esos ticks el
+     * proceso ocupa la CPU sin avanzar y sin gastar su quantum.
+     * @param switchCost ticks por cambio de contexto
+     * @param cacheWarmupPenalty ticks máximos de recalentamiento
+     */
+    public void setContextSwitchCost(int switchCost, int cacheWarmupPenalty) {
+        if (switchCost < 0 || cacheWarmupPenalty < 0) {
+            throw new IllegalArgumentException("Costos de cambio de contexto inválidos");
+        }
+        this.contextSwitchCost = switchCost;
+        this.cacheWarmupPenalty = cacheWarmupPenalty;
+        if (cacheWarmupPenalty == 0) {
+            cacheStamps.clear();
+        }
+    }
+
+    /**
+     * Activa el ajuste automático del quantum: en el primer paso de una
+     * simulación Round Robin se elige, con tuneQuantum, el mejor quantum del
+     * rango para los procesos ya añadidos (los que aún no entregó la fuente
+     * de llegadas no se consideran)
+     * @param minQuantum quantum mínimo (0, 0 para desactivar)
+     * @param maxQuantum quantum máximo
+     */
+    public void setQuantumTuning(int minQuantum, int maxQuantum) {
+        if (!(minQuantum == 0 && maxQuantum == 0) && (minQuantum < 1 || maxQuantum < minQuantum)) {
+            throw new IllegalArgumentException("Rango de quantum inválido: " + minQuantum + ".." + maxQuantum);
+        }
+        this.tuningMinQuantum = minQuantum;
+        this.tuningMaxQuantum = maxQuantum;
+    }
+
+    /**
+     * Busca el quantum de Round Robin que minimiza el tiempo de retorno
+     * medio de una carga con el costo de cambio de contexto configurado y lo
+     * fija. Simula la carga completa (sobre copias de los procesos con su
+     * avance, ráfagas de E/S y parámetros de tiempo real) una vez por
+     * quantum del rango; ante empates gana el quantum mayor, que cambia
+     * menos de contexto.
+     * @return quantum elegido
+     */
+    public int tuneQuantum(Collection<Process> workload, int minQuantum, int maxQuantum) {
+        if (minQuantum < 1 || maxQuantum < minQuantum) {
+            throw new IllegalArgumentException("Rango de quantum inválido: " + minQuantum + ".." + maxQuantum);
+        }
+        int best = minQuantum;
+        double bestTurnaround = Double.MAX_VALUE;
+        for (int quantum = minQuantum; quantum <= maxQuantum; quantum++) {
+            Scheduler trial = new Scheduler(SchedulingAlgorithm.ROUND_ROBIN, quantum);
+            trial.setContextSwitchCost(contextSwitchCost, cacheWarmupPenalty);
+            for (Process p : workload) {
+                trial.addProcess(p.copyForTrial());
+            }
+            trial.runComplete();
+            double turnaround = trial.turnaroundTimes.getMean();
+            if (turnaround <= bestTurnaround) {
+                bestTurnaround = turnaround;
+                best = quantum;
+            }
+        }
+        timeQuantum = best;
+        return best;
+    }
+
+    /**
+     * Registra un componente que debe enterarse de los cambios de contexto
+     */
+    public void addContextSwitchListener(ContextSwitchListener listener) {
+        contextSwitchListeners.add(listener);
     }
 
     /**
@@ -43,6 +222,16 @@ public class Scheduler implements FileSystemListener {
         newProcesses.add(process);
     }
 
+    /**
+     * Conecta una fuente de procesos ordenada por tiempo de llegada (p. ej. un
+     * WorkloadGenerator). Los procesos se consumen a medida que el reloj
+     * alcanza su arrivalTime, sin materializar la carga completa.
+     */
+    public void setArrivalSource(Iterator<Process> source) {
+        this.arrivalSource = source;
+        this.pendingArrival = null;
+    }
+
     /**
      * Añade procesos a la cola de listos según su tiempo de llegada
      */
@@ -50,12 +239,32 @@ public class Scheduler implements FileSystemListener {
         Iterator<Process> iterator = newProcesses.iterator();
         while (iterator.hasNext()) {
             Process p = iterator.next();
-            if (p.getArrivalTime() <= currentTime) {
+            if (p.getArrivalTime() <= getCurrentTime()) {
                 p.setState(Process.ProcessState.READY);
                 addToReadyQueue(p);
                 iterator.remove();
             }
         }
+
+        // Consumir de la fuente los procesos que ya llegaron
+        while (hasPendingArrivals()) {
+            if (pendingArrival == null) {
+                pendingArrival = arrivalSource.next();
+            }
+            if (pendingArrival.getArrivalTime() > getCurrentTime()) {
+                break;
+            }
+            pendingArrival.setState(Process.ProcessState.READY);
+            addToReadyQueue(pendingArrival);
+            pendingArrival = null;
+        }
+    }
+
+    /**
+     * Indica si la fuente de llegadas aún tiene procesos por entregar
+     */
+    private boolean hasPendingArrivals() {
+        return pendingArrival != null || (arrivalSource != null && arrivalSource.hasNext());
     }
 
     /**
@@ -75,7 +284,7 @@ public class Scheduler implements FileSystemListener {
             temp.sort(Comparator.comparingInt(Process::getRemainingTime));
             readyQueue = new LinkedList<>(temp);
         } else {
-            // Round Robin: simplemente añadir al final
+            // Round Robin: simplemente añadir al final; EDF y RM: montículo
             readyQueue.add(process);
         }
     }
@@ -93,8 +302,24 @@ public class Scheduler implements FileSystemListener {
      * @return true si hay procesos ejecutándose o por llegar
      */
     public boolean executeStep() {
-        // mover NEW -> READY según arrivalTime
+        // despertar procesos cuya E/S temporizada terminó y mover NEW -> READY según arrivalTime
+        releaseTimedWakeups();
+        releaseJobs();
         updateReadyQueue();
+        if (tuningMinQuantum > 0 && !quantumTuned && algorithm == SchedulingAlgorithm.ROUND_ROBIN) {
+            quantumTuned = true;
+            List<Process> workload = new ArrayList<>(newProcesses);
+            workload.addAll(readyQueue);
+            if (!workload.isEmpty()) {
+                tuneQuantum(workload, tuningMinQuantum, tuningMaxQuantum);
+            }
+        }
+
+        // EDF y RM expropian al proceso actual si llegó un trabajo más urgente
+        if (currentProcess != null && readyQueue instanceof PriorityQueue && !readyQueue.isEmpty()
+                && ((PriorityQueue<Process>) readyQueue).comparator().compare(readyQueue.peek(), currentProcess) < 0) {
+            preemptCurrent();
+        }
 
         // Si no hay proceso actual, seleccionar uno nuevo
         if (currentProcess == null || currentProcess.getState() == Process.ProcessState.TERMINATED) {
@@ -103,37 +328,67 @@ public class Scheduler implements FileSystemListener {
 
             if (currentProcess != null) {
                 currentProcess.setState(Process.ProcessState.RUNNING);
+                if (currentProcess.getStartTime() < 0) {
+                    currentProcess.setStartTime(getCurrentTime());
+                    responseTimes.record(Math.max(0, currentProcess.getResponseTime()));
+                }
+                if (tracer != null) {
+                    tracer.record(Tracer.EventType.DISPATCH, currentProcess.getPid(), 0);
+                }
+                dispatchOverhead = dispatchCost(currentProcess, dispatch(currentProcess));
             }
         }
 
         // Si hay proceso actual, ejecutarlo
         if (currentProcess != null) {
+            // Sobrecarga del despacho: la CPU está ocupada pero el proceso no avanza
+            if (dispatchOverhead > 0) {
+                dispatchOverhead--;
+                advanceTime(true);
+                return true;
+            }
+
             // Ejecutamos 1 unidad de tiempo
             currentProcess.execute(1);
             currentQuantumUsed++;
-            currentTime++;
+            busyTicks++;
+            advanceTime(true);
 
+            // Una tarea de tiempo real que termina un trabajo espera el siguiente
+            if (currentProcess.isCompleted() && currentProcess.isRealTime() && finishJob(currentProcess)) {
+                awaitNextJob(currentProcess);
+                currentProcess = null;
+            }
+            // Terminó una ráfaga de CPU y le sigue una de E/S
+            else if (currentProcess.isCompleted() && currentProcess.hasMoreBursts()) {
+                startIoBurst(currentProcess);
+                currentProcess = null;
+            }
             // Verificar si el proceso terminó
-            if (currentProcess.isCompleted()) {
+            else if (currentProcess.isCompleted()) {
                 currentProcess.setState(Process.ProcessState.TERMINATED);
-                currentProcess.calculateMetrics(currentTime);
+                currentProcess.calculateMetrics(getCurrentTime());
+                recordCompletion(currentProcess);
+                cacheStamps.remove(currentProcess.getPid());
+                if (tracer != null) {
+                    tracer.record(Tracer.EventType.EXIT, currentProcess.getPid(), 0);
+                }
                 completedProcesses.add(currentProcess);
                 currentProcess = null;
             }
             // Round Robin: verificar quantum
             else if (algorithm == SchedulingAlgorithm.ROUND_ROBIN &&
                      currentQuantumUsed >= timeQuantum) {
-                currentProcess.setState(Process.ProcessState.READY);
-                addToReadyQueue(currentProcess);
-                currentProcess = null;
+                preemptCurrent();
             }
 
             return true;
         }
 
         // Si no hay procesos listos pero quedan NEW por llegar o hay waiting processes
-        if (!newProcesses.isEmpty() || !waitingProcessesByPid.isEmpty()) {
-            currentTime++;
+        if (!newProcesses.isEmpty() || !waitingProcessesByPid.isEmpty() || !idleTasks.isEmpty()
+                || hasPendingArrivals()) {
+            advanceTime(false);
             // Podemos decidir avanzar tiempo aun si no hay proceso listo.
             return true;
         }
@@ -142,6 +397,199 @@ public class Scheduler implements FileSystemListener {
         return false;
     }
 
+    /**
+     * Devuelve el proceso actual a la cola de listos
+     */
+    private void preemptCurrent() {
+        if (tracer != null) {
+            tracer.record(Tracer.EventType.PREEMPT, currentProcess.getPid(), 0);
+        }
+        currentProcess.setState(Process.ProcessState.READY);
+        leaveCpu(currentProcess);
+        addToReadyQueue(currentProcess);
+        currentProcess = null;
+    }
+
+    /**
+     * Registra el trabajo terminado de una tarea de tiempo real: respuesta
+     * desde su activación y retraso respecto de su plazo
+     * @return true si la tarea tiene más trabajos
+     */
+    private boolean finishJob(Process task) {
+        int lateness = getCurrentTime() - task.getAbsoluteDeadline();
+        realTimeJobs.increment();
+        completedBurstTime.add(task.getBurstTime());
+        latenessSum.add(lateness);
+        tardiness.record(Math.max(0, lateness));
+        jobResponseTimes.record(getCurrentTime() - task.getReleaseTime(task.getCompletedJobs()));
+        if (lateness > 0) {
+            deadlineMisses.increment();
+            if (tracer != null) {
+                tracer.record(Tracer.EventType.DEADLINE_MISS, task.getPid(), lateness);
+            }
+        }
+        boolean more = task.finishJob();
+        if (more && tracer != null) {
+            tracer.record(Tracer.EventType.JOB_DONE, task.getPid(), task.getCompletedJobs());
+        }
+        return more;
+    }
+
+    /**
+     * Deja la tarea inactiva hasta la activación de su siguiente trabajo (o
+     * la vuelve a READY si esa activación ya pasó)
+     */
+    private void awaitNextJob(Process task) {
+        leaveCpu(task);
+        int release = task.getReleaseTime(task.getCompletedJobs());
+        if (release <= getCurrentTime()) {
+            startJob(task);
+        } else {
+            task.setState(Process.ProcessState.WAITING);
+            idleTasks.put(task.getPid(), task);
+            jobReleases.schedule(task.getPid(), release);
+        }
+    }
+
+    /**
+     * Deja al proceso en WAITING durante su siguiente ráfaga de E/S; la
+     * rueda de temporizadores lo devuelve a READY al terminarla
+     */
+    private void startIoBurst(Process process) {
+        leaveCpu(process);
+        int duration = process.startIoBurst();
+        process.setState(Process.ProcessState.WAITING);
+        waitingProcessesByPid.put(process.getPid(), process);
+        stalledUntil.put(process.getPid(), getCurrentTime() + duration);
+        timedWakeups.schedule(process.getPid(), getCurrentTime() + duration);
+        ioInFlight++;
+        ioBursts.increment();
+        ioBurstTime.add(duration);
+        if (tracer != null) {
+            tracer.record(Tracer.EventType.BLOCK, process.getPid(), duration);
+        }
+    }
+
+    /**
+     * Activa las tareas de tiempo real cuyo siguiente trabajo ya llegó
+     */
+    private void releaseJobs() {
+        jobReleases.advance(getCurrentTime(), releaseJob);
+    }
+
+    private void releaseJob(int pid, int release) {
+        Process task = idleTasks.remove(pid);
+        if (task != null) {
+            startJob(task);
+        }
+    }
+
+    private void startJob(Process task) {
+        task.startNextJob();
+        task.setState(Process.ProcessState.READY);
+        if (tracer != null) {
+            tracer.record(Tracer.EventType.RELEASE, task.getPid(), task.getCompletedJobs());
+        }
+        addToReadyQueue(task);
+    }
+
+    /**
+     * Avanza un tick el tiempo del planificador y su reloj, contando si la
+     * E/S en curso se solapó con la CPU ocupada
+     */
+    private void advanceTime(boolean cpuBusy) {
+        if (ioInFlight > 0) {
+            ioBusyTicks.increment();
+            if (cpuBusy) {
+                overlapTicks.increment();
+            }
+        }
+        clock.advance(1);
+    }
+
+    /**
+     * Devuelve a READY los procesos cuyo tiempo de espera se cumplió
+     */
+    private void releaseTimedWakeups() {
+        timedWakeups.advance(getCurrentTime(), wakeUp);
+    }
+
+    private void wakeUp(int pid, int wakeTime) {
+        // Ignorar despertares obsoletos (el proceso ya salió de esa espera)
+        if (!stalledUntil.remove(pid, wakeTime)) {
+            return;
+        }
+        Process p = waitingProcessesByPid.remove(pid);
+        if (p != null) {
+            if (p.isInIoBurst()) {
+                p.finishIoBurst();
+                ioInFlight--;
+            }
+            if (tracer != null) {
+                tracer.record(Tracer.EventType.UNBLOCK, p.getPid(), 0);
+            }
+            p.setState(Process.ProcessState.READY);
+            addToReadyQueue(p);
+        }
+    }
+
+    /**
+     * Indica si hay procesos esperando una E/S temporizada o del disco, o
+     * tareas esperando su próxima activación (no pueden estar en deadlock:
+     * volverán solos a READY)
+     */
+    public boolean hasTimedWaits() {
+        return !stalledUntil.isEmpty() || !waitingIo.isEmpty() || !idleTasks.isEmpty();
+    }
+
+    /**
+     * Notifica el cambio de contexto si el proceso despachado es distinto
+     * @return true si hubo cambio de contexto
+     */
+    private boolean dispatch(Process process) {
+        int previousPid = lastDispatchedPid;
+        if (previousPid == process.getPid()) {
+            return false;
+        }
+        lastDispatchedPid = process.getPid();
+        for (ContextSwitchListener listener : contextSwitchListeners) {
+            listener.contextSwitched(previousPid, lastDispatchedPid);
+        }
+        return true;
+    }
+
+    /**
+     * Cuenta el cambio de contexto y calcula la sobrecarga del despacho
+     * @return ticks de sobrecarga (cambio de contexto más recalentamiento)
+     */
+    private int dispatchCost(Process process, boolean switched) {
+        int cost = 0;
+        if (switched) {
+            process.recordContextSwitch();
+            contextSwitchCount.increment();
+            switchOverheadTicks.add(contextSwitchCost);
+            cost += contextSwitchCost;
+        }
+        if (cacheWarmupPenalty > 0) {
+            Long stamp = cacheStamps.remove(process.getPid());
+            int warmup = stamp == null ? cacheWarmupPenalty
+                    : (int) Math.min(cacheWarmupPenalty, busyTicks - stamp);
+            cacheWarmupTicks.add(warmup);
+            cost += warmup;
+        }
+        return cost;
+    }
+
+    /**
+     * Recuerda cuánto había ejecutado la CPU cuando el proceso la dejó, para
+     * estimar cuánto se enfrió su caché
+     */
+    private void leaveCpu(Process process) {
+        if (cacheWarmupPenalty > 0) {
+            cacheStamps.put(process.getPid(), busyTicks);
+        }
+    }
+
     /**
      * Ejecuta la simulación completa
      */
@@ -152,44 +600,77 @@ public class Scheduler implements FileSystemListener {
     }
 
     /**
-     * Obtiene las métricas de todos los procesos completados
+     * Actualiza las métricas acumuladas con un proceso que acaba de terminar
+     */
+    private void recordCompletion(Process process) {
+        completedCount.increment();
+        completedSwitches.add(process.getContextSwitches());
+        if (process.isRealTime()) {
+            // Su ráfaga y sus tiempos se contaron por trabajo en finishJob
+            return;
+        }
+        completedBurstTime.add(process.getBurstTime());
+        waitingTimes.record(Math.max(0, process.getWaitingTime()));
+        turnaroundTimes.record(Math.max(0, process.getTurnaroundTime()));
+    }
+
+    /**
+     * Obtiene las métricas de todos los procesos completados, a partir de
+     * los acumulados (sin recorrer los procesos)
      */
     public Map<String, Double> getMetrics() {
-        List<Process> completed = getCompletedProcesses();
+        long completed = completedCount.get();
+        long jobs = realTimeJobs.get();
+        int currentTime = getCurrentTime();
 
-        if (completed.isEmpty()) {
+        if (completed == 0 && jobs == 0) {
             return new HashMap<>();
         }
 
-        double avgWaitingTime = completed.stream()
-                .mapToInt(Process::getWaitingTime)
-                .average()
-                .orElse(0.0);
-
-        double avgTurnaroundTime = completed.stream()
-                .mapToInt(Process::getTurnaroundTime)
-                .average()
-                .orElse(0.0);
-
-        double cpuUtilization = calculateCPUUtilization(completed);
-
         Map<String, Double> metrics = new HashMap<>();
-        metrics.put("avgWaitingTime", avgWaitingTime);
-        metrics.put("avgTurnaroundTime", avgTurnaroundTime);
-        metrics.put("cpuUtilization", cpuUtilization);
-        metrics.put("throughput", (double) completed.size() / Math.max(1, currentTime));
+        metrics.put("avgWaitingTime", waitingTimes.getMean());
+        metrics.put("avgTurnaroundTime", turnaroundTimes.getMean());
+        metrics.put("avgResponseTime", responseTimes.getMean());
+        metrics.put("cpuUtilization", currentTime > 0 ?
+                (completedBurstTime.get() * 100.0) / currentTime : 0.0);
+        metrics.put("throughput", (double) completed / Math.max(1, currentTime));
+        metrics.put("contextSwitches", (double) contextSwitchCount.get());
+        metrics.put("avgContextSwitches", completed > 0 ? (double) completedSwitches.get() / completed : 0.0);
+        metrics.put("switchOverheadTicks", (double) switchOverheadTicks.get());
+        metrics.put("cacheWarmupTicks", (double) cacheWarmupTicks.get());
+        metrics.put("dispatchOverhead", currentTime > 0 ?
+                ((switchOverheadTicks.get() + cacheWarmupTicks.get()) * 100.0) / currentTime : 0.0);
+        if (ioBursts.get() > 0) {
+            // Solapamiento: ticks con E/S en curso mientras la CPU trabajaba
+            metrics.put("ioBursts", (double) ioBursts.get());
+            metrics.put("ioBurstTime", (double) ioBurstTime.get());
+            metrics.put("ioUtilization", currentTime > 0 ? (ioBusyTicks.get() * 100.0) / currentTime : 0.0);
+            metrics.put("cpuIoOverlap", currentTime > 0 ? (overlapTicks.get() * 100.0) / currentTime : 0.0);
+            metrics.put("ioOverlapRatio", ioBusyTicks.get() > 0 ?
+                    (overlapTicks.get() * 100.0) / ioBusyTicks.get() : 0.0);
+        }
+        putPercentiles(metrics, "waitingTime", waitingTimes);
+        putPercentiles(metrics, "turnaroundTime", turnaroundTimes);
+        putPercentiles(metrics, "responseTime", responseTimes);
+
+        if (jobs > 0) {
+            metrics.put("realTimeJobs", (double) jobs);
+            metrics.put("deadlineMisses", (double) deadlineMisses.get());
+            metrics.put("deadlineMissRatio", (deadlineMisses.get() * 100.0) / jobs);
+            metrics.put("avgLateness", (double) latenessSum.get() / jobs);
+            metrics.put("maxTardiness", (double) tardiness.getMax());
+            metrics.put("tardinessP99", (double) tardiness.getValueAtPercentile(99.0));
+            metrics.put("avgJobResponseTime", jobResponseTimes.getMean());
+            metrics.put("jobResponseTimeP99", (double) jobResponseTimes.getValueAtPercentile(99.0));
+        }
 
         return metrics;
     }
 
-    /**
-     * Calcula la utilización de CPU
-     */
-    private double calculateCPUUtilization(List<Process> completed) {
-        int totalBurstTime = completed.stream()
-                .mapToInt(Process::getBurstTime)
-                .sum();
-        return currentTime > 0 ? (totalBurstTime * 100.0) / currentTime : 0.0;
+    private static void putPercentiles(Map<String, Double> metrics, String name, Histogram histogram) {
+        metrics.put(name + "P50", (double) histogram.getValueAtPercentile(50.0));
+        metrics.put(name + "P99", (double) histogram.getValueAtPercentile(99.0));
+        metrics.put(name + "P999", (double) histogram.getValueAtPercentile(99.9));
     }
 
     /**
@@ -207,33 +688,178 @@ public class Scheduler implements FileSystemListener {
     }
 
     /**
-     * Obtener procesos en estado WAITING (bloqueados por I/O)
+     * Obtener procesos en estado WAITING (bloqueados por I/O o tareas de
+     * tiempo real entre dos trabajos)
      */
     public List<Process> getWaitingProcesses() {
-        return new ArrayList<>(waitingProcessesByPid.values());
+        List<Process> waiting = new ArrayList<>(waitingProcessesByPid.values());
+        waiting.addAll(idleTasks.values());
+        return waiting;
     }
 
     // Getters
     public Process getCurrentProcess() { return currentProcess; }
-    public int getCurrentTime() { return currentTime; }
+    public int getCurrentTime() { return (int) clock.now(); }
     public SchedulingAlgorithm getAlgorithm() { return algorithm; }
     public int getTimeQuantum() { return timeQuantum; }
+    public int getContextSwitchCost() { return contextSwitchCost; }
+    public int getCacheWarmupPenalty() { return cacheWarmupPenalty; }
+    public long getContextSwitches() { return contextSwitchCount.get(); }
+    public MetricsRegistry getMetricsRegistry() { return metricsRegistry; }
+    public Tracer getTracer() { return tracer; }
+
+    /**
+     * Reloj en ticks del planificador, para compartir con FileSystem,
+     * MemoryManager y Tracer
+     */
+    public SimulatedClock getClock() { return clock; }
 
     // Setters
-    public void setAlgorithm(SchedulingAlgorithm algorithm) { this.algorithm = algorithm; }
+    /**
+     * Cambia el algoritmo; la cola de listos se reconstruye si cambia de tipo
+     */
+    public void setAlgorithm(SchedulingAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        Queue<Process> ready = readyQueue;
+        readyQueue = createReadyQueue(algorithm);
+        readyQueue.addAll(ready);
+    }
+
     public void setTimeQuantum(int timeQuantum) { this.timeQuantum = timeQuantum; }
 
+    /**
+     * Registra despachos, expropiaciones, bloqueos y desbloqueos (null para desactivar)
+     */
+    public void setTracer(Tracer tracer) { this.tracer = tracer; }
+
     /**
      * Reinicia el planificador
      */
     public void reset() {
         readyQueue.clear();
         newProcesses.clear();
+        arrivalSource = null;
+        pendingArrival = null;
         completedProcesses.clear();
         waitingProcessesByPid.clear();
-        currentTime = 0;
+        timedWakeups.clear();
+        stalledUntil.clear();
+        waitingIo.clear();
+        jobReleases.clear();
+        idleTasks.clear();
+        ioInFlight = 0;
+        clock.restore(0);
         currentProcess = null;
         currentQuantumUsed = 0;
+        lastDispatchedPid = -1;
+        dispatchOverhead = 0;
+        busyTicks = 0;
+        cacheStamps.clear();
+        quantumTuned = false;
+        metricsRegistry.reset();
+    }
+
+    /**
+     * Guarda el estado del planificador (ver Checkpoint). La fuente de
+     * llegadas no se guarda; el proceso pendiente de ella sí, como NEW.
+     */
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(algorithm.ordinal());
+        out.writeInt(timeQuantum);
+        out.writeInt(getCurrentTime());
+        out.writeInt(currentQuantumUsed);
+        out.writeInt(lastDispatchedPid);
+        out.writeInt(contextSwitchCost);
+        out.writeInt(cacheWarmupPenalty);
+        out.writeInt(dispatchOverhead);
+        out.writeLong(busyTicks);
+        out.writeInt(tuningMinQuantum);
+        out.writeInt(tuningMaxQuantum);
+        out.writeBoolean(quantumTuned);
+
+        List<Process> pending = new ArrayList<>(newProcesses);
+        if (pendingArrival != null) {
+            pending.add(pendingArrival);
+        }
+        out.writeProcesses(pending);
+        out.writeProcesses(readyQueue);
+        out.writeBoolean(currentProcess != null);
+        if (currentProcess != null) {
+            out.writeProcess(currentProcess);
+        }
+        out.writeProcesses(waitingProcessesByPid.values());
+        out.writeProcesses(idleTasks.values());
+        out.writeProcesses(completedProcesses);
+
+        out.writeInt(stalledUntil.size());
+        for (Map.Entry<Integer, Integer> entry : stalledUntil.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        timedWakeups.writeState(out);
+        jobReleases.writeState(out);
+        out.writeInt(ioInFlight);
+        out.writeInt(waitingIo.size());
+        for (Map.Entry<Integer, Integer> entry : waitingIo.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        out.writeInt(cacheStamps.size());
+        for (Map.Entry<Integer, Long> entry : cacheStamps.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        metricsRegistry.writeState(out);
+    }
+
+    /**
+     * Reemplaza el estado por el guardado; listeners y tracer se conservan
+     * y la fuente de llegadas queda desconectada
+     */
+    void readState(Checkpoint.Input in) {
+        reset();
+        algorithm = SchedulingAlgorithm.values()[in.readInt()];
+        readyQueue = createReadyQueue(algorithm);
+        timeQuantum = in.readInt();
+        clock.restore(in.readInt());
+        currentQuantumUsed = in.readInt();
+        lastDispatchedPid = in.readInt();
+        contextSwitchCost = in.readInt();
+        cacheWarmupPenalty = in.readInt();
+        dispatchOverhead = in.readInt();
+        busyTicks = in.readLong();
+        tuningMinQuantum = in.readInt();
+        tuningMaxQuantum = in.readInt();
+        quantumTuned = in.readBoolean();
+
+        newProcesses.addAll(in.readProcesses());
+        readyQueue.addAll(in.readProcesses());
+        if (in.readBoolean()) {
+            currentProcess = in.readProcess();
+        }
+        for (Process p : in.readProcesses()) {
+            waitingProcessesByPid.put(p.getPid(), p);
+        }
+        for (Process task : in.readProcesses()) {
+            idleTasks.put(task.getPid(), task);
+        }
+        completedProcesses.addAll(in.readProcesses());
+
+        for (int i = in.readInt(); i > 0; i--) {
+            int pid = in.readInt();
+            int wakeTime = in.readInt();
+            stalledUntil.put(pid, wakeTime);
+        }
+        timedWakeups.readState(in);
+        jobReleases.readState(in);
+        ioInFlight = in.readInt();
+        for (int i = in.readInt(); i > 0; i--) {
+            waitingIo.put(in.readInt(), in.readInt());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            cacheStamps.put(in.readInt(), in.readLong());
+        }
+        metricsRegistry.readState(in);
     }
 
     /**
@@ -243,6 +869,79 @@ public class Scheduler implements FileSystemListener {
      */
     @Override
     public void processBlocked(int pid, String fileName) {
+        if (moveToWaiting(pid) != null && tracer != null) {
+            tracer.record(Tracer.EventType.BLOCK, pid, 0);
+        }
+    }
+
+    /**
+     * IoStallListener callback: el proceso queda en WAITING durante ticks
+     * unidades (p. ej. atención de un fallo de página) y luego vuelve a READY.
+     */
+    @Override
+    public void processStalled(int pid, int ticks) {
+        if (moveToWaiting(pid) != null) {
+            if (tracer != null) {
+                tracer.record(Tracer.EventType.BLOCK, pid, ticks);
+            }
+            stalledUntil.put(pid, getCurrentTime() + ticks);
+            timedWakeups.schedule(pid, getCurrentTime() + ticks);
+        }
+    }
+
+    /**
+     * IoCompletionListener callback: el proceso espera peticiones del disco
+     * o la confirmación de su grupo en el journal, cuya duración depende de
+     * la cola; vuelve a READY cuando terminan las esperas de todas las fuentes.
+     */
+    @Override
+    public void processWaitingIo(int pid) {
+        Integer sources = waitingIo.get(pid);
+        if (sources != null) {
+            // Ya bloqueado por otra fuente: espera también a ésta
+            waitingIo.put(pid, sources + 1);
+        } else if (moveToWaiting(pid) != null) {
+            if (tracer != null) {
+                tracer.record(Tracer.EventType.BLOCK, pid, 0);
+            }
+            waitingIo.put(pid, 1);
+        }
+    }
+
+    @Override
+    public void processIoCompleted(int pid) {
+        Integer sources = waitingIo.get(pid);
+        if (sources == null) {
+            return;
+        }
+        if (sources > 1) {
+            waitingIo.put(pid, sources - 1);
+        } else {
+            waitingIo.remove(pid);
+            processUnblocked(pid, null);
+        }
+    }
+
+    /**
+     * SynchronizationListener callbacks: el hilo espera en WAITING a que el
+     * ThreadManager le conceda el mutex, lo despierte una señal o se
+     * complete la barrera
+     */
+    @Override
+    public void threadBlocked(int tid, String primitive) {
+        processBlocked(tid, primitive);
+    }
+
+    @Override
+    public void threadUnblocked(int tid, String primitive) {
+        processUnblocked(tid, primitive);
+    }
+
+    /**
+     * Mueve un proceso a WAITING, sacándolo de la cola de listos o de la CPU
+     * @return el proceso bloqueado, o null si no estaba listo ni en ejecución
+     */
+    private Process moveToWaiting(int pid) {
         // Buscar entre readyQueue y currentProcess
         // Si está en readyQueue lo removemos
         Iterator<Process> it = readyQueue.iterator();
@@ -252,15 +951,19 @@ public class Scheduler implements FileSystemListener {
                 p.setState(Process.ProcessState.WAITING);
                 waitingProcessesByPid.put(pid, p);
                 it.remove();
-                return;
+                return p;
             }
         }
 
         // Si es el proceso actual, moverlo a WAITING y liberar CPU
         if (currentProcess != null && currentProcess.getPid() == pid) {
-            currentProcess.setState(Process.ProcessState.WAITING);
-            waitingProcessesByPid.put(pid, currentProcess);
+            Process p = currentProcess;
+            p.setState(Process.ProcessState.WAITING);
+            leaveCpu(p);
+            dispatchOverhead = 0;
+            waitingProcessesByPid.put(pid, p);
             currentProcess = null;
+            return p;
         }
 
         // También puede estar aún en newProcesses (no llegado a READY) - marcar waiting
@@ -271,9 +974,10 @@ public class Scheduler implements FileSystemListener {
                 p.setState(Process.ProcessState.WAITING);
                 waitingProcessesByPid.put(pid, p);
                 it2.remove();
-                return;
+                return p;
             }
         }
+        return null;
     }
 
     /**
@@ -282,8 +986,17 @@ public class Scheduler implements FileSystemListener {
      */
     @Override
     public void processUnblocked(int pid, String fileName) {
+        Process waiting = waitingProcessesByPid.get(pid);
+        if (waiting != null && waiting.isInIoBurst() && stalledUntil.containsKey(pid)) {
+            // La ráfaga de E/S termina sólo con su temporizador
+            return;
+        }
+        stalledUntil.remove(pid);
         Process p = waitingProcessesByPid.remove(pid);
         if (p != null) {
+            if (tracer != null) {
+                tracer.record(Tracer.EventType.UNBLOCK, pid, 0);
+            }
             p.setState(Process.ProcessState.READY);
             addToReadyQueue(p);
         }
@@ -0,0 +1,47 @@
+package os.core;
+
+/**
+ * Reloj de tiempo simulado: sólo avanza cuando el simulador lo indica.
+ * El Scheduler lo avanza un tick por paso y lee de él su tick actual.
+ */
+public class SimulatedClock implements Clock {
+    private long time;
+
+    public SimulatedClock() {
+        this.time = 0;
+    }
+
+    /**
+     * Avanza el reloj la cantidad de ticks indicada
+     */
+    public void advance(long ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("El reloj no puede retroceder");
+        }
+        time += ticks;
+    }
+
+    @Override
+    public long now() { return time; }
+
+    @Override
+    public String getUnit() { return "ticks"; }
+
+    /**
+     * Adelanta el reloj hasta time; no puede retroceder
+     */
+    public void setTime(long time) {
+        if (time < this.time) {
+            throw new IllegalArgumentException("El reloj no puede retroceder: " + this.time + " -> " + time);
+        }
+        this.time = time;
+    }
+
+    /**
+     * Fija el reloj en cualquier instante (al reiniciar el Scheduler o
+     * restaurar un checkpoint)
+     */
+    void restore(long time) {
+        this.time = time;
+    }
+}
@@ -0,0 +1,35 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Hilo de un proceso simulado. El Scheduler lo planifica como cualquier
+ * proceso, con su propio estado y tiempo restante, usando su tid como pid;
+ * comparte con su proceso las páginas requeridas y, si el MemoryManager lo
+ * tiene registrado (attachThread), la tabla de páginas.
+ */
+public class SimulatedThread extends Process {
+    private final int processId;
+    private final List<Integer> sharedPages;
+
+    /**
+     * Constructor del hilo
+     * @param tid identificador del hilo, único entre procesos e hilos
+     * @param processId proceso al que pertenece
+     * @param sharedPages páginas del proceso (se comparte la lista, no se copia)
+     */
+    public SimulatedThread(int tid, int processId, String name, int priority, int burstTime,
+                           int arrivalTime, List<Integer> sharedPages, List<String> requiredFiles) {
+        super(tid, name, priority, burstTime, arrivalTime, null, requiredFiles);
+        this.processId = processId;
+        this.sharedPages = sharedPages != null ? sharedPages : new ArrayList<>();
+    }
+
+    @Override
+    public int getProcessId() { return processId; }
+
+    @Override
+    public List<Integer> getRequiredPages() { return sharedPages; }
+
+    public int getTid() { return getPid(); }
+}
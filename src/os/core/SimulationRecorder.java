@@ -0,0 +1,287 @@
+package os.core;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Grabador de ejecuciones. El simulador se conduce a través de esta clase
+ * en lugar de llamar directamente a los componentes; se guarda:
+ * - el estado inicial (Checkpoint), que incluye la carga de trabajo,
+ * - cada operación externa con sus argumentos y su resultado,
+ * - la traza de decisiones resultante (despachos, fallos, locks...).
+ *
+ * Con esa Recording, Replayer reproduce la ejecución y detecta el primer
+ * punto en que se separa de la original. La fuente de llegadas del
+ * Scheduler no forma parte del estado: los procesos deben añadirse con
+ * addProcess antes de empezar a grabar.
+ */
+public class SimulationRecorder {
+    // Operaciones grabadas: código seguido de sus argumentos y el resultado
+    static final int OP_STEP = 0;            // resultado
+    static final int OP_TICK = 1;            // resultado (0)
+    static final int OP_ACCESS_PAGE = 2;     // pid, página, escritura, resultado
+    static final int OP_REQUEST = 3;         // pid, descriptor, tipo, resultado
+    static final int OP_RELEASE = 4;         // pid, descriptor, resultado (0)
+    static final int OP_SET_ALGORITHM = 5;   // algoritmo, resultado (0)
+    static final int OP_SET_QUANTUM = 6;     // quantum, resultado (0)
+    static final int OP_READ = 7;            // pid, descriptor, desplazamiento (2), longitud, resultado
+    static final int OP_ACCESS_PAGES = 8;    // pid, escritura, cortar en fallo, n, n páginas, resultado
+    static final int OP_REQUEST_BATCH = 9;   // pid, tipo, n, n descriptores, resultado
+
+    private static final int DEFAULT_TRACE_CAPACITY = 1 << 20;
+
+    private Scheduler scheduler;
+    private MemoryManager memoryManager;
+    private FileSystem fileSystem;
+    private Checkpoint initialState;
+    private Tracer tracer;
+    private int traceStart;               // Primer evento de la grabación en el tracer
+    private int[] commands;
+    private int commandLength;
+
+    /**
+     * Empieza a grabar desde el estado actual de los componentes. Si el
+     * Scheduler ya tiene un tracer se reutiliza; si no, se crea uno con el
+     * reloj del Scheduler y se conecta a los tres componentes.
+     */
+    public SimulationRecorder(Scheduler scheduler, MemoryManager memoryManager, FileSystem fileSystem) {
+        this.scheduler = scheduler;
+        this.memoryManager = memoryManager;
+        this.fileSystem = fileSystem;
+        this.tracer = scheduler.getTracer();
+        if (tracer == null) {
+            tracer = new Tracer(DEFAULT_TRACE_CAPACITY, scheduler.getClock());
+            scheduler.setTracer(tracer);
+            memoryManager.setTracer(tracer);
+            fileSystem.setTracer(tracer);
+        }
+        this.traceStart = tracer.getEventCount();
+        this.initialState = Checkpoint.capture(scheduler, memoryManager, fileSystem);
+        this.commands = new int[1024];
+        this.commandLength = 0;
+    }
+
+    public boolean executeStep() {
+        boolean result = scheduler.executeStep();
+        append(OP_STEP, result ? 1 : 0);
+        return result;
+    }
+
+    /**
+     * Avanza el reloj de la memoria y la cola del disco hasta el tiempo
+     * actual del Scheduler
+     */
+    public void tick() {
+        memoryManager.tick(scheduler.getCurrentTime());
+        fileSystem.tick(scheduler.getCurrentTime());
+        append(OP_TICK, 0);
+    }
+
+    public boolean accessPage(int processId, int pageNumber, boolean write) {
+        boolean fault = memoryManager.accessPage(processId, pageNumber, write);
+        append(OP_ACCESS_PAGE, processId, pageNumber, write ? 1 : 0, fault ? 1 : 0);
+        return fault;
+    }
+
+    /**
+     * Lote de accesos a páginas (ver MemoryManager.accessPages); se graba el
+     * hash del mapa de bits como resultado
+     */
+    public BitSet accessPages(int processId, int[] pages, boolean write, boolean stopAtFault) {
+        BitSet faults = memoryManager.accessPages(processId, pages, write, stopAtFault);
+        appendBatch(OP_ACCESS_PAGES, new int[]{processId, write ? 1 : 0, stopAtFault ? 1 : 0},
+                pages, faults.hashCode());
+        return faults;
+    }
+
+    /**
+     * Solicitud de varios archivos (ver FileSystem.requestAccess con
+     * descriptores); se graba el hash del mapa de bits como resultado
+     */
+    public BitSet requestAccess(int processId, int[] handles,
+                                FileSystem.SimulatedFile.FileAccessType accessType) {
+        BitSet granted = fileSystem.requestAccess(processId, handles, accessType);
+        appendBatch(OP_REQUEST_BATCH, new int[]{processId, accessType.ordinal()},
+                handles, granted.hashCode());
+        return granted;
+    }
+
+    /**
+     * Solicita un archivo por nombre; se graba su descriptor
+     */
+    public boolean requestAccess(int processId, String fileName,
+                                 FileSystem.SimulatedFile.FileAccessType accessType) {
+        int handle = fileSystem.open(fileName);
+        if (handle < 0) {
+            // El intento fallido no cambia el estado ni produce eventos
+            return fileSystem.requestAccess(processId, fileName, accessType);
+        }
+        return requestAccess(processId, handle, accessType);
+    }
+
+    public boolean requestAccess(int processId, int handle,
+                                 FileSystem.SimulatedFile.FileAccessType accessType) {
+        boolean granted = fileSystem.requestAccess(processId, handle, accessType);
+        append(OP_REQUEST, processId, handle, accessType.ordinal(), granted ? 1 : 0);
+        return granted;
+    }
+
+    /**
+     * Lee un archivo completo por nombre
+     * @return bytes leídos, o null si el proceso no tiene acceso
+     */
+    public ByteBuffer readFile(int processId, String fileName) {
+        int handle = fileSystem.open(fileName);
+        return handle >= 0 ? readFile(processId, handle, 0, Integer.MAX_VALUE) : null;
+    }
+
+    public ByteBuffer readFile(int processId, int handle, long offset, int length) {
+        ByteBuffer data = fileSystem.readFile(processId, handle, offset, length);
+        append(OP_READ, processId, handle, (int) (offset >>> 32), (int) offset, length,
+                data != null ? data.remaining() : -1);
+        return data;
+    }
+
+    public void releaseAccess(int processId, String fileName) {
+        int handle = fileSystem.open(fileName);
+        if (handle >= 0) {
+            releaseAccess(processId, handle);
+        }
+    }
+
+    public void releaseAccess(int processId, int handle) {
+        fileSystem.releaseAccess(processId, handle);
+        append(OP_RELEASE, processId, handle, 0);
+    }
+
+    public void setAlgorithm(Scheduler.SchedulingAlgorithm algorithm) {
+        scheduler.setAlgorithm(algorithm);
+        append(OP_SET_ALGORITHM, algorithm.ordinal(), 0);
+    }
+
+    public void setTimeQuantum(int timeQuantum) {
+        scheduler.setTimeQuantum(timeQuantum);
+        append(OP_SET_QUANTUM, timeQuantum, 0);
+    }
+
+    /**
+     * Aplica una operación grabada a partir de commands[position]
+     * @return resultado de la operación
+     */
+    static int apply(int[] commands, int position, Scheduler scheduler,
+                     MemoryManager memoryManager, FileSystem fileSystem) {
+        switch (commands[position]) {
+            case OP_STEP:
+                return scheduler.executeStep() ? 1 : 0;
+            case OP_TICK:
+                memoryManager.tick(scheduler.getCurrentTime());
+                fileSystem.tick(scheduler.getCurrentTime());
+                return 0;
+            case OP_ACCESS_PAGE:
+                return memoryManager.accessPage(commands[position + 1], commands[position + 2],
+                        commands[position + 3] != 0) ? 1 : 0;
+            case OP_REQUEST:
+                return fileSystem.requestAccess(commands[position + 1], commands[position + 2],
+                        FileSystem.SimulatedFile.FileAccessType.values()[commands[position + 3]]) ? 1 : 0;
+            case OP_RELEASE:
+                fileSystem.releaseAccess(commands[position + 1], commands[position + 2]);
+                return 0;
+            case OP_SET_ALGORITHM:
+                scheduler.setAlgorithm(Scheduler.SchedulingAlgorithm.values()[commands[position + 1]]);
+                return 0;
+            case OP_SET_QUANTUM:
+                scheduler.setTimeQuantum(commands[position + 1]);
+                return 0;
+            case OP_READ: {
+                long offset = ((long) commands[position + 3] << 32) | (commands[position + 4] & 0xFFFFFFFFL);
+                ByteBuffer data = fileSystem.readFile(commands[position + 1], commands[position + 2],
+                        offset, commands[position + 5]);
+                return data != null ? data.remaining() : -1;
+            }
+            case OP_ACCESS_PAGES: {
+                int[] pages = Arrays.copyOfRange(commands, position + 5, position + 5 + commands[position + 4]);
+                return memoryManager.accessPages(commands[position + 1], pages,
+                        commands[position + 2] != 0, commands[position + 3] != 0).hashCode();
+            }
+            case OP_REQUEST_BATCH: {
+                int[] handles = Arrays.copyOfRange(commands, position + 4, position + 4 + commands[position + 3]);
+                return fileSystem.requestAccess(commands[position + 1], handles,
+                        FileSystem.SimulatedFile.FileAccessType.values()[commands[position + 2]]).hashCode();
+            }
+            default:
+                throw new IllegalStateException("Operación grabada desconocida: " + commands[position]);
+        }
+    }
+
+    /**
+     * Longitud de la operación que empieza en commands[position] (código,
+     * argumentos y resultado)
+     */
+    static int length(int[] commands, int position) {
+        int opcode = commands[position];
+        switch (opcode) {
+            case OP_STEP:
+            case OP_TICK:
+                return 2;
+            case OP_RELEASE:
+                return 4;
+            case OP_SET_ALGORITHM:
+            case OP_SET_QUANTUM:
+                return 3;
+            case OP_ACCESS_PAGE:
+            case OP_REQUEST:
+                return 5;
+            case OP_READ:
+                return 7;
+            case OP_ACCESS_PAGES:
+                return 6 + commands[position + 4];
+            case OP_REQUEST_BATCH:
+                return 5 + commands[position + 3];
+            default:
+                throw new IllegalStateException("Operación grabada desconocida: " + opcode);
+        }
+    }
+
+    /**
+     * Graba una operación de lote: código, argumentos fijos, cantidad,
+     * elementos y resultado
+     */
+    private void appendBatch(int opcode, int[] arguments, int[] items, int result) {
+        int[] values = new int[arguments.length + items.length + 3];
+        values[0] = opcode;
+        System.arraycopy(arguments, 0, values, 1, arguments.length);
+        values[arguments.length + 1] = items.length;
+        System.arraycopy(items, 0, values, arguments.length + 2, items.length);
+        values[values.length - 1] = result;
+        append(values);
+    }
+
+    private void append(int... values) {
+        if (commandLength + values.length > commands.length) {
+            commands = Arrays.copyOf(commands, Math.max(commands.length * 2, commandLength + values.length));
+        }
+        System.arraycopy(values, 0, commands, commandLength, values.length);
+        commandLength += values.length;
+    }
+
+    /**
+     * Grabación con todo lo registrado hasta ahora (se puede seguir grabando)
+     */
+    public Recording getRecording() {
+        int events = tracer.getEventCount() - traceStart;
+        long[] timestamps = new long[events];
+        int[] trace = new int[events * 3];
+        for (int i = 0; i < events; i++) {
+            timestamps[i] = tracer.getTimestamp(traceStart + i);
+            trace[i * 3] = tracer.getType(traceStart + i).ordinal();
+            trace[i * 3 + 1] = tracer.getPid(traceStart + i);
+            trace[i * 3 + 2] = tracer.getArg(traceStart + i);
+        }
+        return new Recording(initialState, Arrays.copyOf(commands, commandLength),
+                timestamps, trace, tracer.getDroppedEvents() > 0);
+    }
+
+    // Getters
+    public Tracer getTracer() { return tracer; }
+    public int getCommandBytes() { return commandLength * Integer.BYTES; }
+}
@@ -0,0 +1,301 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Analizador de distancias de pila (algoritmo de Mattson) sobre una secuencia
+ * de referencias a páginas. En una sola pasada calcula la tasa de aciertos LRU
+ * y OPT para todos los tamaños de memoria de 1 a N marcos, sin necesidad de
+ * crear un MemoryManager por cada tamaño.
+ *
+ * LRU usa un árbol de Fenwick como árbol de estadísticos de orden sobre las
+ * posiciones del último acceso de cada página, compactado periódicamente para
+ * que su tamaño dependa de las páginas distintas: O(R log U).
+ * OPT usa la pila de prioridades de Mattson limitada a N niveles: O(R·N).
+ */
+public class StackDistanceAnalyzer {
+    private long[] references;   // Claves (pid, página) en orden de acceso
+    private int referenceCount;
+
+    /**
+     * Curva de tasa de fallos para todos los tamaños de memoria de 1 a N
+     */
+    public static class MissRatioCurve {
+        private int maxFrames;
+        private long references;
+        private long uniquePages;
+        private long[] lruHits;  // lruHits[k] = aciertos LRU con k marcos
+        private long[] optHits;  // optHits[k] = aciertos OPT con k marcos
+
+        MissRatioCurve(int maxFrames, long references, long uniquePages,
+                       long[] lruHits, long[] optHits) {
+            this.maxFrames = maxFrames;
+            this.references = references;
+            this.uniquePages = uniquePages;
+            this.lruHits = lruHits;
+            this.optHits = optHits;
+        }
+
+        public double getLruHitRatio(int frames) {
+            return ratio(lruHits[checkFrames(frames)]);
+        }
+
+        public double getOptHitRatio(int frames) {
+            return ratio(optHits[checkFrames(frames)]);
+        }
+
+        public double getLruMissRatio(int frames) {
+            return references > 0 ? 100.0 - getLruHitRatio(frames) : 0.0;
+        }
+
+        public double getOptMissRatio(int frames) {
+            return references > 0 ? 100.0 - getOptHitRatio(frames) : 0.0;
+        }
+
+        public long getLruFaults(int frames) {
+            return references - lruHits[checkFrames(frames)];
+        }
+
+        public long getOptFaults(int frames) {
+            return references - optHits[checkFrames(frames)];
+        }
+
+        private int checkFrames(int frames) {
+            if (frames < 1 || frames > maxFrames) {
+                throw new IllegalArgumentException("frames fuera de rango: " + frames);
+            }
+            return frames;
+        }
+
+        private double ratio(long hits) {
+            return references > 0 ? (hits * 100.0) / references : 0.0;
+        }
+
+        // Getters
+        public int getMaxFrames() { return maxFrames; }
+        public long getReferences() { return references; }
+        public long getUniquePages() { return uniquePages; }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Marcos  LRU fallos%%  OPT fallos%%  (%d referencias, %d páginas)\n",
+                    references, uniquePages));
+            for (int k = 1; k <= maxFrames; k++) {
+                sb.append(String.format("%6d  %10.2f  %10.2f\n",
+                        k, getLruMissRatio(k), getOptMissRatio(k)));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Constructor del analizador
+     */
+    public StackDistanceAnalyzer() {
+        this.references = new long[64];
+        this.referenceCount = 0;
+    }
+
+    /**
+     * Registra una referencia a la página de un proceso
+     */
+    public void record(int processId, int pageNumber) {
+        if (referenceCount == references.length) {
+            references = Arrays.copyOf(references, referenceCount * 2);
+        }
+        references[referenceCount++] = pageKey(processId, pageNumber);
+    }
+
+    /**
+     * Calcula la curva de fallos LRU y OPT para 1..maxFrames marcos
+     */
+    public MissRatioCurve analyze(int maxFrames) {
+        if (maxFrames < 1) {
+            throw new IllegalArgumentException("maxFrames debe ser positivo");
+        }
+        long[] lruHits = new long[maxFrames + 1];
+        int unique = computeLru(lruHits, maxFrames);
+        long[] optHits = new long[maxFrames + 1];
+        computeOpt(optHits, maxFrames);
+        return new MissRatioCurve(maxFrames, referenceCount, unique, lruHits, optHits);
+    }
+
+    /**
+     * Distancias de pila LRU. Cada página distinta marca en el árbol la
+     * posición de su último acceso; la distancia de una referencia es el
+     * número de marcas posteriores al acceso anterior de la misma página.
+     * @return número de páginas distintas
+     */
+    private int computeLru(long[] hits, int maxFrames) {
+        long[] distances = new long[maxFrames + 1];
+        Map<Long, Integer> lastSlot = new HashMap<>();
+        int capacity = 64;
+        int[] tree = new int[capacity + 1];
+        long[] keyAtSlot = new long[capacity + 1];
+        boolean[] live = new boolean[capacity + 1];
+        int nextSlot = 1;
+        int liveCount = 0;
+
+        for (int i = 0; i < referenceCount; i++) {
+            long key = references[i];
+
+            if (nextSlot > capacity) {
+                // Compactar: renumerar las marcas vivas 1..U conservando su orden
+                int newCapacity = Math.max(64, liveCount * 2);
+                int[] newTree = new int[newCapacity + 1];
+                long[] newKeys = new long[newCapacity + 1];
+                boolean[] newLive = new boolean[newCapacity + 1];
+                int slot = 1;
+                for (int s = 1; s < nextSlot; s++) {
+                    if (live[s]) {
+                        newKeys[slot] = keyAtSlot[s];
+                        newLive[slot] = true;
+                        newTree[slot] = 1;
+                        lastSlot.put(keyAtSlot[s], slot);
+                        slot++;
+                    }
+                }
+                for (int s = 1; s <= newCapacity; s++) {
+                    int parent = s + (s & -s);
+                    if (parent <= newCapacity) {
+                        newTree[parent] += newTree[s];
+                    }
+                }
+                capacity = newCapacity;
+                tree = newTree;
+                keyAtSlot = newKeys;
+                live = newLive;
+                nextSlot = slot;
+            }
+
+            Integer previous = lastSlot.get(key);
+            if (previous != null) {
+                // Distancia = 1 + marcas con posición posterior al acceso previo
+                int distance = 1 + (liveCount - prefixSum(tree, previous));
+                if (distance <= maxFrames) {
+                    distances[distance]++;
+                }
+                update(tree, capacity, previous, -1);
+                live[previous] = false;
+                liveCount--;
+            }
+
+            update(tree, capacity, nextSlot, 1);
+            live[nextSlot] = true;
+            keyAtSlot[nextSlot] = key;
+            lastSlot.put(key, nextSlot);
+            nextSlot++;
+            liveCount++;
+        }
+
+        // Propiedad de inclusión: con k marcos acierta toda distancia <= k
+        long cumulative = 0;
+        for (int k = 1; k <= maxFrames; k++) {
+            cumulative += distances[k];
+            hits[k] = cumulative;
+        }
+        return lastSlot.size();
+    }
+
+    /**
+     * Pila de prioridades de Mattson para OPT: en cada nivel permanece la
+     * página cuyo próximo uso es más cercano. Basta con mantener los N
+     * primeros niveles, porque el contenido de una memoria de k marcos sólo
+     * depende de su propio contenido anterior.
+     */
+    private void computeOpt(long[] hits, int maxFrames) {
+        int[] nextUse = new int[referenceCount];
+        Map<Long, Integer> upcoming = new HashMap<>();
+        for (int i = referenceCount - 1; i >= 0; i--) {
+            Integer next = upcoming.put(references[i], i);
+            nextUse[i] = next != null ? next : Integer.MAX_VALUE;
+        }
+
+        long[] distances = new long[maxFrames + 1];
+        long[] stackKeys = new long[maxFrames];
+        int[] stackNext = new int[maxFrames];
+        int depth = 0;
+
+        for (int i = 0; i < referenceCount; i++) {
+            long key = references[i];
+
+            int position = -1;
+            for (int s = 0; s < depth; s++) {
+                if (stackKeys[s] == key) {
+                    position = s;
+                    break;
+                }
+            }
+            if (position >= 0) {
+                distances[position + 1]++;
+            }
+
+            // La página referenciada sube a la cima; la antigua cima desciende
+            // intercambiándose en cada nivel con la de próximo uso más cercano
+            int limit = position >= 0 ? position : depth;
+            if (limit > 0 || position < 0) {
+                long carriedKey = depth > 0 ? stackKeys[0] : 0;
+                int carriedNext = depth > 0 ? stackNext[0] : 0;
+                for (int s = 1; s < limit; s++) {
+                    if (stackNext[s] > carriedNext) {
+                        long k = stackKeys[s];
+                        int n = stackNext[s];
+                        stackKeys[s] = carriedKey;
+                        stackNext[s] = carriedNext;
+                        carriedKey = k;
+                        carriedNext = n;
+                    }
+                }
+                if (position >= 0) {
+                    stackKeys[position] = carriedKey;
+                    stackNext[position] = carriedNext;
+                } else if (depth > 0 && depth < maxFrames) {
+                    stackKeys[depth] = carriedKey;
+                    stackNext[depth] = carriedNext;
+                    depth++;
+                } else if (depth == 0) {
+                    depth = 1;
+                }
+            }
+            stackKeys[0] = key;
+            stackNext[0] = nextUse[i];
+        }
+
+        long cumulative = 0;
+        for (int k = 1; k <= maxFrames; k++) {
+            cumulative += distances[k];
+            hits[k] = cumulative;
+        }
+    }
+
+    private static int prefixSum(int[] tree, int index) {
+        int sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private static void update(int[] tree, int capacity, int index, int delta) {
+        for (int i = index; i <= capacity; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Combina pid y número de página en una sola clave
+     */
+    static long pageKey(int processId, int pageNumber) {
+        return ((long) processId << 32) | (pageNumber & 0xFFFFFFFFL);
+    }
+
+    public int getReferenceCount() { return referenceCount; }
+
+    /**
+     * Descarta las referencias registradas
+     */
+    public void reset() {
+        referenceCount = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Dispositivo de intercambio simulado. Atiende las operaciones en orden de
+ * llegada: cada una espera a que el dispositivo quede libre y tarda
+ * latencia + páginas / ancho de banda (en ticks del simulador).
+ */
+public class SwapDevice {
+    private int latency;          // Ticks fijos por operación
+    private int pagesPerTick;     // Ancho de banda
+    private long busyUntil;       // Tick en que termina la última operación encolada
+    private int reads;
+    private int writes;
+    private long pagesRead;
+    private long pagesWritten;
+    private long busyTime;
+
+    /**
+     * Constructor del dispositivo
+     * @param latency ticks fijos por operación (búsqueda + rotación)
+     * @param pagesPerTick páginas transferidas por tick
+     */
+    public SwapDevice(int latency, int pagesPerTick) {
+        if (latency < 0 || pagesPerTick <= 0) {
+            throw new IllegalArgumentException("Parámetros de dispositivo inválidos");
+        }
+        this.latency = latency;
+        this.pagesPerTick = pagesPerTick;
+        this.busyUntil = 0;
+    }
+
+    /**
+     * Lee páginas desde el intercambio
+     * @return tick de finalización
+     */
+    public long read(long now, int pages) {
+        reads++;
+        pagesRead += pages;
+        return submit(now, pages);
+    }
+
+    /**
+     * Escribe páginas al intercambio
+     * @return tick de finalización
+     */
+    public long write(long now, int pages) {
+        writes++;
+        pagesWritten += pages;
+        return submit(now, pages);
+    }
+
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(latency);
+        out.writeInt(pagesPerTick);
+        out.writeLong(busyUntil);
+        out.writeInt(reads);
+        out.writeInt(writes);
+        out.writeLong(pagesRead);
+        out.writeLong(pagesWritten);
+        out.writeLong(busyTime);
+    }
+
+    /**
+     * Crea un dispositivo con el estado guardado
+     */
+    static SwapDevice readState(Checkpoint.Input in) {
+        SwapDevice device = new SwapDevice(in.readInt(), in.readInt());
+        device.busyUntil = in.readLong();
+        device.reads = in.readInt();
+        device.writes = in.readInt();
+        device.pagesRead = in.readLong();
+        device.pagesWritten = in.readLong();
+        device.busyTime = in.readLong();
+        return device;
+    }
+
+    private long submit(long now, int pages) {
+        long start = Math.max(now, busyUntil);
+        long duration = latency + (pages + pagesPerTick - 1) / pagesPerTick;
+        busyUntil = start + duration;
+        busyTime += duration;
+        return busyUntil;
+    }
+
+    /**
+     * Obtiene métricas del dispositivo
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("swapReads", reads);
+        metrics.put("swapWrites", writes);
+        metrics.put("swapPagesRead", pagesRead);
+        metrics.put("swapPagesWritten", pagesWritten);
+        metrics.put("swapBusyTime", busyTime);
+        return metrics;
+    }
+
+    // Getters
+    public int getLatency() { return latency; }
+    public int getPagesPerTick() { return pagesPerTick; }
+    public long getBusyUntil() { return busyUntil; }
+    public int getReads() { return reads; }
+    public int getWrites() { return writes; }
+
+    /**
+     * Reinicia el dispositivo
+     */
+    public void reset() {
+        busyUntil = 0;
+        reads = 0;
+        writes = 0;
+        pagesRead = 0;
+        pagesWritten = 0;
+        busyTime = 0;
+    }
+}
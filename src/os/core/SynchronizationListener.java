@@ -0,0 +1,17 @@
+package os.core;
+
+/**
+ * Interfaz ligera para notificar al Scheduler que un hilo se bloqueó o se
+ * desbloqueó en una primitiva de sincronización del ThreadManager.
+ */
+public interface SynchronizationListener {
+    /**
+     * Notifica que el hilo tid espera en la primitiva indicada (mutex, condición o barrera)
+     */
+    void threadBlocked(int tid, String primitive);
+
+    /**
+     * Notifica que el hilo tid ya puede continuar y debe volver a READY
+     */
+    void threadUnblocked(int tid, String primitive);
+}
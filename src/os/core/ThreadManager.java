@@ -0,0 +1,480 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Hilos de los procesos simulados y sus primitivas de sincronización
+ * (mutex, variable de condición y barrera). Cada primitiva pertenece a un
+ * proceso y sólo la usan sus hilos; el proceso mismo cuenta como su hilo
+ * principal. Los hilos que deben esperar se bloquean a través del listener
+ * (normalmente el Scheduler) y se desbloquean al obtener lo que esperaban:
+ * el mutex se entrega directamente al siguiente hilo de su cola FIFO.
+ *
+ * Las primitivas se identifican con descriptores enteros. Su estado no se
+ * guarda en Checkpoint.
+ */
+public class ThreadManager {
+    private MemoryManager memoryManager;              // Para compartir tablas de páginas (puede ser null)
+    private Map<Integer, Process> threads;            // tid -> hilo (incluye los hilos principales)
+    private Map<Integer, List<Process>> processThreads; // pid -> hilos del proceso, el principal primero
+    private Map<Integer, ThreadStats> stats;          // tid -> contadores de sincronización
+    private Map<Integer, Long> blockedSince;           // tid -> instante en que se bloqueó
+    private List<Mutex> mutexes;
+    private List<Condition> conditions;
+    private List<Barrier> barriers;
+    private SynchronizationListener listener;
+    private Clock clock;
+
+    private long acquisitions;
+    private long contentions;
+    private long conditionWaits;
+    private long signals;
+    private long barrierTrips;
+    private Histogram syncWaits;                      // Espera de cada bloqueo, en unidades del reloj
+
+    private static class Mutex {
+        private final int processId;
+        private int holder = -1;
+        private final ArrayDeque<Integer> waiters = new ArrayDeque<>(1);
+
+        Mutex(int processId) {
+            this.processId = processId;
+        }
+    }
+
+    private static class Condition {
+        private final int processId;
+        private final ArrayDeque<int[]> waiters = new ArrayDeque<>(1);   // (tid, mutex)
+
+        Condition(int processId) {
+            this.processId = processId;
+        }
+    }
+
+    private static class Barrier {
+        private final int processId;
+        private final int parties;
+        private final List<Integer> arrived = new ArrayList<>();
+
+        Barrier(int processId, int parties) {
+            this.processId = processId;
+            this.parties = parties;
+        }
+    }
+
+    /**
+     * Contadores de sincronización de un hilo
+     */
+    private static class ThreadStats {
+        private long acquisitions;
+        private long contentions;
+        private long blocks;
+        private long waitTime;
+        private long barrierWaits;
+    }
+
+    /**
+     * Constructor del gestor de hilos
+     * @param memoryManager memoria donde los hilos comparten la tabla de
+     *                      páginas de su proceso (null si no se simula)
+     * @param clock reloj de las esperas; normalmente el del Scheduler
+     *              (getClock), para medirlas en ticks deterministas
+     */
+    public ThreadManager(MemoryManager memoryManager, Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("El gestor de hilos necesita un reloj");
+        }
+        this.memoryManager = memoryManager;
+        this.threads = new HashMap<>();
+        this.processThreads = new HashMap<>();
+        this.stats = new HashMap<>();
+        this.blockedSince = new HashMap<>();
+        this.mutexes = new ArrayList<>();
+        this.conditions = new ArrayList<>();
+        this.barriers = new ArrayList<>();
+        this.clock = clock;
+        this.syncWaits = new Histogram();
+    }
+
+    /**
+     * Crea un hilo del proceso. El hilo comparte las páginas del proceso y
+     * hereda su prioridad; hay que añadirlo al Scheduler como un proceso.
+     * @param tid identificador del hilo, distinto de todo pid y tid
+     */
+    public SimulatedThread createThread(Process process, int tid, int burstTime, int arrivalTime) {
+        if (threads.containsKey(tid) || tid == process.getPid()) {
+            throw new IllegalArgumentException("Identificador de hilo en uso: " + tid);
+        }
+        register(process);
+        SimulatedThread thread = new SimulatedThread(tid, process.getPid(),
+                process.getName() + ".T" + tid, process.getPriority(), burstTime, arrivalTime,
+                process.getRequiredPages(), process.getRequiredFiles());
+        threads.put(tid, thread);
+        processThreads.get(process.getPid()).add(thread);
+        if (memoryManager != null) {
+            memoryManager.attachThread(tid, process.getPid());
+        }
+        return thread;
+    }
+
+    /**
+     * Registra un proceso como hilo principal de sí mismo (createThread lo
+     * hace automáticamente)
+     */
+    public void register(Process process) {
+        if (!processThreads.containsKey(process.getPid())) {
+            List<Process> list = new ArrayList<>();
+            list.add(process);
+            processThreads.put(process.getPid(), list);
+            threads.put(process.getPid(), process);
+        }
+    }
+
+    // ===== Mutex =====
+
+    public int createMutex(int processId) {
+        mutexes.add(new Mutex(processId));
+        return mutexes.size() - 1;
+    }
+
+    /**
+     * Intenta tomar el mutex
+     * @return true si lo obtuvo; false si quedó bloqueado en su cola (el
+     *         mutex le será entregado al liberarse)
+     */
+    public boolean lock(int tid, int mutexId) {
+        Mutex mutex = mutexAt(mutexId);
+        checkOwner(tid, mutex.processId);
+        if (mutex.holder == tid) {
+            throw new IllegalStateException("El hilo " + tid + " ya tiene el mutex " + mutexId);
+        }
+        ThreadStats threadStats = statsOf(tid);
+        if (mutex.holder < 0) {
+            mutex.holder = tid;
+            acquisitions++;
+            threadStats.acquisitions++;
+            return true;
+        }
+        contentions++;
+        threadStats.contentions++;
+        mutex.waiters.add(tid);
+        block(tid, "mutex " + mutexId);
+        return false;
+    }
+
+    /**
+     * Libera el mutex y lo entrega al primer hilo en espera
+     */
+    public void unlock(int tid, int mutexId) {
+        Mutex mutex = mutexAt(mutexId);
+        if (mutex.holder != tid) {
+            throw new IllegalStateException("El hilo " + tid + " no tiene el mutex " + mutexId);
+        }
+        release(mutex, mutexId);
+    }
+
+    private void release(Mutex mutex, int mutexId) {
+        Integer next = mutex.waiters.poll();
+        mutex.holder = next != null ? next : -1;
+        if (next != null) {
+            acquisitions++;
+            statsOf(next).acquisitions++;
+            unblock(next, "mutex " + mutexId);
+        }
+    }
+
+    /**
+     * Tiene el mutex, o -1 si está libre
+     */
+    public int getMutexHolder(int mutexId) {
+        return mutexAt(mutexId).holder;
+    }
+
+    // ===== Variables de condición =====
+
+    public int createCondition(int processId) {
+        conditions.add(new Condition(processId));
+        return conditions.size() - 1;
+    }
+
+    /**
+     * Libera el mutex y bloquea al hilo hasta que otro señale la condición;
+     * al despertar vuelve a tener el mutex
+     */
+    public void await(int tid, int conditionId, int mutexId) {
+        Condition condition = conditionAt(conditionId);
+        checkOwner(tid, condition.processId);
+        Mutex mutex = mutexAt(mutexId);
+        if (mutex.holder != tid) {
+            throw new IllegalStateException("El hilo " + tid + " debe tener el mutex " + mutexId + " para esperar");
+        }
+        conditionWaits++;
+        condition.waiters.add(new int[]{tid, mutexId});
+        block(tid, "condición " + conditionId);
+        release(mutex, mutexId);
+    }
+
+    /**
+     * Despierta al hilo que lleva más tiempo esperando la condición
+     * @return true si había alguno
+     */
+    public boolean signal(int tid, int conditionId) {
+        Condition condition = conditionAt(conditionId);
+        checkOwner(tid, condition.processId);
+        int[] waiter = condition.waiters.poll();
+        if (waiter == null) {
+            return false;
+        }
+        signals++;
+        reacquire(waiter[0], waiter[1]);
+        return true;
+    }
+
+    /**
+     * Despierta a todos los hilos que esperan la condición
+     * @return hilos despertados
+     */
+    public int broadcast(int tid, int conditionId) {
+        Condition condition = conditionAt(conditionId);
+        checkOwner(tid, condition.processId);
+        int woken = 0;
+        for (int[] waiter; (waiter = condition.waiters.poll()) != null; woken++) {
+            signals++;
+            reacquire(waiter[0], waiter[1]);
+        }
+        return woken;
+    }
+
+    /**
+     * El hilo señalado sigue bloqueado hasta recuperar su mutex
+     */
+    private void reacquire(int tid, int mutexId) {
+        Mutex mutex = mutexAt(mutexId);
+        if (mutex.holder < 0) {
+            mutex.holder = tid;
+            acquisitions++;
+            statsOf(tid).acquisitions++;
+            unblock(tid, "mutex " + mutexId);
+        } else {
+            contentions++;
+            statsOf(tid).contentions++;
+            mutex.waiters.add(tid);
+        }
+    }
+
+    // ===== Barreras =====
+
+    public int createBarrier(int processId, int parties) {
+        if (parties <= 0) {
+            throw new IllegalArgumentException("La barrera necesita al menos un hilo");
+        }
+        barriers.add(new Barrier(processId, parties));
+        return barriers.size() - 1;
+    }
+
+    /**
+     * Llega a la barrera; los hilos esperan hasta que lleguen todos
+     * @return true si este hilo completó la barrera (no se bloquea y
+     *         despierta a los demás); false si quedó bloqueado
+     */
+    public boolean arrive(int tid, int barrierId) {
+        Barrier barrier = barrierAt(barrierId);
+        checkOwner(tid, barrier.processId);
+        if (barrier.arrived.size() + 1 < barrier.parties) {
+            barrier.arrived.add(tid);
+            statsOf(tid).barrierWaits++;
+            block(tid, "barrera " + barrierId);
+            return false;
+        }
+        barrierTrips++;
+        for (int waiting : barrier.arrived) {
+            unblock(waiting, "barrera " + barrierId);
+        }
+        barrier.arrived.clear();
+        return true;
+    }
+
+    // ===== Bloqueo y métricas =====
+
+    private void block(int tid, String primitive) {
+        statsOf(tid).blocks++;
+        blockedSince.put(tid, clock.now());
+        if (listener != null) {
+            listener.threadBlocked(tid, primitive);
+        }
+    }
+
+    private void unblock(int tid, String primitive) {
+        Long since = blockedSince.remove(tid);
+        if (since != null) {
+            long waited = Math.max(0, clock.now() - since);
+            syncWaits.record(waited);
+            statsOf(tid).waitTime += waited;
+        }
+        if (listener != null) {
+            listener.threadUnblocked(tid, primitive);
+        }
+    }
+
+    private ThreadStats statsOf(int tid) {
+        return stats.computeIfAbsent(tid, t -> new ThreadStats());
+    }
+
+    /**
+     * Sólo los hilos del proceso dueño pueden usar una primitiva
+     */
+    private void checkOwner(int tid, int processId) {
+        Process thread = threads.get(tid);
+        int owner = thread != null ? thread.getProcessId() : tid;
+        if (owner != processId) {
+            throw new IllegalArgumentException("El hilo " + tid + " no pertenece al proceso " + processId);
+        }
+    }
+
+    private Mutex mutexAt(int id) {
+        if (id < 0 || id >= mutexes.size()) {
+            throw new IllegalArgumentException("Mutex desconocido: " + id);
+        }
+        return mutexes.get(id);
+    }
+
+    private Condition conditionAt(int id) {
+        if (id < 0 || id >= conditions.size()) {
+            throw new IllegalArgumentException("Condición desconocida: " + id);
+        }
+        return conditions.get(id);
+    }
+
+    private Barrier barrierAt(int id) {
+        if (id < 0 || id >= barriers.size()) {
+            throw new IllegalArgumentException("Barrera desconocida: " + id);
+        }
+        return barriers.get(id);
+    }
+
+    /**
+     * Hilos de un proceso (el principal primero); vacío si no tiene hilos
+     */
+    public List<Process> getThreads(int processId) {
+        List<Process> list = processThreads.get(processId);
+        return list != null ? new ArrayList<>(list) : new ArrayList<>();
+    }
+
+    /**
+     * Métricas de un hilo: su planificación (del Scheduler) y su sincronización
+     */
+    public Map<String, Object> getThreadMetrics(int tid) {
+        Process thread = threads.get(tid);
+        if (thread == null) {
+            throw new IllegalArgumentException("Hilo desconocido: " + tid);
+        }
+        ThreadStats threadStats = statsOf(tid);
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("processId", thread.getProcessId());
+        metrics.put("state", thread.getState().name());
+        metrics.put("cpuTime", thread.getBurstTime() - thread.getRemainingTime());
+        metrics.put("waitingTime", thread.getWaitingTime());
+        metrics.put("turnaroundTime", thread.getTurnaroundTime());
+        metrics.put("contextSwitches", thread.getContextSwitches());
+        metrics.put("lockAcquisitions", threadStats.acquisitions);
+        metrics.put("lockContentions", threadStats.contentions);
+        metrics.put("syncBlocks", threadStats.blocks);
+        metrics.put("syncWaitTime", threadStats.waitTime);
+        metrics.put("barrierWaits", threadStats.barrierWaits);
+        return metrics;
+    }
+
+    /**
+     * Métricas de un proceso sumando sus hilos. El tiempo de retorno va de
+     * la primera llegada a la última finalización (sólo si todos terminaron).
+     */
+    public Map<String, Object> getProcessMetrics(int processId) {
+        List<Process> list = processThreads.get(processId);
+        if (list == null) {
+            throw new IllegalArgumentException("Proceso sin hilos registrados: " + processId);
+        }
+        int completed = 0;
+        long cpuTime = 0;
+        long contextSwitches = 0;
+        long syncWaitTime = 0;
+        long lockContentions = 0;
+        int firstArrival = Integer.MAX_VALUE;
+        int lastCompletion = 0;
+        for (Process thread : list) {
+            if (thread.getState() == Process.ProcessState.TERMINATED) {
+                completed++;
+                lastCompletion = Math.max(lastCompletion, thread.getCompletionTime());
+            }
+            firstArrival = Math.min(firstArrival, thread.getArrivalTime());
+            cpuTime += thread.getBurstTime() - thread.getRemainingTime();
+            contextSwitches += thread.getContextSwitches();
+            ThreadStats threadStats = stats.get(thread.getPid());
+            if (threadStats != null) {
+                syncWaitTime += threadStats.waitTime;
+                lockContentions += threadStats.contentions;
+            }
+        }
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("threads", list.size());
+        metrics.put("completedThreads", completed);
+        metrics.put("cpuTime", cpuTime);
+        metrics.put("contextSwitches", contextSwitches);
+        metrics.put("syncWaitTime", syncWaitTime);
+        metrics.put("lockContentions", lockContentions);
+        metrics.put("turnaroundTime", completed == list.size() ? lastCompletion - firstArrival : -1);
+        return metrics;
+    }
+
+    /**
+     * Métricas globales de hilos y sincronización
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("threads", threads.size());
+        metrics.put("multithreadedProcesses", processThreads.size());
+        metrics.put("mutexes", mutexes.size());
+        metrics.put("mutexAcquisitions", acquisitions);
+        metrics.put("mutexContentions", contentions);
+        metrics.put("contentionRatio", acquisitions > 0 ? (contentions * 100.0) / acquisitions : 0.0);
+        metrics.put("conditionWaits", conditionWaits);
+        metrics.put("signals", signals);
+        metrics.put("barrierTrips", barrierTrips);
+        metrics.put("blockedThreads", blockedSince.size());
+        metrics.put("avgSyncWait", syncWaits.getMean());
+        metrics.put("syncWaitP99", syncWaits.getValueAtPercentile(99.0));
+        return metrics;
+    }
+
+    // Getters y setters
+    public Clock getClock() { return clock; }
+    public void setClock(Clock clock) { this.clock = clock; }
+    public SynchronizationListener getListener() { return listener; }
+    public void setListener(SynchronizationListener listener) { this.listener = listener; }
+
+    /**
+     * Olvida hilos y primitivas (los hilos siguen en el Scheduler hasta
+     * reiniciarlo)
+     */
+    public void reset() {
+        if (memoryManager != null) {
+            for (Process thread : threads.values()) {
+                if (thread.getPid() != thread.getProcessId()) {
+                    memoryManager.detachThread(thread.getPid());
+                }
+            }
+        }
+        threads.clear();
+        processThreads.clear();
+        stats.clear();
+        blockedSince.clear();
+        mutexes.clear();
+        conditions.clear();
+        barriers.clear();
+        acquisitions = 0;
+        contentions = 0;
+        conditionWaits = 0;
+        signals = 0;
+        barrierTrips = 0;
+        syncWaits.reset();
+    }
+}
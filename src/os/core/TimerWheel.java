@@ -0,0 +1,164 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Rueda de temporizadores (hashed timing wheel) en ticks enteros. Cada
+ * temporizador va a la ranura de su instante módulo el número de ranuras,
+ * así que programarlo es O(1) y avanzar un tick sólo recorre una ranura;
+ * los que vencen varias vueltas después esperan en su ranura. Las ranuras
+ * guardan identificadores e instantes en arreglos int, sin objetos por
+ * temporizador.
+ */
+public class TimerWheel {
+    private final int mask;
+    private int[][] ids;        // Por ranura: identificador de cada temporizador
+    private int[][] times;      // Por ranura: instante de vencimiento
+    private int[] counts;
+    private int size;
+    private int cursor;         // Último tick procesado
+    private int[] dueIds = new int[4];    // Vencidos de la ranura en curso
+    private int[] dueTimes = new int[4];
+
+    /**
+     * Recibe cada temporizador vencido
+     */
+    public interface Expiry {
+        void expired(int id, int time);
+    }
+
+    /**
+     * Constructor de la rueda
+     * @param slots número de ranuras (potencia de 2)
+     */
+    public TimerWheel(int slots) {
+        if (slots <= 0 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("El número de ranuras debe ser potencia de 2: " + slots);
+        }
+        this.mask = slots - 1;
+        this.ids = new int[slots][];
+        this.times = new int[slots][];
+        this.counts = new int[slots];
+        this.cursor = -1;
+    }
+
+    /**
+     * Programa un temporizador; si su instante ya fue procesado, vence en el
+     * siguiente avance
+     */
+    public void schedule(int id, int time) {
+        int when = Math.max(time, cursor + 1);
+        int slot = when & mask;
+        int count = counts[slot];
+        if (ids[slot] == null) {
+            ids[slot] = new int[4];
+            times[slot] = new int[4];
+        } else if (count == ids[slot].length) {
+            ids[slot] = Arrays.copyOf(ids[slot], count * 2);
+            times[slot] = Arrays.copyOf(times[slot], count * 2);
+        }
+        ids[slot][count] = id;
+        times[slot][count] = time;
+        counts[slot] = count + 1;
+        size++;
+    }
+
+    /**
+     * Procesa los ticks hasta now (inclusive) y entrega los temporizadores
+     * vencidos, tick a tick y en orden de programación dentro de cada tick
+     */
+    public void advance(int now, Expiry expiry) {
+        if (now <= cursor) {
+            return;
+        }
+        // Con un salto de más de una vuelta basta recorrer cada ranura una vez
+        int from = now - cursor > counts.length ? now - counts.length + 1 : cursor + 1;
+        for (int tick = from; tick <= now && size > 0; tick++) {
+            expireSlot(tick & mask, now, expiry);
+        }
+        cursor = now;
+    }
+
+    private void expireSlot(int slot, int now, Expiry expiry) {
+        int count = counts[slot];
+        if (count == 0) {
+            return;
+        }
+        int[] slotIds = ids[slot];
+        int[] slotTimes = times[slot];
+        // Compactar los que aún no vencen antes de avisar, por si el
+        // consumidor programa nuevos temporizadores en esta misma ranura
+        int kept = 0;
+        int expired = 0;
+        if (dueIds.length < count) {
+            dueIds = new int[count];
+            dueTimes = new int[count];
+        }
+        int[] dueIds = this.dueIds;
+        int[] dueTimes = this.dueTimes;
+        for (int i = 0; i < count; i++) {
+            if (slotTimes[i] <= now) {
+                dueIds[expired] = slotIds[i];
+                dueTimes[expired] = slotTimes[i];
+                expired++;
+            } else {
+                slotIds[kept] = slotIds[i];
+                slotTimes[kept] = slotTimes[i];
+                kept++;
+            }
+        }
+        counts[slot] = kept;
+        size -= expired;
+        for (int i = 0; i < expired; i++) {
+            expiry.expired(dueIds[i], dueTimes[i]);
+        }
+    }
+
+    /**
+     * Fija el último tick procesado (al restaurar un checkpoint)
+     */
+    public void setCursor(int tick) {
+        this.cursor = tick;
+    }
+
+    /**
+     * Guarda la posición y los temporizadores pendientes, ranura por ranura
+     * para conservar su orden (ver Checkpoint)
+     */
+    void writeState(Checkpoint.Output out) {
+        out.writeInt(cursor);
+        out.writeInt(size);
+        for (int slot = 0; slot < counts.length; slot++) {
+            for (int i = 0; i < counts[slot]; i++) {
+                out.writeInt(ids[slot][i]);
+                out.writeInt(times[slot][i]);
+            }
+        }
+    }
+
+    /**
+     * Reemplaza los temporizadores por los guardados
+     */
+    void readState(Checkpoint.Input in) {
+        clear();
+        cursor = in.readInt();
+        for (int i = in.readInt(); i > 0; i--) {
+            int id = in.readInt();
+            schedule(id, in.readInt());
+        }
+    }
+
+    /**
+     * Descarta todos los temporizadores
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        size = 0;
+        cursor = -1;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int getSlots() { return counts.length; }
+    public int getCursor() { return cursor; }
+}
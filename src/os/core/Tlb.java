@@ -0,0 +1,297 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * TLB simulado (caché de traducciones) delante de la tabla de marcos del
+ * MemoryManager. Configurable en número de entradas, asociatividad,
+ * política de reemplazo y manejo del cambio de contexto.
+ */
+public class Tlb implements ContextSwitchListener {
+    public enum ReplacementPolicy { LRU, RANDOM }
+    public enum SwitchPolicy { ASID_TAGGED, FLUSH_ON_SWITCH }
+
+    private static final long HUGE_TAG_BIT = 1L << 63;
+
+    private int entryCount;               // Número total de entradas
+    private int associativity;            // Entradas por conjunto
+    private int setCount;                 // Número de conjuntos
+    private ReplacementPolicy replacementPolicy;
+    private SwitchPolicy switchPolicy;
+
+    // Entradas almacenadas por columnas: conjunto s ocupa [s*assoc, (s+1)*assoc)
+    private long[] tags;                  // Clave (asid, página)
+    private int[] frameNumbers;           // Marco físico traducido
+    private boolean[] valid;
+    private long[] lastUse;               // Para LRU
+    private long useCounter;
+    private Random random;
+
+    private int hits;
+    private int misses;
+    private int flushes;
+
+    // Modelo de tiempo de acceso efectivo (en unidades arbitrarias, p. ej. ns)
+    private double tlbLatency;
+    private double memoryLatency;
+    private int walkLevels;               // Accesos a memoria por recorrido de tabla
+    private int hugePageShift;            // log2 de páginas por página grande (0 = sin páginas grandes)
+    private Map<Integer, Integer> addressSpaces; // Hilo -> proceso dueño (del MemoryManager; null = ninguno)
+
+    /**
+     * Constructor del TLB
+     * @param entryCount número total de entradas
+     * @param associativity entradas por conjunto (entryCount = totalmente asociativo)
+     */
+    public Tlb(int entryCount, int associativity,
+               ReplacementPolicy replacementPolicy, SwitchPolicy switchPolicy) {
+        if (entryCount <= 0 || associativity <= 0 || entryCount % associativity != 0) {
+            throw new IllegalArgumentException(
+                    "entryCount debe ser un múltiplo positivo de associativity");
+        }
+        this.entryCount = entryCount;
+        this.associativity = associativity;
+        this.setCount = entryCount / associativity;
+        this.replacementPolicy = replacementPolicy;
+        this.switchPolicy = switchPolicy;
+        this.tags = new long[entryCount];
+        this.frameNumbers = new int[entryCount];
+        this.valid = new boolean[entryCount];
+        this.lastUse = new long[entryCount];
+        this.useCounter = 0;
+        this.random = new Random(0);
+        this.tlbLatency = 1.0;
+        this.memoryLatency = 100.0;
+        this.walkLevels = 1;
+        this.hugePageShift = 0;
+    }
+
+    /**
+     * Busca la traducción de una página
+     * @return número de marco, o -1 si hay fallo de TLB
+     */
+    public int lookup(int asid, int pageNumber) {
+        int slot = find(StackDistanceAnalyzer.pageKey(asid, pageNumber));
+        if (slot >= 0) {
+            hits++;
+            return frameNumbers[slot];
+        }
+        if (hugePageShift > 0) {
+            // Una entrada de página grande cubre toda la región alineada
+            slot = find(hugeTag(asid, pageNumber));
+            if (slot >= 0) {
+                hits++;
+                return frameNumbers[slot] + (pageNumber & ((1 << hugePageShift) - 1));
+            }
+        }
+        misses++;
+        return -1;
+    }
+
+    private int find(long tag) {
+        int base = setIndex(tag) * associativity;
+        for (int i = base; i < base + associativity; i++) {
+            if (valid[i] && tags[i] == tag) {
+                lastUse[i] = ++useCounter;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Inserta una traducción tras un fallo de TLB
+     */
+    public void insert(int asid, int pageNumber, int frameNumber) {
+        insertTag(StackDistanceAnalyzer.pageKey(asid, pageNumber), frameNumber);
+    }
+
+    /**
+     * Inserta una única entrada para toda una página grande
+     * @param baseFrame primer marco de la región contigua
+     */
+    public void insertHuge(int asid, int pageNumber, int baseFrame) {
+        if (hugePageShift == 0) {
+            throw new IllegalStateException("El TLB no tiene configuradas páginas grandes");
+        }
+        insertTag(hugeTag(asid, pageNumber), baseFrame);
+    }
+
+    private void insertTag(long tag, int frameNumber) {
+        int base = setIndex(tag) * associativity;
+        int slot = -1;
+        for (int i = base; i < base + associativity; i++) {
+            if (valid[i] && tags[i] == tag) {
+                slot = i;
+                break;
+            }
+            if (!valid[i] && slot < 0) {
+                slot = i;
+            }
+        }
+        if (slot < 0) {
+            slot = selectVictim(base);
+        }
+        tags[slot] = tag;
+        frameNumbers[slot] = frameNumber;
+        valid[slot] = true;
+        lastUse[slot] = ++useCounter;
+    }
+
+    /**
+     * Selecciona la entrada a reemplazar dentro de un conjunto lleno
+     */
+    private int selectVictim(int base) {
+        if (replacementPolicy == ReplacementPolicy.RANDOM) {
+            return base + random.nextInt(associativity);
+        }
+        int victim = base;
+        for (int i = base + 1; i < base + associativity; i++) {
+            if (lastUse[i] < lastUse[victim]) {
+                victim = i;
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Invalida la traducción de una página (p. ej. al desalojarla)
+     */
+    public void invalidate(int asid, int pageNumber) {
+        invalidateTag(StackDistanceAnalyzer.pageKey(asid, pageNumber));
+        if (hugePageShift > 0) {
+            invalidateTag(hugeTag(asid, pageNumber));
+        }
+    }
+
+    private void invalidateTag(long tag) {
+        int base = setIndex(tag) * associativity;
+        for (int i = base; i < base + associativity; i++) {
+            if (valid[i] && tags[i] == tag) {
+                valid[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Invalida todas las traducciones de un proceso
+     */
+    public void invalidateProcess(int asid) {
+        for (int i = 0; i < entryCount; i++) {
+            if (valid[i] && (int) ((tags[i] & ~HUGE_TAG_BIT) >>> 32) == asid) {
+                valid[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Vacía el TLB completo
+     */
+    public void flush() {
+        Arrays.fill(valid, false);
+        flushes++;
+    }
+
+    /**
+     * Con ASID las entradas sobreviven al cambio; sin ASID hay que vaciar
+     */
+    @Override
+    public void contextSwitched(int previousPid, int nextPid) {
+        if (switchPolicy == SwitchPolicy.FLUSH_ON_SWITCH && addressSpace(previousPid) != addressSpace(nextPid)) {
+            flush();
+        }
+    }
+
+    /**
+     * Hilos que comparten el espacio de direcciones de su proceso: cambiar
+     * entre hilos del mismo proceso no vacía el TLB
+     */
+    void setAddressSpaces(Map<Integer, Integer> addressSpaces) {
+        this.addressSpaces = addressSpaces;
+    }
+
+    private int addressSpace(int pid) {
+        Integer owner = addressSpaces != null ? addressSpaces.get(pid) : null;
+        return owner != null ? owner : pid;
+    }
+
+    /**
+     * Etiqueta de página grande: número de región con el bit alto marcado
+     */
+    private long hugeTag(int asid, int pageNumber) {
+        return StackDistanceAnalyzer.pageKey(asid, pageNumber >>> hugePageShift) | HUGE_TAG_BIT;
+    }
+
+    private int setIndex(long tag) {
+        long h = tag * 0x9E3779B97F4A7C15L;
+        return (int) ((h >>> 32) % setCount);
+    }
+
+    /**
+     * Tasa de aciertos del TLB en porcentaje
+     */
+    public double getHitRate() {
+        int total = hits + misses;
+        return total > 0 ? (hits * 100.0) / total : 0.0;
+    }
+
+    /**
+     * Tiempo de acceso efectivo:
+     * EAT = h·(t_tlb + t_mem) + (1 - h)·(t_tlb + niveles·t_mem + t_mem)
+     */
+    public double getEffectiveAccessTime() {
+        double h = getHitRate() / 100.0;
+        double hitTime = tlbLatency + memoryLatency;
+        double missTime = tlbLatency + walkLevels * memoryLatency + memoryLatency;
+        return h * hitTime + (1 - h) * missTime;
+    }
+
+    /**
+     * Obtiene métricas del TLB
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("tlbHits", hits);
+        metrics.put("tlbMisses", misses);
+        metrics.put("tlbHitRate", getHitRate());
+        metrics.put("tlbFlushes", flushes);
+        metrics.put("effectiveAccessTime", getEffectiveAccessTime());
+        return metrics;
+    }
+
+    // Getters
+    public int getEntryCount() { return entryCount; }
+    public int getAssociativity() { return associativity; }
+    public ReplacementPolicy getReplacementPolicy() { return replacementPolicy; }
+    public SwitchPolicy getSwitchPolicy() { return switchPolicy; }
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public int getFlushes() { return flushes; }
+
+    // Setters del modelo de tiempo
+    public void setTlbLatency(double tlbLatency) { this.tlbLatency = tlbLatency; }
+    public void setMemoryLatency(double memoryLatency) { this.memoryLatency = memoryLatency; }
+    public void setWalkLevels(int walkLevels) { this.walkLevels = walkLevels; }
+
+    /**
+     * Define el tamaño de página grande (2^shift páginas); vacía el TLB
+     */
+    public void setHugePageShift(int hugePageShift) {
+        if (this.hugePageShift != hugePageShift) {
+            this.hugePageShift = hugePageShift;
+            Arrays.fill(valid, false);
+        }
+    }
+
+    /**
+     * Reinicia el TLB y sus contadores
+     */
+    public void reset() {
+        Arrays.fill(valid, false);
+        useCounter = 0;
+        hits = 0;
+        misses = 0;
+        flushes = 0;
+        random = new Random(0);
+    }
+}
@@ -0,0 +1,243 @@
+package os.core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro estructurado de eventos de una ejecución. Los eventos se
+ * escriben como registros binarios de tamaño fijo en un buffer reservado
+ * al crear el tracer, sin crear objetos por evento. Los componentes sólo
+ * registran si tienen un tracer asignado, así que sin tracer el costo es
+ * una comparación con null.
+ *
+ * La traza se exporta en el formato JSON de eventos de Chrome, que puede
+ * abrirse como línea de tiempo en Perfetto (ui.perfetto.dev) o chrome://tracing:
+ * cada proceso es un hilo con franjas RUNNING y WAITING y marcas
+ * instantáneas para fallos de página y locks de archivo.
+ */
+public class Tracer {
+    public enum EventType {
+        DISPATCH, PREEMPT, BLOCK, UNBLOCK, EXIT, PAGE_FAULT, LOCK_ACQUIRE, LOCK_RELEASE,
+        RELEASE, JOB_DONE, DEADLINE_MISS
+    }
+
+    private static final EventType[] TYPES = EventType.values();
+
+    // Registro: instante (long), tipo (int), pid (int), argumento (int)
+    public static final int RECORD_BYTES = 20;
+
+    private ByteBuffer buffer;
+    private int capacity;                 // Eventos que caben en el buffer
+    private int eventCount;
+    private long droppedEvents;           // Eventos descartados con el buffer lleno
+    private boolean enabled;
+    private LongSupplier clock;           // Fuente del instante de cada evento
+    private double microsPerUnit;         // Escala del reloj al exportar (microsegundos por unidad)
+    private Map<Integer, String> fileNames; // Descriptor -> nombre, para exportar
+
+    /**
+     * Constructor del tracer
+     * @param capacity número máximo de eventos
+     * @param clock fuente del instante de cada evento (p. ej. scheduler::getCurrentTime)
+     */
+    public Tracer(int capacity, LongSupplier clock) {
+        if (capacity <= 0 || (long) capacity * RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacidad de traza inválida: " + capacity);
+        }
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocate(capacity * RECORD_BYTES);
+        this.clock = clock;
+        this.enabled = true;
+        this.microsPerUnit = 1.0;
+        this.fileNames = new HashMap<>();
+    }
+
+    /**
+     * Registra un evento en el instante actual del reloj
+     * @param arg dato del evento (página, descriptor de archivo, ticks de espera...)
+     */
+    public void record(EventType type, int pid, int arg) {
+        if (!enabled) {
+            return;
+        }
+        if (eventCount == capacity) {
+            droppedEvents++;
+            return;
+        }
+        int offset = eventCount * RECORD_BYTES;
+        buffer.putLong(offset, clock.getAsLong());
+        buffer.putInt(offset + 8, type.ordinal());
+        buffer.putInt(offset + 12, pid);
+        buffer.putInt(offset + 16, arg);
+        eventCount++;
+    }
+
+    // Lectura de los eventos registrados
+    public long getTimestamp(int index) { return buffer.getLong(checkIndex(index) * RECORD_BYTES); }
+    public EventType getType(int index) { return TYPES[buffer.getInt(checkIndex(index) * RECORD_BYTES + 8)]; }
+    public int getPid(int index) { return buffer.getInt(checkIndex(index) * RECORD_BYTES + 12); }
+    public int getArg(int index) { return buffer.getInt(checkIndex(index) * RECORD_BYTES + 16); }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= eventCount) {
+            throw new IndexOutOfBoundsException("Evento fuera de rango: " + index);
+        }
+        return index;
+    }
+
+    /**
+     * Asocia un nombre a un descriptor de archivo para la exportación
+     */
+    public void setFileName(int handle, String name) {
+        fileNames.put(handle, name);
+    }
+
+    /**
+     * Escribe la traza en formato JSON de eventos de Chrome
+     */
+    public void writeChromeTrace(Writer out) throws IOException {
+        Map<Integer, Long> runningSince = new HashMap<>();
+        Map<Integer, Long> waitingSince = new HashMap<>();
+        Set<Integer> pids = new TreeSet<>();
+        long lastTimestamp = 0;
+        boolean first = true;
+
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        for (int i = 0; i < eventCount; i++) {
+            long ts = getTimestamp(i);
+            int pid = getPid(i);
+            int arg = getArg(i);
+            lastTimestamp = Math.max(lastTimestamp, ts);
+            pids.add(pid);
+            switch (getType(i)) {
+                case DISPATCH:
+                    runningSince.put(pid, ts);
+                    break;
+                case PREEMPT:
+                case EXIT:
+                case JOB_DONE:
+                    first = writeSlice(out, first, "RUNNING", pid, runningSince.remove(pid), ts);
+                    break;
+                case BLOCK:
+                    first = writeSlice(out, first, "RUNNING", pid, runningSince.remove(pid), ts);
+                    waitingSince.put(pid, ts);
+                    break;
+                case UNBLOCK:
+                    first = writeSlice(out, first, "WAITING", pid, waitingSince.remove(pid), ts);
+                    break;
+                case PAGE_FAULT:
+                    first = writeInstant(out, first, "page fault", pid, ts, "\"page\":" + arg);
+                    break;
+                case LOCK_ACQUIRE:
+                    first = writeInstant(out, first, "lock " + fileLabel(arg), pid, ts,
+                            "\"file\":\"" + escape(fileLabel(arg)) + "\"");
+                    break;
+                case LOCK_RELEASE:
+                    first = writeInstant(out, first, "unlock " + fileLabel(arg), pid, ts,
+                            "\"file\":\"" + escape(fileLabel(arg)) + "\"");
+                    break;
+                case RELEASE:
+                    first = writeInstant(out, first, "release", pid, ts, "\"job\":" + arg);
+                    break;
+                case DEADLINE_MISS:
+                    first = writeInstant(out, first, "deadline miss", pid, ts, "\"lateness\":" + arg);
+                    break;
+            }
+        }
+
+        // Cerrar las franjas que seguían abiertas al final de la traza
+        for (Map.Entry<Integer, Long> entry : runningSince.entrySet()) {
+            first = writeSlice(out, first, "RUNNING", entry.getKey(), entry.getValue(), lastTimestamp);
+        }
+        for (Map.Entry<Integer, Long> entry : waitingSince.entrySet()) {
+            first = writeSlice(out, first, "WAITING", entry.getKey(), entry.getValue(), lastTimestamp);
+        }
+
+        // Nombres de los hilos (uno por proceso simulado)
+        for (int pid : pids) {
+            first = separator(out, first);
+            out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + pid +
+                    ",\"args\":{\"name\":\"P" + pid + "\"}}");
+        }
+        out.write("\n]}\n");
+        out.flush();
+    }
+
+    /**
+     * Exporta la traza a un archivo JSON
+     */
+    public void exportChromeTrace(Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeChromeTrace(out);
+        }
+    }
+
+    private boolean writeSlice(Writer out, boolean first, String name, int pid,
+                               Long start, long end) throws IOException {
+        if (start == null) {
+            return first;
+        }
+        separator(out, first);
+        out.write("{\"name\":\"" + name + "\",\"ph\":\"X\",\"pid\":1,\"tid\":" + pid +
+                ",\"ts\":" + micros(start) + ",\"dur\":" + micros(end - start) + "}");
+        return false;
+    }
+
+    private boolean writeInstant(Writer out, boolean first, String name, int pid,
+                                 long ts, String args) throws IOException {
+        separator(out, first);
+        out.write("{\"name\":\"" + escape(name) + "\",\"ph\":\"i\",\"s\":\"t\",\"pid\":1,\"tid\":" + pid +
+                ",\"ts\":" + micros(ts) + ",\"args\":{" + args + "}}");
+        return false;
+    }
+
+    private static boolean separator(Writer out, boolean first) throws IOException {
+        if (!first) {
+            out.write(",\n");
+        }
+        return false;
+    }
+
+    private String micros(long units) {
+        double value = units * microsPerUnit;
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private String fileLabel(int handle) {
+        return fileNames.getOrDefault(handle, "#" + handle);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Descarta los eventos registrados (el buffer se reutiliza)
+     */
+    public void clear() {
+        eventCount = 0;
+        droppedEvents = 0;
+    }
+
+    // Getters y setters
+    public int getCapacity() { return capacity; }
+    public int getEventCount() { return eventCount; }
+    public long getDroppedEvents() { return droppedEvents; }
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public double getMicrosPerUnit() { return microsPerUnit; }
+
+    /**
+     * Escala de exportación: microsegundos que representa cada unidad del reloj
+     */
+    public void setMicrosPerUnit(double microsPerUnit) {
+        if (microsPerUnit <= 0) {
+            throw new IllegalArgumentException("microsPerUnit debe ser positivo");
+        }
+        this.microsPerUnit = microsPerUnit;
+    }
+}
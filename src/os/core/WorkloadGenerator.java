@@ -0,0 +1,368 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Generador de cargas de trabajo sintéticas y reproducibles. Produce los
+ * procesos bajo demanda (Iterator), en orden de llegada, de modo que una
+ * simulación de millones de procesos no necesita crearlos todos de antemano:
+ * basta con conectarlo al Scheduler con setArrivalSource.
+ *
+ * Con la misma semilla y configuración se obtiene siempre la misma secuencia.
+ */
+public class WorkloadGenerator implements Iterator<Process> {
+    public enum ArrivalPattern { POISSON, BURSTY }
+    public enum BurstDistribution { UNIFORM, EXPONENTIAL, PARETO }
+
+    private long seed;
+    private Random random;
+    private long processCount;            // Procesos a generar (Long.MAX_VALUE = sin límite)
+    private long generated;
+    private double clock;                 // Tiempo de llegada acumulado (continuo)
+
+    // Llegadas
+    private ArrivalPattern arrivalPattern;
+    private double arrivalRate;           // Llegadas por tick (en ráfaga para BURSTY)
+    private double meanBurstPeriod;       // Duración media de los periodos de ráfaga (BURSTY)
+    private double meanIdlePeriod;        // Duración media de los periodos sin llegadas (BURSTY)
+    private double periodEnd;             // Fin del periodo de ráfaga actual
+
+    // Tiempo de CPU
+    private BurstDistribution burstDistribution;
+    private int minBurst;
+    private int maxBurst;
+    private double meanBurst;
+    private double paretoAlpha;
+
+    // Prioridad
+    private int minPriority;
+    private int maxPriority;
+
+    // Páginas
+    private int minPages;
+    private int maxPages;
+    private int addressSpacePages;
+    private int pageRunLength;            // Páginas consecutivas por racha
+
+    // Archivos
+    private int fileCount;
+    private int minFiles;
+    private int maxFiles;
+    private double zipfExponent;
+    private double[] zipfCdf;
+
+    // Ráfagas de E/S (0 = sólo una ráfaga de CPU)
+    private int maxIoBursts;
+    private int minIoTime;
+    private int maxIoTime;
+
+    /**
+     * Constructor del generador
+     * @param seed semilla de los números aleatorios
+     * @param processCount procesos a generar (Long.MAX_VALUE = sin límite)
+     */
+    public WorkloadGenerator(long seed, long processCount) {
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.processCount = processCount;
+        this.generated = 0;
+        this.clock = 0;
+        this.arrivalPattern = ArrivalPattern.POISSON;
+        this.arrivalRate = 1.0;
+        this.meanBurstPeriod = 10;
+        this.meanIdlePeriod = 10;
+        this.periodEnd = -1;
+        this.burstDistribution = BurstDistribution.EXPONENTIAL;
+        this.minBurst = 1;
+        this.maxBurst = 1000;
+        this.meanBurst = 10;
+        this.paretoAlpha = 1.5;
+        this.minPriority = 1;
+        this.maxPriority = 10;
+        this.minPages = 5;
+        this.maxPages = 5;
+        this.addressSpacePages = 30;
+        this.pageRunLength = 1;
+        this.minFiles = 1;
+        this.maxFiles = 1;
+        setFilePopularity(3, 0.0);
+    }
+
+    /**
+     * Llegadas de Poisson: tiempos entre llegadas exponenciales de media 1/rate
+     */
+    public void setPoissonArrivals(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate debe ser positivo");
+        }
+        this.arrivalPattern = ArrivalPattern.POISSON;
+        this.arrivalRate = rate;
+    }
+
+    /**
+     * Llegadas en ráfagas (proceso on/off): durante las ráfagas llegan
+     * procesos a ritmo rate; entre ráfagas no llega ninguno. Las duraciones
+     * de ambos periodos son exponenciales.
+     */
+    public void setBurstyArrivals(double rate, double meanBurstPeriod, double meanIdlePeriod) {
+        if (rate <= 0 || meanBurstPeriod <= 0 || meanIdlePeriod < 0) {
+            throw new IllegalArgumentException("Parámetros de llegada inválidos");
+        }
+        this.arrivalPattern = ArrivalPattern.BURSTY;
+        this.arrivalRate = rate;
+        this.meanBurstPeriod = meanBurstPeriod;
+        this.meanIdlePeriod = meanIdlePeriod;
+        this.periodEnd = -1;
+    }
+
+    /**
+     * Ráfagas de CPU uniformes en [min, max]
+     */
+    public void setUniformBurst(int min, int max) {
+        checkRange(min, max);
+        this.burstDistribution = BurstDistribution.UNIFORM;
+        this.minBurst = min;
+        this.maxBurst = max;
+    }
+
+    /**
+     * Ráfagas de CPU exponenciales de media mean, acotadas a [1, max]
+     */
+    public void setExponentialBurst(double mean, int max) {
+        if (mean <= 0) {
+            throw new IllegalArgumentException("mean debe ser positivo");
+        }
+        checkRange(1, max);
+        this.burstDistribution = BurstDistribution.EXPONENTIAL;
+        this.meanBurst = mean;
+        this.minBurst = 1;
+        this.maxBurst = max;
+    }
+
+    /**
+     * Ráfagas de CPU de cola pesada (Pareto) con mínimo min, acotadas a max
+     */
+    public void setParetoBurst(int min, double alpha, int max) {
+        if (alpha <= 0) {
+            throw new IllegalArgumentException("alpha debe ser positivo");
+        }
+        checkRange(min, max);
+        this.burstDistribution = BurstDistribution.PARETO;
+        this.minBurst = min;
+        this.paretoAlpha = alpha;
+        this.maxBurst = max;
+    }
+
+    /**
+     * Prioridades uniformes en [min, max]
+     */
+    public void setPriorityRange(int min, int max) {
+        checkRange(min, max);
+        this.minPriority = min;
+        this.maxPriority = max;
+    }
+
+    /**
+     * Huella de memoria: entre min y max páginas de un espacio de
+     * addressSpacePages, agrupadas en rachas de runLength páginas consecutivas
+     */
+    public void setPageFootprint(int min, int max, int addressSpacePages, int runLength) {
+        checkRange(min, max);
+        if (addressSpacePages <= 0 || runLength <= 0) {
+            throw new IllegalArgumentException("Parámetros de páginas inválidos");
+        }
+        this.minPages = min;
+        this.maxPages = max;
+        this.addressSpacePages = addressSpacePages;
+        this.pageRunLength = runLength;
+    }
+
+    /**
+     * Popularidad de archivos según Zipf: el archivo de rango k se elige con
+     * probabilidad proporcional a 1/k^exponent (0 = uniforme)
+     */
+    public void setFilePopularity(int fileCount, double exponent) {
+        if (fileCount <= 0 || exponent < 0) {
+            throw new IllegalArgumentException("Parámetros de archivos inválidos");
+        }
+        this.fileCount = fileCount;
+        this.zipfExponent = exponent;
+        this.zipfCdf = new double[fileCount];
+        double sum = 0;
+        for (int k = 1; k <= fileCount; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            zipfCdf[k - 1] = sum;
+        }
+        for (int k = 0; k < fileCount; k++) {
+            zipfCdf[k] /= sum;
+        }
+    }
+
+    /**
+     * Archivos por proceso en [min, max]
+     */
+    public void setFilesPerProcess(int min, int max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Rango inválido: " + min + ".." + max);
+        }
+        this.minFiles = min;
+        this.maxFiles = max;
+    }
+
+    /**
+     * Alterna ráfagas de CPU y de E/S: cada proceso tiene entre 0 y
+     * maxIoBursts ráfagas de E/S de duración uniforme en [minIo, maxIo],
+     * separadas por ráfagas de CPU de la distribución configurada
+     * (0 = desactivado)
+     */
+    public void setIoBursts(int maxIoBursts, int minIo, int maxIo) {
+        if (maxIoBursts < 0) {
+            throw new IllegalArgumentException("maxIoBursts no puede ser negativo");
+        }
+        if (maxIoBursts > 0) {
+            checkRange(minIo, maxIo);
+        }
+        this.maxIoBursts = maxIoBursts;
+        this.minIoTime = minIo;
+        this.maxIoTime = maxIo;
+    }
+
+    /**
+     * Nombre del archivo de rango k (1 = más popular)
+     */
+    public static String fileName(int rank) {
+        return "file" + rank + ".txt";
+    }
+
+    @Override
+    public boolean hasNext() {
+        return generated < processCount;
+    }
+
+    @Override
+    public Process next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        generated++;
+        int pid = (int) generated;
+        int arrival = nextArrival();
+        int burst = nextBurst();
+        int priority = uniform(minPriority, maxPriority);
+        Process process = new Process(pid, "P" + pid, priority, burst, arrival, nextPages(), nextFiles());
+        if (maxIoBursts > 0) {
+            int ioCount = uniform(0, maxIoBursts);
+            if (ioCount > 0) {
+                int[] bursts = new int[2 * ioCount + 1];
+                bursts[0] = burst;
+                for (int i = 1; i < bursts.length; i += 2) {
+                    bursts[i] = uniform(minIoTime, maxIoTime);
+                    bursts[i + 1] = nextBurst();
+                }
+                process.setBursts(bursts);
+            }
+        }
+        return process;
+    }
+
+    private int nextArrival() {
+        if (arrivalPattern == ArrivalPattern.BURSTY) {
+            if (periodEnd < 0) {
+                periodEnd = clock + exponential(meanBurstPeriod);
+            }
+            double candidate = clock + exponential(1.0 / arrivalRate);
+            // Si la llegada cae fuera de la ráfaga, saltar el periodo inactivo
+            while (candidate > periodEnd) {
+                double idleEnd = periodEnd + exponential(meanIdlePeriod);
+                periodEnd = idleEnd + exponential(meanBurstPeriod);
+                candidate = idleEnd + exponential(1.0 / arrivalRate);
+            }
+            clock = candidate;
+        } else {
+            clock += exponential(1.0 / arrivalRate);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (long) clock);
+    }
+
+    private int nextBurst() {
+        double value;
+        switch (burstDistribution) {
+            case UNIFORM:
+                return uniform(minBurst, maxBurst);
+            case PARETO:
+                value = minBurst / Math.pow(1.0 - random.nextDouble(), 1.0 / paretoAlpha);
+                break;
+            default:
+                value = exponential(meanBurst);
+                break;
+        }
+        return (int) Math.max(minBurst, Math.min(maxBurst, Math.ceil(value)));
+    }
+
+    private List<Integer> nextPages() {
+        int count = uniform(minPages, maxPages);
+        List<Integer> pages = new ArrayList<>(count);
+        while (pages.size() < count) {
+            int start = random.nextInt(addressSpacePages);
+            for (int i = 0; i < pageRunLength && pages.size() < count; i++) {
+                pages.add((start + i) % addressSpacePages);
+            }
+        }
+        return pages;
+    }
+
+    private List<String> nextFiles() {
+        int count = uniform(minFiles, maxFiles);
+        List<String> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(zipfCdf, random.nextDouble());
+            int rank = (index >= 0 ? index : -index - 1) + 1;
+            files.add(fileName(Math.min(rank, fileCount)));
+        }
+        return files;
+    }
+
+    private double exponential(double mean) {
+        return -mean * Math.log(1.0 - random.nextDouble());
+    }
+
+    private int uniform(int min, int max) {
+        return min + random.nextInt(max - min + 1);
+    }
+
+    private static void checkRange(int min, int max) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("Rango inválido: " + min + ".." + max);
+        }
+    }
+
+    /**
+     * Descarta los siguientes count procesos; junto con restart permite
+     * reconectar el generador tras restaurar un checkpoint
+     */
+    public void skip(long count) {
+        for (long i = 0; i < count && hasNext(); i++) {
+            next();
+        }
+    }
+
+    /**
+     * Vuelve al inicio de la secuencia (misma semilla)
+     */
+    public void restart() {
+        random = new Random(seed);
+        generated = 0;
+        clock = 0;
+        periodEnd = -1;
+    }
+
+    // Getters
+    public long getSeed() { return seed; }
+    public long getProcessCount() { return processCount; }
+    public long getGenerated() { return generated; }
+    public int getFileCount() { return fileCount; }
+    public ArrivalPattern getArrivalPattern() { return arrivalPattern; }
+    public BurstDistribution getBurstDistribution() { return burstDistribution; }
+    public double getZipfExponent() { return zipfExponent; }
+    public int getMaxIoBursts() { return maxIoBursts; }
+}
@@ -0,0 +1,61 @@
+package os.core;
+
+import java.util.*;
+
+/**
+ * Demonio de escritura diferida. En cada tick, si quedan menos marcos
+ * limpios o libres que el objetivo, escribe al intercambio un lote de
+ * páginas sucias en el orden en que serían desalojadas, de modo que el
+ * reemplazo encuentre víctimas limpias y no tenga que esperar la escritura.
+ */
+public class WriteBackDaemon {
+    private int targetCleanFrames;   // Marcos limpios o libres que se intentan mantener
+    private int batchSize;           // Páginas escritas como máximo por ejecución
+    private int runs;
+    private long pagesCleaned;
+
+    public WriteBackDaemon(int targetCleanFrames, int batchSize) {
+        if (targetCleanFrames < 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Parámetros del demonio inválidos");
+        }
+        this.targetCleanFrames = targetCleanFrames;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Ejecuta una pasada del demonio sobre la memoria
+     */
+    void run(MemoryManager memory, SwapDevice swap, long now) {
+        int clean = memory.countCleanFrames();
+        if (clean >= targetCleanFrames) {
+            return;
+        }
+        runs++;
+        int budget = Math.min(batchSize, targetCleanFrames - clean);
+        List<Integer> candidates = memory.dirtyFramesInEvictionOrder();
+        int written = 0;
+        for (int i = 0; i < candidates.size() && written < budget; i++) {
+            memory.cleanFrame(candidates.get(i));
+            written++;
+        }
+        if (written > 0) {
+            // El lote completo se envía como una sola operación del dispositivo
+            swap.write(now, written);
+            pagesCleaned += written;
+        }
+    }
+
+    // Getters
+    public int getTargetCleanFrames() { return targetCleanFrames; }
+    public int getBatchSize() { return batchSize; }
+    public int getRuns() { return runs; }
+    public long getPagesCleaned() { return pagesCleaned; }
+
+    /**
+     * Reinicia los contadores
+     */
+    public void reset() {
+        runs = 0;
+        pagesCleaned = 0;
+    }
+}
@@ -8,10 +8,21 @@ import java.util.*;
 import java.util.List;
 import javax.swing.border.*;
 
+import os.core.BlockDevice;
+import os.core.BufferCache;
+import os.core.Checkpoint;
 import os.core.Process;
+import os.core.Recording;
+import os.core.Replayer;
 import os.core.Scheduler;
+import os.core.SimulationRecorder;
 import os.core.MemoryManager;
 import os.core.FileSystem;
+import os.core.IoScheduler;
+import os.core.StackDistanceAnalyzer;
+import os.core.Tlb;
+import os.core.Tracer;
+import os.core.WorkloadGenerator;
 
 /**
  * Interfaz gráfica principal del Simulador de Sistema Operativo
@@ -21,6 +32,13 @@ public class OSSimulatorGUI extends JFrame {
     private Scheduler scheduler;
     private MemoryManager memoryManager;
     private FileSystem fileSystem;
+    private StackDistanceAnalyzer referenceAnalyzer;
+    private Tlb tlb;
+    private Tracer tracer;
+    private Checkpoint lastCheckpoint;   // Último estado guardado (para volver tras un deadlock)
+    private SimulationRecorder recorder; // Graba la ejecución para reproducirla con Replayer
+    private int swapAreaStart;           // Primer bloque del área de intercambio en el disco
+    private static final int SWAP_AREA_BLOCKS = 2048;
 
     // Componentes de UI
     private JTabbedPane tabbedPane;
@@ -51,6 +69,7 @@ public class OSSimulatorGUI extends JFrame {
     private javax.swing.Timer simulationTimer;
     private boolean isRunning;
     private int simulationSpeed = 500; // ms
+    private long workloadSeed = 2025;  // semilla de la carga de ejemplo (reproducible)
 
     // Visual frames for memory
     private JLabel[] frameContentLabels;
@@ -67,13 +86,47 @@ public class OSSimulatorGUI extends JFrame {
     private void initializeComponents() {
         // Crear scheduler primero (para pasarlo como listener si se necesita)
         scheduler = new Scheduler(Scheduler.SchedulingAlgorithm.ROUND_ROBIN, 4);
-        memoryManager = new MemoryManager(16, MemoryManager.PageReplacementAlgorithm.LRU);
         fileSystem = new FileSystem();
+        // Registrar las referencias para calcular la curva de fallos de todos los tamaños
+        referenceAnalyzer = new StackDistanceAnalyzer();
+        // TLB de 8 entradas, asociativo de 2 vías, con ASID (sobrevive a los cambios de contexto)
+        tlb = new Tlb(8, 2, Tlb.ReplacementPolicy.LRU, Tlb.SwitchPolicy.ASID_TAGGED);
+        scheduler.addContextSwitchListener(tlb);
+        // Traza de eventos en ticks del scheduler, exportable a Perfetto
+        tracer = new Tracer(1 << 16, scheduler.getClock());
+        scheduler.setTracer(tracer);
+        fileSystem.setTracer(tracer);
+        // Todos los componentes miden en ticks del scheduler
+        fileSystem.setClock(scheduler.getClock());
+        // Archivos e intercambio sobre un disco de 4096 bloques de 512 B, con
+        // caché 2Q de 8 bloques y cola del disco C-LOOK
+        BlockDevice disk = new BlockDevice(512, 4096, 8, 4);
+        fileSystem.setBlockDevice(disk, new BufferCache(8, BufferCache.ReplacementPolicy.TWO_Q, 2));
+        IoScheduler ioScheduler = new IoScheduler(disk, IoScheduler.Policy.C_LOOK);
+        ioScheduler.setListener(scheduler);
+        fileSystem.setIoScheduler(ioScheduler);
+        swapAreaStart = fileSystem.reserveBlocks(SWAP_AREA_BLOCKS);
+        memoryManager = new MemoryManager(16, MemoryManager.PageReplacementAlgorithm.LRU);
+        configureMemoryManager();
         // Registrar scheduler como listener del fileSystem para bloqueos/desbloqueos
         fileSystem.setListener(scheduler);
         isRunning = false;
     }
 
+    /**
+     * Conecta el gestor de memoria (recién creado) con el resto del simulador
+     */
+    private void configureMemoryManager() {
+        memoryManager.setReferenceAnalyzer(referenceAnalyzer);
+        memoryManager.setTlb(tlb);
+        memoryManager.setTracer(tracer);
+        memoryManager.setClock(scheduler.getClock());
+        // Si se configura un dispositivo de intercambio, los fallos bloquean al proceso
+        memoryManager.setStallListener(scheduler);
+        // Páginas de 4 KiB (8 bloques) en el área de intercambio del disco
+        memoryManager.setSwapArea(fileSystem.getIoScheduler(), swapAreaStart, SWAP_AREA_BLOCKS, 8);
+    }
+
     /**
      * Configura la interfaz de usuario
      */
@@ -230,15 +283,19 @@ public class OSSimulatorGUI extends JFrame {
 
         configPanel.add(new JLabel("Algoritmo:"));
         JComboBox<String> algoCombo = new JComboBox<>(
-                new String[]{"Round Robin", "SJF", "Prioridad"});
+                new String[]{"Round Robin", "SJF", "Prioridad", "EDF", "Rate Monotonic"});
         algoCombo.addActionListener(e -> {
             String selected = (String) algoCombo.getSelectedItem();
             if (selected.equals("Round Robin")) {
-                scheduler.setAlgorithm(Scheduler.SchedulingAlgorithm.ROUND_ROBIN);
+                recorder.setAlgorithm(Scheduler.SchedulingAlgorithm.ROUND_ROBIN);
             } else if (selected.equals("SJF")) {
-                scheduler.setAlgorithm(Scheduler.SchedulingAlgorithm.SJF);
+                recorder.setAlgorithm(Scheduler.SchedulingAlgorithm.SJF);
+            } else if (selected.equals("Prioridad")) {
+                recorder.setAlgorithm(Scheduler.SchedulingAlgorithm.PRIORITY);
+            } else if (selected.equals("EDF")) {
+                recorder.setAlgorithm(Scheduler.SchedulingAlgorithm.EDF);
             } else {
-                scheduler.setAlgorithm(Scheduler.SchedulingAlgorithm.PRIORITY);
+                recorder.setAlgorithm(Scheduler.SchedulingAlgorithm.RATE_MONOTONIC);
             }
             log("Algoritmo cambiado a: " + selected);
         });
@@ -247,7 +304,7 @@ public class OSSimulatorGUI extends JFrame {
         configPanel.add(new JLabel("Quantum:"));
         JSpinner quantumSpinner = new JSpinner(new SpinnerNumberModel(4, 1, 10, 1));
         quantumSpinner.addChangeListener(e -> {
-            scheduler.setTimeQuantum((Integer) quantumSpinner.getValue());
+            recorder.setTimeQuantum((Integer) quantumSpinner.getValue());
         });
         configPanel.add(quantumSpinner);
 
@@ -294,11 +351,16 @@ public class OSSimulatorGUI extends JFrame {
         JComboBox<String> algoCombo = new JComboBox<>(new String[]{"FIFO", "LRU"});
         algoCombo.addActionListener(e -> {
             String selected = (String) algoCombo.getSelectedItem();
+            // El gestor reemplazado deja de observar la cola del disco
+            memoryManager.setSwapArea(null, 0, 0, 0);
             if (selected.equals("FIFO")) {
                 memoryManager = new MemoryManager(16, MemoryManager.PageReplacementAlgorithm.FIFO);
             } else {
                 memoryManager = new MemoryManager(16, MemoryManager.PageReplacementAlgorithm.LRU);
             }
+            configureMemoryManager();
+            // La grabación anterior usaba el gestor reemplazado
+            recorder = new SimulationRecorder(scheduler, memoryManager, fileSystem);
             log("Algoritmo de memoria cambiado a: " + selected);
             updateMemoryView();
             updateMetrics();
@@ -399,16 +461,25 @@ public class OSSimulatorGUI extends JFrame {
         JButton btnPause = createStyledButton("⏸ Pausar", new Color(241, 196, 15));
         JButton btnReset = createStyledButton("↻ Reiniciar", new Color(231, 76, 60));
         JButton btnStep = createStyledButton("→ Paso", new Color(52, 152, 219));
+        JButton btnTrace = createStyledButton("⤓ Traza", new Color(142, 68, 173));
+        JButton btnCheckpoint = createStyledButton("💾 Checkpoint", new Color(22, 160, 133));
+        JButton btnRecording = createStyledButton("⏺ Grabación", new Color(192, 57, 43));
 
         btnStart.addActionListener(e -> startSimulation());
         btnPause.addActionListener(e -> pauseSimulation());
         btnReset.addActionListener(e -> resetSimulation());
         btnStep.addActionListener(e -> stepSimulation());
+        btnTrace.addActionListener(e -> exportTrace());
+        btnCheckpoint.addActionListener(e -> saveCheckpoint());
+        btnRecording.addActionListener(e -> saveRecording());
 
         panel.add(btnStart);
         panel.add(btnPause);
         panel.add(btnStep);
         panel.add(btnReset);
+        panel.add(btnTrace);
+        panel.add(btnCheckpoint);
+        panel.add(btnRecording);
 
         // Control de velocidad
         panel.add(new JLabel("Velocidad:"));
@@ -454,27 +525,15 @@ public class OSSimulatorGUI extends JFrame {
      * Crea datos de ejemplo para la simulación
      */
     private void createSampleData() {
-        // Crear procesos de ejemplo
-        Random rand = new Random();
-        for (int i = 1; i <= 8; i++) {
-            List<Integer> pages = new ArrayList<>();
-            for (int j = 0; j < 5; j++) {
-                pages.add(rand.nextInt(30));
-            }
-
-            List<String> files = new ArrayList<>();
-            files.add("file" + (rand.nextInt(3) + 1) + ".txt");
-
-            Process p = new Process(
-                    i,
-                    "P" + i,
-                    rand.nextInt(5) + 1,
-                    rand.nextInt(15) + 5,
-                    rand.nextInt(10),
-                    pages,
-                    files
-            );
-            scheduler.addProcess(p);
+        // Crear procesos de ejemplo con una carga sintética reproducible
+        WorkloadGenerator generator = new WorkloadGenerator(workloadSeed, 8);
+        generator.setPoissonArrivals(0.8);
+        generator.setUniformBurst(5, 19);
+        generator.setPriorityRange(1, 5);
+        generator.setPageFootprint(5, 5, 30, 1);
+        generator.setFilePopularity(3, 0.0);
+        while (generator.hasNext()) {
+            scheduler.addProcess(generator.next());
         }
 
         // Crear archivos de ejemplo
@@ -482,7 +541,10 @@ public class OSSimulatorGUI extends JFrame {
         fileSystem.createFile("file2.txt", "Contenido inicial 2");
         fileSystem.createFile("file3.txt", "Contenido inicial 3");
 
-        log("Sistema inicializado con 8 procesos y 3 archivos");
+        // Grabar desde el estado inicial
+        recorder = new SimulationRecorder(scheduler, memoryManager, fileSystem);
+
+        log("Sistema inicializado con 8 procesos y 3 archivos (semilla " + workloadSeed + ")");
         updateAllViews();
     }
 
@@ -516,37 +578,127 @@ public class OSSimulatorGUI extends JFrame {
         pauseSimulation();
         scheduler.reset();
         memoryManager.reset();
+        referenceAnalyzer.reset();
+        tracer.clear();
+        lastCheckpoint = null;
         fileSystem.reset();
         logArea.setText("");
         createSampleData();
         log("Simulación reiniciada");
     }
 
+    /**
+     * Exporta la traza de eventos en formato JSON de Chrome (abrir en ui.perfetto.dev)
+     */
+    private void exportTrace() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File("traza.json"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            tracer.exportChromeTrace(chooser.getSelectedFile().toPath());
+            log(String.format("Traza exportada: %d eventos (%d descartados) en %s",
+                    tracer.getEventCount(), tracer.getDroppedEvents(), chooser.getSelectedFile()));
+        } catch (java.io.IOException ex) {
+            JOptionPane.showMessageDialog(this, "No se pudo exportar la traza: " + ex.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Guarda la grabación de la ejecución y comprueba que se reproduce igual
+     */
+    private void saveRecording() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File("simulacion.osrr"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            Recording recording = recorder.getRecording();
+            recording.write(chooser.getSelectedFile().toPath());
+            log(String.format("Grabación guardada: %d operaciones, %d eventos en %s",
+                    recording.getCommandCount(), recording.getEventCount(), chooser.getSelectedFile()));
+            log(Replayer.replay(recording).toString());
+        } catch (java.io.IOException ex) {
+            JOptionPane.showMessageDialog(this, "No se pudo guardar la grabación: " + ex.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Guarda el estado actual para poder volver a él
+     */
+    private void saveCheckpoint() {
+        lastCheckpoint = Checkpoint.capture(scheduler, memoryManager, fileSystem);
+        log(String.format("Checkpoint guardado en t=%d (%d bytes)",
+                scheduler.getCurrentTime(), lastCheckpoint.getSizeBytes()));
+    }
+
+    /**
+     * Vuelve al último checkpoint guardado
+     */
+    private void restoreCheckpoint() {
+        lastCheckpoint.restore(scheduler, memoryManager, fileSystem);
+        recorder = new SimulationRecorder(scheduler, memoryManager, fileSystem);
+        log("Estado restaurado al checkpoint de t=" + scheduler.getCurrentTime());
+        updateAllViews();
+    }
+
     /**
      * Ejecuta un paso de la simulación
      */
     private void stepSimulation() {
-        boolean hasWork = scheduler.executeStep();
+        boolean hasWork = recorder.executeStep();
 
         if (hasWork) {
             Process current = scheduler.getCurrentProcess();
+            recorder.tick();
             if (current != null) {
-                // Simular acceso a memoria
-                for (int page : current.getRequiredPages()) {
-                    boolean pageFault = memoryManager.accessPage(current.getPid(), page);
-                    if (pageFault) {
-                        log(String.format("P%d: Fallo de página %d",
-                                current.getPid(), page));
-                    }
+                int pid = current.getPid();
+                // Simular acceso a memoria: un lote por tick que termina en el primer fallo,
+                // porque el fallo se atiende desde el intercambio y bloquea al proceso
+                List<Integer> requiredPages = current.getRequiredPages();
+                int[] pages = new int[requiredPages.size()];
+                for (int i = 0; i < pages.length; i++) {
+                    pages[i] = requiredPages.get(i);
+                }
+                BitSet faults = recorder.accessPages(pid, pages, false, true);
+                for (int i = faults.nextSetBit(0); i >= 0; i = faults.nextSetBit(i + 1)) {
+                    log(String.format("P%d: Fallo de página %d", pid, pages[i]));
+                }
+                if (current.getState() == Process.ProcessState.WAITING) {
+                    log(String.format("P%d: Bloqueado atendiendo el fallo desde el disco", pid));
                 }
 
-                // Simular acceso a archivos (READ por defecto)
-                for (String file : current.getRequiredFiles()) {
-                    boolean granted = fileSystem.requestAccess(current.getPid(), file,
+                // Simular acceso a archivos (READ por defecto) si no quedó bloqueado por el fallo
+                if (current.getState() != Process.ProcessState.WAITING) {
+                    List<String> requiredFiles = current.getRequiredFiles();
+                    int[] handles = new int[requiredFiles.size()];
+                    for (int i = 0; i < handles.length; i++) {
+                        handles[i] = fileSystem.open(requiredFiles.get(i));
+                    }
+                    // Todos los archivos en una solicitud; si alguno está ocupado el
+                    // FileSystem ya notificó el bloqueo al scheduler (listener)
+                    BitSet granted = recorder.requestAccess(pid, handles,
                             FileSystem.SimulatedFile.FileAccessType.READ);
-                    if (!granted) {
-                        // requestAccess ya notificó al scheduler (listener), así que aquí sólo logeamos.
-                        log(String.format("P%d: Bloqueado por archivo %s", current.getPid(), file));
+                    for (int i = 0; i < handles.length; i++) {
+                        String file = requiredFiles.get(i);
+                        if (handles[i] < 0) {
+                            log(String.format("P%d: El archivo %s no existe", pid, file));
+                            continue;
+                        }
+                        if (!granted.get(i)) {
+                            log(String.format("P%d: Bloqueado por archivo %s", pid, file));
+                            continue;
+                        }
+                        // Leer el archivo: si falla en la caché, espera al disco
+                        recorder.readFile(pid, handles[i], 0, Integer.MAX_VALUE);
+                        if (current.getState() == Process.ProcessState.WAITING) {
+                            log(String.format("P%d: Bloqueado leyendo %s del disco", pid, file));
+                            break;
+                        }
                     }
                 }
             }
@@ -576,8 +728,10 @@ public class OSSimulatorGUI extends JFrame {
         boolean readyEmpty = scheduler.getReadyQueue().isEmpty();
         // scheduler.getWaitingProcesses() debe existir en tu Scheduler (lo usas ya en updateProcessTable)
         boolean waitingExists = !scheduler.getWaitingProcesses().isEmpty();
+        // Los procesos que esperan una E/S temporizada volverán solos a READY
+        boolean timedWaits = scheduler.hasTimedWaits();
 
-        return noCurrent && readyEmpty && waitingExists;
+        return noCurrent && readyEmpty && waitingExists && !timedWaits;
     }
 
     /**
@@ -585,6 +739,7 @@ public class OSSimulatorGUI extends JFrame {
      * Opciones:
      *  - Pausar (mantener estado tal cual)
      *  - Forzar liberar + reiniciar simulación (resuelve deadlock)
+     *  - Restaurar el último checkpoint (si se guardó alguno)
      */
     private void handleDeadlock() {
         // Pausar la simulación antes de mostrar diálogo
@@ -597,9 +752,12 @@ public class OSSimulatorGUI extends JFrame {
                 + "Esto es un deadlock/estancamiento en la simulación.\n\n"
                 + "¿Qué desea hacer?\n\n"
                 + "Pausar: mantener el estado actual (recomendado si quieres inspeccionar logs).\n\n"
-                + "Forzar liberar y reiniciar: liberará los locks y reiniciará la simulación (perderás el estado actual).";
+                + "Forzar liberar y reiniciar: liberará los locks y reiniciará la simulación (perderás el estado actual)."
+                + (lastCheckpoint != null ? "\n\nRestaurar checkpoint: vuelve al último estado guardado." : "");
 
-        String[] options = {"Pausar (mantener)", "Forzar liberar y reiniciar"};
+        String[] options = lastCheckpoint != null
+                ? new String[]{"Pausar (mantener)", "Forzar liberar y reiniciar", "Restaurar checkpoint"}
+                : new String[]{"Pausar (mantener)", "Forzar liberar y reiniciar"};
         int choice = JOptionPane.showOptionDialog(
                 this,
                 message,
@@ -611,7 +769,10 @@ public class OSSimulatorGUI extends JFrame {
                 options[0]
         );
 
-        if (choice == 0 || choice == JOptionPane.CLOSED_OPTION) {
+        if (choice == 2) {
+            log("Deadlock detectado: restaurando el último checkpoint (usuario eligió volver).");
+            restoreCheckpoint();
+        } else if (choice == 0 || choice == JOptionPane.CLOSED_OPTION) {
             // Mantener pausado
             log("Deadlock detectado: simulación en pausa (usuario eligió mantener estado).");
             // isRunning ya es false y timer detenido.
@@ -780,17 +941,50 @@ public class OSSimulatorGUI extends JFrame {
         report.append("PLANIFICACIÓN:\n");
         report.append(String.format("- Tiempo de espera promedio: %.2f ms\n",
                 schedMetrics.getOrDefault("avgWaitingTime", 0.0)));
+        report.append(String.format("- Tiempo de espera p50/p99/p99.9: %.0f / %.0f / %.0f ms\n",
+                schedMetrics.getOrDefault("waitingTimeP50", 0.0),
+                schedMetrics.getOrDefault("waitingTimeP99", 0.0),
+                schedMetrics.getOrDefault("waitingTimeP999", 0.0)));
         report.append(String.format("- Tiempo de retorno promedio: %.2f ms\n",
                 schedMetrics.getOrDefault("avgTurnaroundTime", 0.0)));
-        report.append(String.format("- Utilización de CPU: %.1f%%\n\n",
+        report.append(String.format("- Tiempo de respuesta promedio: %.2f ms (p99 %.0f ms)\n",
+                schedMetrics.getOrDefault("avgResponseTime", 0.0),
+                schedMetrics.getOrDefault("responseTimeP99", 0.0)));
+        report.append(String.format("- Utilización de CPU: %.1f%%\n",
                 schedMetrics.getOrDefault("cpuUtilization", 0.0)));
+        report.append(String.format("- Cambios de contexto: %.0f (%.1f por proceso, sobrecarga %.1f%%)\n",
+                schedMetrics.getOrDefault("contextSwitches", 0.0),
+                schedMetrics.getOrDefault("avgContextSwitches", 0.0),
+                schedMetrics.getOrDefault("dispatchOverhead", 0.0)));
+        if (schedMetrics.containsKey("realTimeJobs")) {
+            report.append(String.format("- Trabajos de tiempo real: %.0f (%.0f plazos incumplidos, %.1f%%; retraso máximo %.0f ms)\n",
+                    schedMetrics.get("realTimeJobs"),
+                    schedMetrics.get("deadlineMisses"),
+                    schedMetrics.get("deadlineMissRatio"),
+                    schedMetrics.get("maxTardiness")));
+        }
+        if (schedMetrics.containsKey("ioBursts")) {
+            report.append(String.format("- Ráfagas de E/S: %.0f (E/S activa %.1f%%, solapada con CPU %.1f%%)\n",
+                    schedMetrics.get("ioBursts"),
+                    schedMetrics.get("ioUtilization"),
+                    schedMetrics.get("cpuIoOverlap")));
+        }
+        report.append("\n");
 
         Map<String, Object> memMetrics = memoryManager.getMetrics();
         report.append("MEMORIA:\n");
         report.append(String.format("- Fallos de página: %s\n",
                 memMetrics.get("pageFaults")));
-        report.append(String.format("- Tasa de fallos: %.2f%%\n\n",
+        report.append(String.format("- Tasa de fallos: %.2f%%\n",
                 memMetrics.get("pageFaultRate")));
+        report.append(String.format("- Aciertos TLB: %.2f%% (tiempo de acceso efectivo %.1f ns)\n",
+                tlb.getHitRate(), tlb.getEffectiveAccessTime()));
+        if (referenceAnalyzer.getReferenceCount() > 0) {
+            report.append("- Curva de fallos para 1..").append(memoryManager.getFrameCount())
+                    .append(" marcos:\n");
+            report.append(referenceAnalyzer.analyze(memoryManager.getFrameCount()));
+        }
+        report.append("\n");
 
         Map<String, Object> fileMetrics = fileSystem.getMetrics();
         report.append("SISTEMA DE ARCHIVOS:\n");
@@ -798,6 +992,17 @@ public class OSSimulatorGUI extends JFrame {
                 fileMetrics.get("totalAccesses")));
         report.append(String.format("- Conflictos: %s\n",
                 fileMetrics.get("conflicts")));
+        report.append(String.format("- Espera por lock p50/p99: %s / %s ms\n",
+                fileMetrics.get("lockWaitP50"), fileMetrics.get("lockWaitP99")));
+        if (fileSystem.getBufferCache() != null) {
+            report.append(String.format("- Aciertos de caché: %.2f%%\n",
+                    fileSystem.getBufferCache().getHitRatio() * 100));
+        }
+        if (fileSystem.getIoScheduler() != null) {
+            report.append(String.format("- Cola del disco (%s): %s peticiones, recorrido medio %.1f bloques, latencia p50/p99 %s / %s ms\n",
+                    fileMetrics.get("ioPolicy"), fileMetrics.get("ioRequests"), fileMetrics.get("avgSeekDistance"),
+                    fileMetrics.get("ioLatencyP50"), fileMetrics.get("ioLatencyP99")));
+        }
 
         log(report.toString());
     }